@@ -0,0 +1,170 @@
+import biuoop.KeyboardSensor;
+import blocks.Block;
+import collisions.GameEnvironment;
+import game.Level3;
+import geometry.Point;
+import geometry.Rectangle;
+import sprites.Ball;
+import sprites.BallSystem;
+import sprites.Paddle;
+import sprites.SpriteCollection;
+
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Checks that a steady-state simulation tick allocates nothing, collisions included.
+ * The scene has the bricks and walls of level 3, a paddle driven left and right by a scripted keyboard,
+ * and balls bouncing off all of them and off the bottom of the screen: first standalone balls, half of them
+ * sweeping their circles through the environment and half casting only their centers, then a ball system.
+ * The bricks have no listeners, so none is removed and every tick looks like the one before.
+ * Run with "ant alloc-check"; the build fails if any bytes are allocated, and reports them per collision.
+ */
+public class AllocationCheck {
+    private static final int BALLS = 200;
+    private static final int WARMUP_TICKS = 100_000;
+    private static final int MEASURED_TICKS = 20_000;
+
+    /**
+     * A keyboard that holds the right key for a while, then the left key.
+     */
+    private static class ScriptedKeyboard implements KeyboardSensor {
+        private long ticks;
+
+        /**
+         * Moves on to the next tick.
+         */
+        void tick() {
+            this.ticks++;
+        }
+
+        @Override
+        public boolean isPressed(String key) {
+            boolean right = (this.ticks / 40) % 2 == 0;
+            return right ? RIGHT_KEY.equals(key) : LEFT_KEY.equals(key);
+        }
+    }
+
+    /**
+     * Runs the check, first with standalone balls, then with the balls in a ball system.
+     *
+     * @param args ignored.
+     */
+    public static void main(String[] args) {
+        boolean ok = check(false) & check(true);
+        if (!ok) {
+            System.out.println("FAILED: a steady-state tick allocates");
+            System.exit(1);
+        }
+        System.out.println("OK: a steady-state tick allocates nothing");
+    }
+
+    /**
+     * Builds the scene, runs it until it is warm, then measures what the following ticks allocate.
+     *
+     * @param useSystem true to move the balls in a ball system instead of one by one.
+     * @return true if nothing was allocated.
+     */
+    private static boolean check(boolean useSystem) {
+        GameEnvironment env = new GameEnvironment();
+        for (Block block : new Level3().blocks()) {
+            env.addCollidable(block);
+        }
+        env.addCollidable(new Block(new Rectangle(new Point(0, 0), 800, 25), Color.GRAY));
+        env.addCollidable(new Block(new Rectangle(new Point(0, 25), 20, 575), Color.GRAY));
+        env.addCollidable(new Block(new Rectangle(new Point(780, 25), 20, 575), Color.GRAY));
+
+        SpriteCollection sprites = new SpriteCollection();
+        ScriptedKeyboard keyboard = new ScriptedKeyboard();
+        Paddle paddle = new Paddle(new Rectangle(new Point(350, 560), 100, 20), Color.ORANGE, keyboard, 5, 800);
+        paddle.setGameEnvironment(env);
+        env.addDynamicCollidable(paddle);
+        sprites.addSprite(paddle);
+        env.buildStaticIndex();
+
+        BallSystem system = new BallSystem();
+        system.setGameEnvironment(env);
+        system.setSweptCollision(true);
+        if (useSystem) {
+            sprites.addSprite(system);
+        }
+        Random random = new Random(1);
+        Ball[] balls = new Ball[BALLS];
+        for (int i = 0; i < BALLS; i++) {
+            Ball ball = new Ball(new Point(150 + random.nextDouble() * 500, 320 + random.nextDouble() * 180),
+                    5, Color.WHITE);
+            ball.setVelocity(random.nextDouble() * 8 - 4, random.nextDouble() * 8 - 4);
+            if (useSystem) {
+                system.add(ball);
+            } else {
+                ball.setGameEnvironment(env);
+                ball.setSweptCollision(i % 2 == 0);
+                sprites.addSprite(ball);
+            }
+            balls[i] = ball;
+        }
+
+        run(keyboard, sprites, useSystem ? system : null, balls, WARMUP_TICKS);
+        long before = allocatedBytes();
+        long collisions = run(keyboard, sprites, useSystem ? system : null, balls, MEASURED_TICKS);
+        long bytes = allocatedBytes() - before - measurementOverhead();
+
+        System.out.printf("%d %s balls + paddle: %d bytes over %d ticks and %d collisions"
+                        + " (%.2f bytes per tick, %.2f per collision)%n",
+                BALLS, useSystem ? "system" : "standalone", bytes, MEASURED_TICKS, collisions,
+                bytes / (double) MEASURED_TICKS, bytes / (double) Math.max(1, collisions));
+        if (collisions == 0) {
+            System.out.println("No collision happened, so the collision path was not checked");
+            return false;
+        }
+        return bytes <= 0;
+    }
+
+    /**
+     * Runs the scene for a number of ticks. The warm-up goes through here too, so the measured loop is compiled.
+     *
+     * @param keyboard the paddle's keyboard.
+     * @param sprites  the sprites.
+     * @param system   the ball system holding the balls, or null if they are standalone.
+     * @param balls    the balls.
+     * @param ticks    how many ticks to run.
+     * @return how many collisions the balls resolved.
+     */
+    private static long run(ScriptedKeyboard keyboard, SpriteCollection sprites, BallSystem system, Ball[] balls,
+                            int ticks) {
+        long collisions = 0;
+        for (int t = 0; t < ticks; t++) {
+            keyboard.tick();
+            sprites.notifyAllTimePassed();
+            if (system != null) {
+                collisions += system.getContactsLastStep();
+            } else {
+                for (Ball ball : balls) {
+                    collisions += ball.getContactsLastStep();
+                }
+            }
+        }
+        return collisions;
+    }
+
+    /**
+     * @return the bytes that reading the allocation counter allocates by itself.
+     */
+    private static long measurementOverhead() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long before = allocatedBytes();
+            overhead = Math.min(overhead, allocatedBytes() - before);
+        }
+        return overhead;
+    }
+
+    /**
+     * @return the bytes allocated so far by this thread.
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
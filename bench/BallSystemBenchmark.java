@@ -0,0 +1,121 @@
+import blocks.Block;
+import collisions.GameEnvironment;
+import game.Level3;
+import geometry.Point;
+import geometry.Rectangle;
+import sprites.Ball;
+import sprites.BallSystem;
+
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures a multiball stress scene: many balls bouncing among the walls and the bricks of level 3,
+ * moved either as separate Ball objects (moveOneStep on each) or by a BallSystem.
+ * Run with "ant bench -Dbenchmark=BallSystemBenchmark".
+ * Reports ticks per second (higher is better) and bytes allocated per tick (lower is better).
+ */
+public class BallSystemBenchmark {
+    private static final int[] BALL_COUNTS = {1_000, 10_000};
+    private static final long RUN_NANOS = 2_000_000_000L;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args ignored.
+     */
+    public static void main(String[] args) {
+        System.out.printf("%8s %14s %14s %14s %14s%n", "balls", "objects t/s", "objects B/t", "system t/s", "system B/t");
+        for (int count : BALL_COUNTS) {
+            List<Ball> objects = new ArrayList<>();
+            GameEnvironment objectEnv = arena();
+            BallSystem system = new BallSystem();
+            system.setGameEnvironment(arena());
+            system.setSweptCollision(true);
+            Random random = new Random(count);
+            for (int i = 0; i < count; i++) {
+                double x = 30 + random.nextDouble() * 740;
+                double y = 300 + random.nextDouble() * 250;
+                double dx = random.nextDouble() * 10 - 5;
+                double dy = random.nextDouble() * 10 - 5;
+                Ball ball = new Ball(new Point(x, y), 3, Color.WHITE);
+                ball.setVelocity(dx, dy);
+                ball.setGameEnvironment(objectEnv);
+                ball.setSweptCollision(true);
+                objects.add(ball);
+                Ball handle = new Ball(new Point(x, y), 3, Color.WHITE);
+                handle.setVelocity(dx, dy);
+                system.add(handle);
+            }
+
+            // Run both once first so the JIT has compiled the hot loops.
+            measureObjects(objects, RUN_NANOS / 4);
+            measureSystem(system, RUN_NANOS / 4);
+
+            double[] o = measureObjects(objects, RUN_NANOS);
+            double[] s = measureSystem(system, RUN_NANOS);
+            System.out.printf("%8d %14.0f %14.0f %14.0f %14.0f%n", count, o[0], o[1], s[0], s[1]);
+        }
+    }
+
+    /**
+     * @return an environment with the walls and the bricks of level 3; the floor is solid, so no ball is lost.
+     */
+    private static GameEnvironment arena() {
+        GameEnvironment env = new GameEnvironment();
+        for (Block block : new Level3().blocks()) {
+            env.addCollidable(block);
+        }
+        env.addCollidable(new Block(new Rectangle(new Point(0, 0), 800, 25), Color.GRAY));
+        env.addCollidable(new Block(new Rectangle(new Point(0, 25), 20, 575), Color.GRAY));
+        env.addCollidable(new Block(new Rectangle(new Point(780, 25), 20, 575), Color.GRAY));
+        env.addCollidable(new Block(new Rectangle(new Point(0, 580), 800, 20), Color.GRAY));
+        env.buildStaticIndex();
+        return env;
+    }
+
+    /**
+     * @param balls the balls to move.
+     * @param nanos how long to run.
+     * @return ticks per second and bytes allocated per tick.
+     */
+    private static double[] measureObjects(List<Ball> balls, long nanos) {
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        long ticks = 0;
+        while (System.nanoTime() - start < nanos) {
+            for (int i = 0; i < balls.size(); i++) {
+                balls.get(i).moveOneStep();
+            }
+            ticks++;
+        }
+        return new double[]{ticks * 1e9 / (System.nanoTime() - start), (allocatedBytes() - bytes) / (double) ticks};
+    }
+
+    /**
+     * @param system the system to move.
+     * @param nanos  how long to run.
+     * @return ticks per second and bytes allocated per tick.
+     */
+    private static double[] measureSystem(BallSystem system, long nanos) {
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        long ticks = 0;
+        while (System.nanoTime() - start < nanos) {
+            system.timePassed();
+            ticks++;
+        }
+        return new double[]{ticks * 1e9 / (System.nanoTime() - start), (allocatedBytes() - bytes) / (double) ticks};
+    }
+
+    /**
+     * @return the bytes allocated so far by this thread.
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
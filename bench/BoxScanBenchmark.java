@@ -0,0 +1,171 @@
+import collisions.Collidable;
+import collisions.CollisionInfo;
+import collisions.GameEnvironment;
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+import sprites.Ball;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures closest-collision throughput against many static boxes scattered over the screen:
+ * the original object path (Line.closestIntersectionToStartOfLine against every Rectangle),
+ * the BOX_SCAN backend (flat arrays, vectorized first pass) and the default grid backend.
+ * Run with "ant bench". Every figure is queries per second; higher is better.
+ * The box scan uses the Vector API kernel when the JVM has the jdk.incubator.vector module (as "ant bench"
+ * starts it); add -Dboxscan.scalar=true to the JVM arguments to measure the plain loop instead.
+ */
+public class BoxScanBenchmark {
+    private static final int[] BOX_COUNTS = {1_000, 10_000, 100_000};
+    private static final long RUN_NANOS = 1_000_000_000L;
+    private static final double SCREEN_WIDTH = 800;
+    private static final double SCREEN_HEIGHT = 600;
+    private static final double STEP_LENGTH = 10;
+
+    /**
+     * A collidable that is nothing but a rectangle.
+     */
+    private static class Box implements Collidable {
+        private final Rectangle rect;
+
+        /**
+         * @param rect the box's rectangle.
+         */
+        Box(Rectangle rect) {
+            this.rect = rect;
+        }
+
+        @Override
+        public Rectangle getCollisionRectangle() {
+            return this.rect;
+        }
+
+        @Override
+        public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
+            return currentVelocity;
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args ignored.
+     */
+    public static void main(String[] args) {
+        System.out.printf("%8s %14s %14s %14s%n", "boxes", "objects", "box scan", "grid");
+        for (int count : BOX_COUNTS) {
+            Random random = new Random(count);
+            List<Box> boxes = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                double w = 1 + random.nextDouble() * 4;
+                double h = 1 + random.nextDouble() * 4;
+                Point corner = new Point(random.nextDouble() * (SCREEN_WIDTH - w), random.nextDouble() * (SCREEN_HEIGHT - h));
+                boxes.add(new Box(new Rectangle(corner, w, h)));
+            }
+            Line[] queries = new Line[4096];
+            for (int i = 0; i < queries.length; i++) {
+                double x = random.nextDouble() * SCREEN_WIDTH;
+                double y = random.nextDouble() * SCREEN_HEIGHT;
+                double angle = random.nextDouble() * 2 * Math.PI;
+                queries[i] = new Line(x, y, x + Math.cos(angle) * STEP_LENGTH, y + Math.sin(angle) * STEP_LENGTH);
+            }
+
+            GameEnvironment scan = build(boxes, GameEnvironment.Backend.BOX_SCAN);
+            GameEnvironment grid = build(boxes, GameEnvironment.Backend.GRID);
+
+            // Run everything once first so the JIT has compiled the hot loops.
+            measureObjects(boxes, queries, RUN_NANOS / 4);
+            measureEnvironment(scan, queries, RUN_NANOS / 4);
+            measureEnvironment(grid, queries, RUN_NANOS / 4);
+
+            System.out.printf("%8d %14.0f %14.0f %14.0f%n", count,
+                    measureObjects(boxes, queries, RUN_NANOS),
+                    measureEnvironment(scan, queries, RUN_NANOS),
+                    measureEnvironment(grid, queries, RUN_NANOS));
+        }
+    }
+
+    /**
+     * @param boxes   the boxes to add.
+     * @param backend the backend to use.
+     * @return an environment holding the boxes in its static index.
+     */
+    private static GameEnvironment build(List<Box> boxes, GameEnvironment.Backend backend) {
+        GameEnvironment env = new GameEnvironment(backend);
+        for (Box box : boxes) {
+            env.addCollidable(box);
+        }
+        env.buildStaticIndex();
+        return env;
+    }
+
+    /**
+     * Queries the environment in a loop for the given time.
+     *
+     * @param env     the environment.
+     * @param queries the trajectories, used round robin.
+     * @param nanos   how long to run.
+     * @return queries per second.
+     */
+    private static double measureEnvironment(GameEnvironment env, Line[] queries, long nanos) {
+        long start = System.nanoTime();
+        long done = 0;
+        int hits = 0;
+        while (System.nanoTime() - start < nanos) {
+            for (int i = 0; i < 64; i++) {
+                CollisionInfo info = env.getClosestCollision(queries[(int) (done++ % queries.length)]);
+                if (info != null) {
+                    hits++;
+                }
+            }
+        }
+        return report(done, System.nanoTime() - start, hits);
+    }
+
+    /**
+     * Runs the original closest-collision loop over every rectangle for the given time.
+     *
+     * @param boxes   the boxes.
+     * @param queries the trajectories, used round robin.
+     * @param nanos   how long to run.
+     * @return queries per second.
+     */
+    private static double measureObjects(List<Box> boxes, Line[] queries, long nanos) {
+        long start = System.nanoTime();
+        long done = 0;
+        int hits = 0;
+        while (System.nanoTime() - start < nanos) {
+            Line trajectory = queries[(int) (done++ % queries.length)];
+            Point closest = null;
+            double minDistance = Double.POSITIVE_INFINITY;
+            for (Box box : boxes) {
+                Point p = trajectory.closestIntersectionToStartOfLine(box.getCollisionRectangle());
+                if (p != null && trajectory.start().distance(p) < minDistance) {
+                    minDistance = trajectory.start().distance(p);
+                    closest = p;
+                }
+            }
+            if (closest != null) {
+                hits++;
+            }
+        }
+        return report(done, System.nanoTime() - start, hits);
+    }
+
+    /**
+     * @param queries how many queries ran.
+     * @param nanos   how long they took.
+     * @param hits    how many hit something; only used so the work cannot be optimized away.
+     * @return queries per second.
+     */
+    private static double report(long queries, long nanos, int hits) {
+        if (hits < 0) {
+            System.out.println(hits);
+        }
+        return queries * 1e9 / nanos;
+    }
+}
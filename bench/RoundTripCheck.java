@@ -0,0 +1,224 @@
+import game.GameLevel;
+import game.InputLog;
+import game.InputRecorder;
+import game.InputReplay;
+import game.Level1;
+import game.Level3;
+import game.LevelInformation;
+import game.TrackingInput;
+import utils.Counter;
+import utils.RewindBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that what is saved comes back unchanged.
+ * A recording: a level is played with a scripted player and recorded, then the recording is replayed from
+ * the start into a fresh level, which must end in the same state; and replayed from a checkpoint in the middle,
+ * which must reach the same state at the same tick. This runs in every collision mode, except that event-driven
+ * levels only replay from the start, since a level restored from a checkpoint predicts its impacts afresh
+ * and goes on from it the same way only up to rounding.
+ * A rewind history: snapshots are pushed into a RewindBuffer too small to hold them all, so it wraps around
+ * and drops key snapshots, and every snapshot it still holds must read back as it was pushed, before and after
+ * going back in it.
+ * Run with "ant roundtrip-check"; the build fails if anything comes back different.
+ */
+public class RoundTripCheck {
+    private static final int TICKS = 3000;
+    private static final int CHECKPOINT_INTERVAL = 500;
+    private static final long PLAYER_SEED = 2;
+    private static final int SNAPSHOT_SIZE = 120;
+    private static final int SNAPSHOTS = 5000;
+
+    /**
+     * A collision mode of the level, as its setters take it.
+     */
+    private enum Mode {
+        PLAIN, SWEPT, EVENT_DRIVEN, BATCHED, BLOCK_FIELD, BALL_SYSTEM;
+
+        /**
+         * Puts a level into this mode.
+         *
+         * @param level the level, before it is initialized.
+         */
+        void apply(GameLevel level) {
+            level.setSweptCollision(this == SWEPT);
+            level.setEventDriven(this == EVENT_DRIVEN);
+            level.setBatchedCollisions(this == BATCHED);
+            level.setBlockField(this == BLOCK_FIELD);
+            level.setBallSystem(this == BALL_SYSTEM);
+        }
+    }
+
+    /**
+     * Runs the checks.
+     *
+     * @param args ignored.
+     * @throws IOException never; the recordings are kept in memory.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean ok = true;
+        for (LevelInformation info : new LevelInformation[]{new Level1(), new Level3()}) {
+            for (Mode mode : Mode.values()) {
+                ok &= checkRecording(info, mode);
+            }
+        }
+        ok &= checkRewindBuffer();
+        if (!ok) {
+            System.out.println("FAILED: something saved did not come back the same");
+            System.exit(1);
+        }
+        System.out.println("OK: recordings replay and rewind history reads back unchanged");
+    }
+
+    /**
+     * Records a level, then replays the recording from the start and from a checkpoint.
+     *
+     * @param info the level.
+     * @param mode the collision mode.
+     * @return true if both replays end where the recorded game did.
+     * @throws IOException never; the recording is kept in memory.
+     */
+    private static boolean checkRecording(LevelInformation info, Mode mode) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GameLevel recorded = level(info, mode, new TrackingInput(PLAYER_SEED));
+        InputRecorder recorder = new InputRecorder(new TrackingInput(PLAYER_SEED), bytes, PLAYER_SEED);
+        recorder.setCheckpointInterval(CHECKPOINT_INTERVAL);
+        recorded.setInputPolicy(recorder);
+        recorded.initialize();
+        recorded.setMaxTicks(TICKS);
+        recorded.run();
+        recorder.close();
+        byte[] end = state(recorded);
+
+        InputLog log = new InputLog(bytes.toByteArray());
+        boolean ok = log.getTotalTicks() == recorded.getTicks()
+                && log.getCheckpointCount() == (recorded.getTicks() - 1) / CHECKPOINT_INTERVAL + 1;
+
+        // From the start, stopping in the middle to remember the state there.
+        long middle = log.getTotalTicks() * 2 / 3 + 17;
+        InputReplay replay = new InputReplay(log);
+        GameLevel full = level(info, mode, replay);
+        full.initialize();
+        replay.seek(full, 0);
+        byte[] atMiddle = runTo(full, middle);
+        byte[] fullEnd = runTo(full, log.getTotalTicks());
+        ok &= Arrays.equals(end, fullEnd);
+
+        String seekResult = "";
+        if (mode != Mode.EVENT_DRIVEN) {
+            InputReplay seeking = new InputReplay(log);
+            GameLevel resumed = level(info, mode, seeking);
+            resumed.initialize();
+            long from = seeking.seek(resumed, middle);
+            boolean sameMiddle = Arrays.equals(atMiddle, runTo(resumed, middle));
+            boolean sameEnd = Arrays.equals(end, runTo(resumed, log.getTotalTicks()));
+            ok &= from <= middle && from > middle - CHECKPOINT_INTERVAL && sameMiddle && sameEnd;
+            seekResult = String.format(", from the checkpoint at %d %s", from,
+                    sameMiddle && sameEnd ? "equal" : "DIFFERENT");
+        }
+        System.out.printf("%s, %s: %d ticks in %d bytes with %d checkpoints; from the start %s%s%n",
+                info.levelName(), mode, log.getTotalTicks(), bytes.size(), log.getCheckpointCount(),
+                Arrays.equals(end, fullEnd) ? "equal" : "DIFFERENT", seekResult);
+        return ok;
+    }
+
+    /**
+     * @param info     the level.
+     * @param mode     the collision mode.
+     * @param keyboard the player's input.
+     * @return a quiet headless level in the given mode, not yet initialized.
+     */
+    private static GameLevel level(LevelInformation info, Mode mode, biuoop.KeyboardSensor keyboard) {
+        GameLevel level = new GameLevel(info, keyboard, new Counter(), new Counter());
+        mode.apply(level);
+        level.setVerbose(false);
+        return level;
+    }
+
+    /**
+     * Runs a level up to a tick, or until it ends before it.
+     *
+     * @param level the level.
+     * @param tick  the tick to stop at.
+     * @return the level's state then.
+     */
+    private static byte[] runTo(GameLevel level, long tick) {
+        if (level.getTicks() < tick) {
+            level.setMaxTicks(tick - level.getTicks());
+            level.run();
+        }
+        return state(level);
+    }
+
+    /**
+     * @param level a level.
+     * @return its saved state.
+     */
+    private static byte[] state(GameLevel level) {
+        ByteBuffer buffer = ByteBuffer.allocate(level.getStateSize());
+        level.saveState(buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Pushes a game-like stream of snapshots through a small rewind buffer, reading back everything it holds
+     * after every push, and goes back in it now and then.
+     *
+     * @return true if every snapshot read back as it was pushed, and the buffer wrapped and dropped some.
+     */
+    private static boolean checkRewindBuffer() {
+        Random random = new Random(1);
+        // Room for a couple of hundred snapshots, with a key snapshot every eight.
+        RewindBuffer buffer = new RewindBuffer(SNAPSHOT_SIZE, 6000, 8);
+        byte[][] pushed = new byte[SNAPSHOTS][];
+        byte[] snapshot = new byte[SNAPSHOT_SIZE];
+        byte[] out = new byte[SNAPSHOT_SIZE];
+        int newest = -1;
+        int smallest = Integer.MAX_VALUE;
+        int largest = 0;
+        int rewinds = 0;
+        for (int n = 0; n < SNAPSHOTS; n++) {
+            // Most snapshots change a few bytes; some change many, as when a level is restored.
+            int changes = random.nextInt(20) == 0 ? SNAPSHOT_SIZE : 1 + random.nextInt(4);
+            for (int c = 0; c < changes; c++) {
+                snapshot[random.nextInt(SNAPSHOT_SIZE)] = (byte) random.nextInt(256);
+            }
+            buffer.push(snapshot);
+            pushed[++newest] = snapshot.clone();
+            if (random.nextInt(50) == 0 && buffer.size() > 10) {
+                int age = 1 + random.nextInt(buffer.size() - 1);
+                buffer.rewind(age, out);
+                newest -= age;
+                rewinds++;
+                if (!Arrays.equals(out, pushed[newest])) {
+                    System.out.println("Rewinding " + age + " snapshots did not give back the snapshot then");
+                    return false;
+                }
+                System.arraycopy(out, 0, snapshot, 0, SNAPSHOT_SIZE);
+            }
+            for (int age = 0; age < buffer.size(); age++) {
+                buffer.read(age, out);
+                if (!Arrays.equals(out, pushed[newest - age])) {
+                    System.out.println("Snapshot " + age + " back read back changed after " + (n + 1) + " pushes");
+                    return false;
+                }
+            }
+            if (n > 0) {
+                smallest = Math.min(smallest, buffer.size());
+            }
+            largest = Math.max(largest, buffer.size());
+        }
+        System.out.printf("rewind buffer: %d snapshots pushed, %d rewinds, held between %d and %d%n",
+                SNAPSHOTS, rewinds, smallest, largest);
+        if (largest >= SNAPSHOTS / 2) {
+            System.out.println("The rewind buffer never wrapped, so dropping snapshots was not checked");
+            return false;
+        }
+        return true;
+    }
+}
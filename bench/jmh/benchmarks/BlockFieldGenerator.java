@@ -0,0 +1,144 @@
+package benchmarks;
+
+import blocks.Block;
+import collisions.GameEnvironment;
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+import sprites.Ball;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the scenes the benchmarks run on, from a seed, so every run and every fork sees the same scene.
+ * A field scatters the given number of blocks over the play area (inside the walls), sized so that together
+ * they cover about a third of it whatever their number; blocks may overlap, as they cost the same to test.
+ */
+public final class BlockFieldGenerator {
+    /** The left edge of the play area. */
+    public static final double LEFT = 20;
+    /** The top edge of the play area. */
+    public static final double TOP = 25;
+    /** The right edge of the play area. */
+    public static final double RIGHT = 780;
+    /** The bottom edge of the play area. */
+    public static final double BOTTOM = 580;
+
+    private static final double COVERAGE = 0.3;
+    private static final Color[] COLORS = {Color.RED, Color.ORANGE, Color.YELLOW, Color.GREEN, Color.BLUE, Color.PINK};
+
+    private final Random random;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param seed the seed of everything it generates.
+     */
+    public BlockFieldGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates a block field.
+     *
+     * @param count the number of blocks.
+     * @return the blocks.
+     */
+    public List<Block> blocks(int count) {
+        double side = Math.sqrt(COVERAGE * (RIGHT - LEFT) * (BOTTOM - TOP) / count);
+        List<Block> blocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double w = side * (0.5 + this.random.nextDouble());
+            double h = side * (0.5 + this.random.nextDouble());
+            double x = LEFT + this.random.nextDouble() * (RIGHT - LEFT - w);
+            double y = TOP + this.random.nextDouble() * (BOTTOM - TOP - h);
+            blocks.add(new Block(new Rectangle(new Point(x, y), w, h), COLORS[this.random.nextInt(COLORS.length)]));
+        }
+        return blocks;
+    }
+
+    /**
+     * Generates line segments of a given length, starting anywhere in the play area and pointing anywhere.
+     *
+     * @param count  the number of segments.
+     * @param length their length.
+     * @return the segments.
+     */
+    public Line[] segments(int count, double length) {
+        Line[] lines = new Line[count];
+        for (int i = 0; i < count; i++) {
+            double x = LEFT + this.random.nextDouble() * (RIGHT - LEFT);
+            double y = TOP + this.random.nextDouble() * (BOTTOM - TOP);
+            double angle = this.random.nextDouble() * 2 * Math.PI;
+            lines[i] = new Line(x, y, x + Math.cos(angle) * length, y + Math.sin(angle) * length);
+        }
+        return lines;
+    }
+
+    /**
+     * Generates balls in the free part of the play area, moving in any direction at up to a given speed.
+     *
+     * @param count     the number of balls.
+     * @param radius    their radius.
+     * @param speed     the largest speed along each axis, in pixels per step.
+     * @param obstacles the blocks the balls must not start inside.
+     * @return the balls.
+     */
+    public List<Ball> balls(int count, int radius, double speed, List<Block> obstacles) {
+        List<Ball> balls = new ArrayList<>(count);
+        while (balls.size() < count) {
+            double x = LEFT + radius + this.random.nextDouble() * (RIGHT - LEFT - 2 * radius);
+            double y = TOP + radius + this.random.nextDouble() * (BOTTOM - TOP - 2 * radius);
+            if (overlaps(x, y, radius, obstacles)) {
+                continue;
+            }
+            Ball ball = new Ball(new Point(x, y), radius, Color.WHITE);
+            ball.setVelocity((this.random.nextDouble() * 2 - 1) * speed, (this.random.nextDouble() * 2 - 1) * speed);
+            balls.add(ball);
+        }
+        return balls;
+    }
+
+    /**
+     * @param x         the x of a ball's center.
+     * @param y         the y of a ball's center.
+     * @param radius    its radius.
+     * @param obstacles the blocks.
+     * @return whether the ball's bounding square touches any of the blocks.
+     */
+    private static boolean overlaps(double x, double y, int radius, List<Block> obstacles) {
+        for (Block block : obstacles) {
+            Rectangle r = block.getCollisionRectangle();
+            Point corner = r.getUpperLeft();
+            if (x + radius >= corner.getX() && x - radius <= corner.getX() + r.getWidth()
+                    && y + radius >= corner.getY() && y - radius <= corner.getY() + r.getHeight()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Puts blocks into a new environment, with the walls and a solid floor around the play area,
+     * and packs them into its static index.
+     *
+     * @param blocks  the blocks.
+     * @param backend the environment's spatial index.
+     * @return the environment.
+     */
+    public static GameEnvironment arena(List<Block> blocks, GameEnvironment.Backend backend) {
+        GameEnvironment env = new GameEnvironment(backend);
+        for (Block block : blocks) {
+            env.addCollidable(block);
+        }
+        env.addCollidable(new Block(new Rectangle(new Point(0, 0), 800, TOP), Color.GRAY));
+        env.addCollidable(new Block(new Rectangle(new Point(0, TOP), LEFT, 600 - TOP), Color.GRAY));
+        env.addCollidable(new Block(new Rectangle(new Point(RIGHT, TOP), 800 - RIGHT, 600 - TOP), Color.GRAY));
+        env.addCollidable(new Block(new Rectangle(new Point(0, BOTTOM), 800, 600 - BOTTOM), Color.GRAY));
+        env.buildStaticIndex();
+        return env;
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import collisions.CollisionInfo;
+import collisions.GameEnvironment;
+import geometry.Line;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the closest-collision query of the game environment against block fields of growing size,
+ * for every spatial index. The trajectories are ball steps of about ten pixels, as the game asks for,
+ * taken in turn from a generated set so the query sees hits, near misses and empty cells.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+    private static final int TRAJECTORIES = 4096;
+    private static final double STEP_LENGTH = 10;
+
+    @Param({"1"})
+    private long seed;
+
+    /** The number of blocks in the field, besides the four walls. */
+    @Param({"10", "100", "1000", "10000"})
+    private int collidables;
+
+    @Param({"GRID", "AABB_TREE", "BOX_SCAN"})
+    private GameEnvironment.Backend backend;
+
+    private GameEnvironment environment;
+    private Line[] trajectories;
+    private int next;
+
+    /**
+     * Generates the block field and the trajectories.
+     */
+    @Setup
+    public void setUp() {
+        BlockFieldGenerator generator = new BlockFieldGenerator(this.seed);
+        this.environment = BlockFieldGenerator.arena(generator.blocks(this.collidables), this.backend);
+        this.trajectories = generator.segments(TRAJECTORIES, STEP_LENGTH);
+    }
+
+    /**
+     * @return the closest collision along the next trajectory, or null.
+     */
+    @Benchmark
+    public CollisionInfo getClosestCollision() {
+        this.next = (this.next + 1) & (TRAJECTORIES - 1);
+        return this.environment.getClosestCollision(this.trajectories[this.next]);
+    }
+}
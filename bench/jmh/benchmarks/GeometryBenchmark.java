@@ -0,0 +1,106 @@
+package benchmarks;
+
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the object-based geometry primitives: segment against segment, and segment against rectangle.
+ * Each call takes the next segment (and block) of a generated scene, so branches see a realistic mix
+ * of hits and misses instead of one case the JIT can learn.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeometryBenchmark {
+    private static final int SCENE_SIZE = 1024;
+
+    @Param({"1"})
+    private long seed;
+
+    /** The length of the segments; ball steps are a few pixels, a long one crosses much of the screen. */
+    @Param({"10", "200"})
+    private double length;
+
+    private Line[] lines;
+    private Line[] others;
+    private Rectangle[] rectangles;
+    private int next;
+
+    /**
+     * Generates the segments and rectangles.
+     */
+    @Setup
+    public void setUp() {
+        BlockFieldGenerator generator = new BlockFieldGenerator(this.seed);
+        this.lines = generator.segments(SCENE_SIZE, this.length);
+        this.others = generator.segments(SCENE_SIZE, this.length);
+        this.rectangles = new Rectangle[SCENE_SIZE];
+        List<blocks.Block> field = generator.blocks(SCENE_SIZE / 16);
+        for (int i = 0; i < SCENE_SIZE; i++) {
+            this.rectangles[i] = field.get(i % field.size()).getCollisionRectangle();
+        }
+    }
+
+    /**
+     * @return the index of the next pair to test.
+     */
+    private int advance() {
+        this.next = (this.next + 1) & (SCENE_SIZE - 1);
+        return this.next;
+    }
+
+    /**
+     * @return the intersection of two segments, or null.
+     */
+    @Benchmark
+    public Point lineIntersectionWith() {
+        int i = advance();
+        return this.lines[i].intersectionWith(this.others[i]);
+    }
+
+    /**
+     * @return whether two segments intersect.
+     */
+    @Benchmark
+    public boolean lineIsIntersecting() {
+        int i = advance();
+        return this.lines[i].isIntersecting(this.others[i]);
+    }
+
+    /**
+     * @return the points where a segment crosses a rectangle's edges.
+     */
+    @Benchmark
+    public List<Point> rectangleIntersectionPoints() {
+        int i = advance();
+        return this.rectangles[i].intersectionPoints(this.lines[i]);
+    }
+
+    /**
+     * @return the point where a segment first enters a rectangle, or null.
+     */
+    @Benchmark
+    public Point lineClosestIntersectionToStartOfLine() {
+        int i = advance();
+        return this.lines[i].closestIntersectionToStartOfLine(this.rectangles[i]);
+    }
+}
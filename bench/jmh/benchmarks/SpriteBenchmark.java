@@ -0,0 +1,124 @@
+package benchmarks;
+
+import blocks.Block;
+import collisions.GameEnvironment;
+import sprites.Ball;
+import sprites.SpriteCollection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a simulation step: one ball moving through a block field, and a whole sprite collection
+ * of balls and blocks being told that time passed. The blocks have no hit listeners, so nothing is
+ * removed and the scene stays the same size however long the benchmark runs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteBenchmark {
+    private static final int RADIUS = 5;
+    private static final double SPEED = 5;
+
+    /**
+     * A single ball bouncing around a block field.
+     */
+    @State(Scope.Thread)
+    public static class SingleBall {
+        @Param({"1"})
+        private long seed;
+
+        @Param({"100"})
+        private int blocks;
+
+        /** Whether the ball sweeps its circle through the environment instead of casting its center. */
+        @Param({"false", "true"})
+        private boolean swept;
+
+        private Ball ball;
+
+        /**
+         * Generates the block field and puts the ball in it.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            BlockFieldGenerator generator = new BlockFieldGenerator(this.seed);
+            List<Block> field = generator.blocks(this.blocks);
+            GameEnvironment env = BlockFieldGenerator.arena(field, GameEnvironment.Backend.GRID);
+            this.ball = generator.balls(1, RADIUS, SPEED, field).get(0);
+            this.ball.setGameEnvironment(env);
+            this.ball.setSweptCollision(this.swept);
+        }
+    }
+
+    /**
+     * A sprite collection of balls bouncing around the blocks, which are sprites too.
+     */
+    @State(Scope.Thread)
+    public static class Scene {
+        @Param({"1"})
+        private long seed;
+
+        @Param({"100"})
+        private int blocks;
+
+        @Param({"10", "100", "1000"})
+        private int balls;
+
+        private SpriteCollection sprites;
+
+        /**
+         * Generates the block field and the balls, and adds them all to the collection.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            BlockFieldGenerator generator = new BlockFieldGenerator(this.seed);
+            List<Block> field = generator.blocks(this.blocks);
+            GameEnvironment env = BlockFieldGenerator.arena(field, GameEnvironment.Backend.GRID);
+            this.sprites = new SpriteCollection();
+            for (Block block : field) {
+                this.sprites.addSprite(block);
+            }
+            for (Ball ball : generator.balls(this.balls, RADIUS, SPEED, field)) {
+                ball.setGameEnvironment(env);
+                ball.setSweptCollision(true);
+                this.sprites.addSprite(ball);
+            }
+        }
+    }
+
+    /**
+     * Moves the ball one step.
+     *
+     * @param state the ball.
+     */
+    @Benchmark
+    public void ballMoveOneStep(SingleBall state) {
+        state.ball.moveOneStep();
+    }
+
+    /**
+     * Steps every sprite once.
+     *
+     * @param state the scene.
+     */
+    @Benchmark
+    public void notifyAllTimePassed(Scene state) {
+        state.sprites.notifyAllTimePassed();
+    }
+}
@@ -0,0 +1,635 @@
+package blocks;
+
+import biuoop.DrawSurface;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import game.GameLevel;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.SegmentHit;
+import geometry.Vector2;
+import geometry.Velocity;
+import collisions.CollisionInfo;
+import collisions.GameEnvironment;
+import collisions.ShapedCollidable;
+import sprites.Ball;
+import sprites.DirtyRegions;
+import sprites.Sprite;
+
+/**
+ * A BlockField is a whole grid of bricks stored as a tile map: one colour index per cell and
+ * one alive bit per cell, instead of a Block object per brick. Cells are laid out at a fixed pitch
+ * starting from the upper-left corner, and every brick sits at the upper-left of its cell
+ * (a brick smaller than the pitch leaves a gap to its neighbours).
+ * The field is added to the game as a single collidable and a single sprite; a trajectory is tested
+ * only against the bricks of the cells it passes through, found with a DDA walk over the grid.
+ */
+public class BlockField implements ShapedCollidable, Sprite {
+    /** How far inside the surface a contact point is probed to find the brick that was hit. */
+    private static final double PROBE_DEPTH = 0.5;
+    /** Tolerance for a point to count as lying on a brick's edge. */
+    private static final double EDGE_TOLERANCE = 0.01;
+
+    private final double x;
+    private final double y;
+    private final int cols;
+    private final int rows;
+    private final double pitchX;
+    private final double pitchY;
+    private final double brickWidth;
+    private final double brickHeight;
+    private final Color[] palette;
+    private final byte[] colorIndex;
+    private final long[] alive;
+    private final long[] changed;
+    private final Rectangle bounds;
+    private final List<FieldHitListener> hitListeners;
+    private FieldHitListener[] listenerSnapshot;
+    private final SegmentHit scratch;
+    private int brickCount;
+    private GameEnvironment environment;
+
+    /**
+     * Constructs an empty field. Bricks are placed with setBrick.
+     *
+     * @param upperLeft   the upper-left corner of the first cell.
+     * @param cols        the number of columns.
+     * @param rows        the number of rows.
+     * @param pitchX      the horizontal distance between the left edges of neighbouring bricks.
+     * @param pitchY      the vertical distance between the top edges of neighbouring bricks.
+     * @param brickWidth  the width of a brick, at most pitchX.
+     * @param brickHeight the height of a brick, at most pitchY.
+     * @param palette     the brick colours; a brick refers to its colour by index (at most 256 colours).
+     */
+    public BlockField(Point upperLeft, int cols, int rows, double pitchX, double pitchY,
+                      double brickWidth, double brickHeight, Color[] palette) {
+        this.x = upperLeft.getX();
+        this.y = upperLeft.getY();
+        this.cols = cols;
+        this.rows = rows;
+        this.pitchX = pitchX;
+        this.pitchY = pitchY;
+        this.brickWidth = brickWidth;
+        this.brickHeight = brickHeight;
+        this.palette = palette.clone();
+        this.colorIndex = new byte[cols * rows];
+        this.alive = new long[(cols * rows + 63) / 64];
+        this.changed = new long[this.alive.length];
+        this.bounds = new Rectangle(upperLeft, (cols - 1) * pitchX + brickWidth, (rows - 1) * pitchY + brickHeight);
+        this.hitListeners = new ArrayList<>();
+        this.scratch = new SegmentHit();
+    }
+
+    /**
+     * Builds a field out of blocks that all have the same size and lie on a regular grid.
+     * The blocks keep their colours; listeners registered on them are not carried over.
+     *
+     * @param blocks the blocks to convert.
+     * @return the equivalent field, or null if the blocks do not form a grid.
+     */
+    public static BlockField fromBlocks(List<Block> blocks) {
+        if (blocks.isEmpty()) {
+            return null;
+        }
+        Rectangle first = blocks.get(0).getCollisionRectangle();
+        double width = first.getWidth();
+        double height = first.getHeight();
+        TreeSet<Double> xs = new TreeSet<>();
+        TreeSet<Double> ys = new TreeSet<>();
+        List<Color> colors = new ArrayList<>();
+        for (Block block : blocks) {
+            Rectangle r = block.getCollisionRectangle();
+            if (r.getWidth() != width || r.getHeight() != height) {
+                return null;
+            }
+            xs.add(r.getUpperLeft().getX());
+            ys.add(r.getUpperLeft().getY());
+            if (!colors.contains(block.getColor())) {
+                colors.add(block.getColor());
+            }
+        }
+        double pitchX = smallestGap(xs, width);
+        double pitchY = smallestGap(ys, height);
+        if (pitchX < width || pitchY < height || colors.size() > 256) {
+            return null;
+        }
+        int cols = (int) Math.round((xs.last() - xs.first()) / pitchX) + 1;
+        int rows = (int) Math.round((ys.last() - ys.first()) / pitchY) + 1;
+        BlockField field = new BlockField(new Point(xs.first(), ys.first()), cols, rows,
+                pitchX, pitchY, width, height, colors.toArray(new Color[0]));
+        for (Block block : blocks) {
+            Point corner = block.getCollisionRectangle().getUpperLeft();
+            double col = (corner.getX() - field.x) / pitchX;
+            double row = (corner.getY() - field.y) / pitchY;
+            int c = (int) Math.round(col);
+            int r = (int) Math.round(row);
+            if (Math.abs(col - c) > 1e-9 || Math.abs(row - r) > 1e-9 || field.isAlive(r * cols + c)) {
+                return null;
+            }
+            field.setBrick(c, r, colors.indexOf(block.getColor()));
+        }
+        return field;
+    }
+
+    /**
+     * @param values the sorted distinct coordinates.
+     * @param size   the value to use when there is a single coordinate.
+     * @return the smallest distance between neighbouring coordinates.
+     */
+    private static double smallestGap(TreeSet<Double> values, double size) {
+        double gap = Double.POSITIVE_INFINITY;
+        Double previous = null;
+        for (Double v : values) {
+            if (previous != null) {
+                gap = Math.min(gap, v - previous);
+            }
+            previous = v;
+        }
+        return gap == Double.POSITIVE_INFINITY ? size : gap;
+    }
+
+    /**
+     * Places a brick in a cell.
+     *
+     * @param col        the column of the cell.
+     * @param row        the row of the cell.
+     * @param colorIndex the index of the brick's colour in the palette.
+     */
+    public void setBrick(int col, int row, int colorIndex) {
+        int cell = row * this.cols + col;
+        this.colorIndex[cell] = (byte) colorIndex;
+        this.changed[cell >>> 6] |= 1L << cell;
+        if (!isAlive(cell)) {
+            this.alive[cell >>> 6] |= 1L << cell;
+            this.brickCount++;
+        }
+    }
+
+    /**
+     * Removes the brick of a cell, if there is one.
+     *
+     * @param cell the index of the cell.
+     */
+    public void removeBrick(int cell) {
+        if (!isAlive(cell)) {
+            return;
+        }
+        this.alive[cell >>> 6] &= ~(1L << cell);
+        this.changed[cell >>> 6] |= 1L << cell;
+        this.brickCount--;
+        if (this.environment != null) {
+            this.environment.shapeChanged(this);
+        }
+    }
+
+    /**
+     * Puts a removed brick back into its cell, with the colour it had, for example when an earlier
+     * game state is restored.
+     *
+     * @param cell the index of the cell.
+     */
+    public void restoreBrick(int cell) {
+        if (isAlive(cell)) {
+            return;
+        }
+        this.alive[cell >>> 6] |= 1L << cell;
+        this.changed[cell >>> 6] |= 1L << cell;
+        this.brickCount++;
+        if (this.environment != null) {
+            this.environment.shapeChanged(this);
+        }
+    }
+
+    /**
+     * @param cell the index of a cell.
+     * @return true if the cell holds a brick.
+     */
+    public boolean isAlive(int cell) {
+        return (this.alive[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * @return the number of cells in the field, with or without a brick.
+     */
+    public int getCellCount() {
+        return this.cols * this.rows;
+    }
+
+    /**
+     * @return the number of bricks left in the field.
+     */
+    public int getBrickCount() {
+        return this.brickCount;
+    }
+
+    /**
+     * @param cell the index of a cell.
+     * @return the colour of the cell's brick.
+     */
+    public Color getColor(int cell) {
+        return this.palette[this.colorIndex[cell] & 0xFF];
+    }
+
+    /**
+     * Checks if the color of the ball matches a brick.
+     *
+     * @param cell the index of the brick's cell.
+     * @param ball the ball to compare.
+     * @return true if colors match, false otherwise.
+     */
+    public boolean ballColorMatch(int cell, Ball ball) {
+        return getColor(cell).equals(ball.getColor());
+    }
+
+    /**
+     * Sets the game environment the field is registered in,
+     * so it can report bricks that were removed.
+     *
+     * @param env the GameEnvironment holding the field.
+     */
+    public void setGameEnvironment(GameEnvironment env) {
+        this.environment = env;
+    }
+
+    /**
+     * Returns the rectangle bounding all the cells of the field.
+     *
+     * @return the bounds of the field.
+     */
+    @Override
+    public Rectangle getCollisionRectangle() {
+        return this.bounds;
+    }
+
+    /**
+     * Walks the cells on the trajectory in order and tests the bricks in and around them.
+     * The walk stops as soon as the earliest hit found lies inside the cells already covered.
+     *
+     * @param x0     x of the start.
+     * @param y0     y of the start.
+     * @param dx     x extent of the motion.
+     * @param dy     y extent of the motion.
+     * @param radius the circle radius, or 0 for a segment.
+     * @param out    receives the time of impact and the unit normal when there is a hit.
+     * @return true if a brick is hit.
+     */
+    @Override
+    public boolean intersect(double x0, double y0, double dx, double dy, double radius, SegmentHit out) {
+        // Clip the motion to the field grown by the radius, so the walk starts at the field.
+        double tStart = 0;
+        double tEnd = 1;
+        double minX = this.x - radius;
+        double maxX = this.x + this.bounds.getWidth() + radius;
+        double minY = this.y - radius;
+        double maxY = this.y + this.bounds.getHeight() + radius;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return false;
+            }
+        } else {
+            tStart = Math.max(tStart, Math.min((minX - x0) / dx, (maxX - x0) / dx));
+            tEnd = Math.min(tEnd, Math.max((minX - x0) / dx, (maxX - x0) / dx));
+        }
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return false;
+            }
+        } else {
+            tStart = Math.max(tStart, Math.min((minY - y0) / dy, (maxY - y0) / dy));
+            tEnd = Math.min(tEnd, Math.max((minY - y0) / dy, (maxY - y0) / dy));
+        }
+        if (tStart > tEnd) {
+            return false;
+        }
+
+        int col = (int) Math.floor((x0 + dx * tStart - this.x) / this.pitchX);
+        int row = (int) Math.floor((y0 + dy * tStart - this.y) / this.pitchY);
+        int ringX = (int) Math.ceil(radius / this.pitchX);
+        int ringY = (int) Math.ceil(radius / this.pitchY);
+        int stepCol = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : this.pitchX / Math.abs(dx);
+        double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : this.pitchY / Math.abs(dy);
+        double tMaxX = dx == 0 ? Double.POSITIVE_INFINITY
+                : (this.x + (dx > 0 ? col + 1 : col) * this.pitchX - x0) / dx;
+        double tMaxY = dy == 0 ? Double.POSITIVE_INFINITY
+                : (this.y + (dy > 0 ? row + 1 : row) * this.pitchY - y0) / dy;
+
+        int best = -1;
+        double bestTime = Double.POSITIVE_INFINITY;
+        double bestNormalX = 0;
+        double bestNormalY = 0;
+        while (true) {
+            for (int r = Math.max(0, row - ringY); r <= Math.min(this.rows - 1, row + ringY); r++) {
+                for (int c = Math.max(0, col - ringX); c <= Math.min(this.cols - 1, col + ringX); c++) {
+                    int cell = r * this.cols + c;
+                    if (!isAlive(cell) || !intersectBrick(c, r, x0, y0, dx, dy, radius)) {
+                        continue;
+                    }
+                    double t = this.scratch.getTime();
+                    if (t < bestTime || (t == bestTime && cell < best)) {
+                        best = cell;
+                        bestTime = t;
+                        bestNormalX = this.scratch.getNormalX();
+                        bestNormalY = this.scratch.getNormalY();
+                    }
+                }
+            }
+            // A hit at time t lies around the cell the center is in at t, and that cell was walked already.
+            // A hit exactly on the border may tie with a brick of the next cell, so that one is walked too.
+            double tExit = Math.min(tMaxX, tMaxY);
+            if (bestTime < tExit || tExit > tEnd) {
+                break;
+            }
+            if (tMaxX < tMaxY) {
+                col += stepCol;
+                tMaxX += tDeltaX;
+            } else {
+                row += stepRow;
+                tMaxY += tDeltaY;
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+        out.set(bestTime, bestNormalX, bestNormalY);
+        return true;
+    }
+
+    /**
+     * Tests the motion against a single brick, filling the scratch hit.
+     *
+     * @param col    the brick's column.
+     * @param row    the brick's row.
+     * @param x0     x of the start.
+     * @param y0     y of the start.
+     * @param dx     x extent of the motion.
+     * @param dy     y extent of the motion.
+     * @param radius the circle radius, or 0 for a segment.
+     * @return true if the brick is hit.
+     */
+    private boolean intersectBrick(int col, int row, double x0, double y0, double dx, double dy, double radius) {
+        double minX = this.x + col * this.pitchX;
+        double minY = this.y + row * this.pitchY;
+        double maxX = minX + this.brickWidth;
+        double maxY = minY + this.brickHeight;
+        if (radius <= 0) {
+            return Rectangle.intersectSegment(x0, y0, dx, dy, minX, minY, maxX, maxY, this.scratch);
+        }
+        return Rectangle.intersectSweptCircle(x0, y0, dx, dy, radius, minX, minY, maxX, maxY, this.scratch);
+    }
+
+    /**
+     * Finds the remaining brick closest to a point.
+     *
+     * @param px          x of the point.
+     * @param py          y of the point.
+     * @param maxDistance how far from the point the brick may be.
+     * @return the index of the brick's cell, or -1 if no brick is close enough.
+     */
+    private int nearestBrick(double px, double py, double maxDistance) {
+        int col = (int) Math.floor((px - this.x) / this.pitchX);
+        int row = (int) Math.floor((py - this.y) / this.pitchY);
+        int ringX = (int) Math.ceil(maxDistance / this.pitchX);
+        int ringY = (int) Math.ceil(maxDistance / this.pitchY);
+        int nearest = -1;
+        double nearestDistance = maxDistance * maxDistance;
+        for (int r = Math.max(0, row - ringY); r <= Math.min(this.rows - 1, row + ringY); r++) {
+            for (int c = Math.max(0, col - ringX); c <= Math.min(this.cols - 1, col + ringX); c++) {
+                int cell = r * this.cols + c;
+                if (!isAlive(cell)) {
+                    continue;
+                }
+                double minX = this.x + c * this.pitchX;
+                double minY = this.y + r * this.pitchY;
+                double offX = px - Math.max(minX, Math.min(px, minX + this.brickWidth));
+                double offY = py - Math.max(minY, Math.min(py, minY + this.brickHeight));
+                double distance = offX * offX + offY * offY;
+                if (distance < nearestDistance || (distance == nearestDistance && nearest < 0)) {
+                    nearest = cell;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Handles a collision known only by its point: finds the brick and flips the velocity
+     * on the axis of the edge that was hit.
+     *
+     * @param hitter          the ball that hit the field.
+     * @param collisionPoint  the collision location.
+     * @param currentVelocity the velocity before collision.
+     * @return the updated velocity.
+     */
+    @Override
+    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
+        double px = collisionPoint.getX();
+        double py = collisionPoint.getY();
+        int cell = nearestBrick(px, py, EDGE_TOLERANCE);
+        if (cell < 0) {
+            return currentVelocity;
+        }
+        double left = this.x + (cell % this.cols) * this.pitchX;
+        double top = this.y + (cell / this.cols) * this.pitchY;
+        double dx = currentVelocity.getDx();
+        double dy = currentVelocity.getDy();
+        if (Math.abs(px - left) < EDGE_TOLERANCE || Math.abs(px - left - this.brickWidth) < EDGE_TOLERANCE) {
+            dx = -dx;
+        }
+        if (Math.abs(py - top) < EDGE_TOLERANCE || Math.abs(py - top - this.brickHeight) < EDGE_TOLERANCE) {
+            dy = -dy;
+        }
+        onHit(hitter, cell);
+        return new Velocity(dx, dy);
+    }
+
+    /**
+     * Handles a collision whose surface normal is known: finds the brick just inside the contact point,
+     * reflects the velocity off the face that was hit and notifies listeners if appropriate.
+     *
+     * @param hitter          the ball that hit the field.
+     * @param collision       the details of the collision.
+     * @param currentVelocity the velocity before collision.
+     * @return the updated velocity.
+     */
+    @Override
+    public Velocity hit(Ball hitter, CollisionInfo collision, Velocity currentVelocity) {
+        if (!collision.hasNormal()) {
+            return hit(hitter, collision.collisionPoint(), currentVelocity);
+        }
+        onNormalHit(hitter, collision);
+        return currentVelocity.reflect(collision.normalX(), collision.normalY());
+    }
+
+    /**
+     * Same as hit(Ball, CollisionInfo, Velocity), reflecting the velocity in place.
+     *
+     * @param hitter    the ball that hit the field.
+     * @param collision the details of the collision.
+     * @param velocity  the velocity before collision, set to the velocity after it.
+     */
+    @Override
+    public void hit(Ball hitter, CollisionInfo collision, Vector2 velocity) {
+        if (!collision.hasNormal()) {
+            velocity.set(hit(hitter, collision.collisionPoint(), velocity.toVelocity()));
+            return;
+        }
+        onNormalHit(hitter, collision);
+        velocity.reflect(collision.normalX(), collision.normalY());
+    }
+
+    /**
+     * Finds the brick behind a collision with a known normal and notifies listeners if appropriate.
+     *
+     * @param hitter    the ball that hit the field.
+     * @param collision the details of the collision.
+     */
+    private void onNormalHit(Ball hitter, CollisionInfo collision) {
+        // A point just inside the surface lies on the brick that was hit; a ball that started out overlapping
+        // bricks may touch the surface away from that point, so the closest brick within its radius is taken.
+        int cell = nearestBrick(collision.collisionX() - collision.normalX() * PROBE_DEPTH,
+                collision.collisionY() - collision.normalY() * PROBE_DEPTH, hitter.getSize() + PROBE_DEPTH);
+        if (cell >= 0) {
+            onHit(hitter, cell);
+        }
+    }
+
+    /**
+     * Notifies listeners and recolors the ball after a brick was hit.
+     *
+     * @param hitter the ball that hit the brick.
+     * @param cell   the index of the brick's cell.
+     */
+    private void onHit(Ball hitter, int cell) {
+        Color color = getColor(cell);
+        if (!ballColorMatch(cell, hitter)) {
+            // Listeners may add or remove listeners, so the loop runs over a copy, remade only after a change.
+            if (this.listenerSnapshot == null) {
+                this.listenerSnapshot = this.hitListeners.toArray(new FieldHitListener[0]);
+            }
+            for (FieldHitListener hl : this.listenerSnapshot) {
+                hl.brickHit(this, cell, hitter);
+            }
+        }
+        hitter.setColor(color);
+    }
+
+    /**
+     * Draws every remaining brick on the provided surface.
+     *
+     * @param d the drawing surface.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        int width = (int) this.brickWidth;
+        int height = (int) this.brickHeight;
+        for (int word = 0; word < this.alive.length; word++) {
+            long bits = this.alive[word];
+            while (bits != 0) {
+                int cell = word * 64 + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int bx = (int) (this.x + (cell % this.cols) * this.pitchX);
+                int by = (int) (this.y + (cell / this.cols) * this.pitchY);
+                d.setColor(getColor(cell));
+                d.fillRectangle(bx, by, width, height);
+                d.setColor(Color.BLACK);
+                d.drawRectangle(bx, by, width, height);
+            }
+        }
+    }
+
+    /**
+     * The field does not change over time.
+     */
+    @Override
+    public void timePassed() {
+        // No action needed
+    }
+
+    /**
+     * The field never changes over time.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean isPassive() {
+        return true;
+    }
+
+    /**
+     * Marks the whole field.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addBounds(DirtyRegions regions) {
+        regions.add((int) this.x, (int) this.y,
+                (int) this.bounds.getWidth() + 2, (int) this.bounds.getHeight() + 2);
+    }
+
+    /**
+     * Marks the cells whose bricks were placed or removed since the previous frame.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addDamage(DirtyRegions regions) {
+        int width = (int) this.brickWidth + 1;
+        int height = (int) this.brickHeight + 1;
+        for (int word = 0; word < this.changed.length; word++) {
+            long bits = this.changed[word];
+            this.changed[word] = 0;
+            while (bits != 0) {
+                int cell = word * 64 + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                regions.add((int) (this.x + (cell % this.cols) * this.pitchX),
+                        (int) (this.y + (cell / this.cols) * this.pitchY), width, height);
+            }
+        }
+    }
+
+    /**
+     * Adds this field to the given game as both a Sprite and Collidable.
+     *
+     * @param g the game to add to.
+     */
+    public void addToGame(GameLevel g) {
+        g.addSprite(this);
+        g.addCollidable(this);
+    }
+
+    /**
+     * Removes this field from the given game.
+     *
+     * @param g the game to remove from.
+     */
+    public void removeFromGame(GameLevel g) {
+        g.removeCollidable(this);
+        g.removeSprite(this);
+    }
+
+    /**
+     * Registers a new listener to brick hits.
+     *
+     * @param hl the listener to add.
+     */
+    public void addHitListener(FieldHitListener hl) {
+        this.hitListeners.add(hl);
+        this.listenerSnapshot = null;
+    }
+
+    /**
+     * Removes a listener from brick hit notifications.
+     *
+     * @param hl the listener to remove.
+     */
+    public void removeHitListener(FieldHitListener hl) {
+        this.hitListeners.remove(hl);
+        this.listenerSnapshot = null;
+    }
+}
@@ -0,0 +1,17 @@
+package blocks;
+
+import sprites.Ball;
+
+/**
+ * FieldHitListener is notified whenever a brick of a BlockField is hit.
+ */
+public interface FieldHitListener {
+    /**
+     * This method is called whenever a brick of the field is hit.
+     *
+     * @param field  the field holding the brick.
+     * @param cell   the index of the brick's cell in the field.
+     * @param hitter the ball that hit the brick.
+     */
+    void brickHit(BlockField field, int cell, Ball hitter);
+}
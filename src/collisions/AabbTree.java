@@ -0,0 +1,460 @@
+package collisions;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An AabbTree is a dynamic bounding-volume hierarchy over collidable bounds.
+ * Every leaf stores a "fat" box, enlarged by a margin around the real bounds, so an object
+ * that moves a little each frame is re-inserted only once it leaves its fat box.
+ * The tree is kept height-balanced with rotations, and segment queries skip every
+ * subtree whose box the segment misses.
+ * Nodes live in parallel arrays and are addressed by index; freed nodes are recycled.
+ */
+class AabbTree implements BroadPhase {
+    /** Default enlargement of leaf boxes, in pixels on every side. */
+    static final double DEFAULT_FAT_MARGIN = 10;
+
+    private static final int NULL = -1;
+    private static final double SEGMENT_SLACK = 0.001;
+
+    private final double fatMargin;
+
+    private double[] minX;
+    private double[] minY;
+    private double[] maxX;
+    private double[] maxY;
+    private int[] parent;
+    private int[] child1;
+    private int[] child2;
+    private int[] height;
+    private CollidableProxy[] proxy;
+
+    private int root;
+    private int freeList;
+    private int[] stack;
+
+    /**
+     * Constructs an empty tree with the default fat margin.
+     */
+    AabbTree() {
+        this(DEFAULT_FAT_MARGIN);
+    }
+
+    /**
+     * Constructs an empty tree.
+     *
+     * @param fatMargin how far a leaf box extends beyond the real bounds.
+     */
+    AabbTree(double fatMargin) {
+        this.fatMargin = fatMargin;
+        this.root = NULL;
+        this.stack = new int[64];
+        allocateArrays(16);
+    }
+
+    @Override
+    public void insert(CollidableProxy p) {
+        int leaf = allocateNode();
+        this.minX[leaf] = p.minX() - this.fatMargin;
+        this.minY[leaf] = p.minY() - this.fatMargin;
+        this.maxX[leaf] = p.maxX() + this.fatMargin;
+        this.maxY[leaf] = p.maxY() + this.fatMargin;
+        this.height[leaf] = 0;
+        this.proxy[leaf] = p;
+        p.setTreeLeaf(leaf);
+        insertLeaf(leaf);
+    }
+
+    @Override
+    public void remove(CollidableProxy p) {
+        int leaf = p.treeLeaf();
+        if (leaf == NULL) {
+            return;
+        }
+        removeLeaf(leaf);
+        freeNode(leaf);
+        p.setTreeLeaf(NULL);
+    }
+
+    /**
+     * Re-inserts the proxy only if its refreshed bounds left the fat box of its leaf.
+     *
+     * @param p the proxy that moved.
+     */
+    @Override
+    public void update(CollidableProxy p) {
+        int leaf = p.treeLeaf();
+        if (leaf == NULL) {
+            insert(p);
+            return;
+        }
+        if (this.minX[leaf] <= p.minX() && this.minY[leaf] <= p.minY()
+                && p.maxX() <= this.maxX[leaf] && p.maxY() <= this.maxY[leaf]) {
+            return;
+        }
+        removeLeaf(leaf);
+        this.minX[leaf] = p.minX() - this.fatMargin;
+        this.minY[leaf] = p.minY() - this.fatMargin;
+        this.maxX[leaf] = p.maxX() + this.fatMargin;
+        this.maxY[leaf] = p.maxY() + this.fatMargin;
+        insertLeaf(leaf);
+    }
+
+    @Override
+    public void query(double x0, double y0, double x1, double y1, double radius, List<CollidableProxy> out) {
+        if (this.root == NULL) {
+            return;
+        }
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int top = 0;
+        this.stack[top++] = this.root;
+        while (top > 0) {
+            int node = this.stack[--top];
+            if (!segmentTouchesBox(node, x0, y0, dx, dy, radius)) {
+                continue;
+            }
+            if (this.child1[node] == NULL) {
+                out.add(this.proxy[node]);
+                continue;
+            }
+            if (top + 2 > this.stack.length) {
+                this.stack = Arrays.copyOf(this.stack, this.stack.length * 2);
+            }
+            this.stack[top++] = this.child1[node];
+            this.stack[top++] = this.child2[node];
+        }
+    }
+
+    /**
+     * Slab test of the segment start + t * (dx, dy), t in [0, 1], against a node box
+     * grown by the given radius.
+     *
+     * @param node   the node whose box is tested.
+     * @param x0     x of the segment start.
+     * @param y0     y of the segment start.
+     * @param dx     x extent of the segment.
+     * @param dy     y extent of the segment.
+     * @param radius how much to grow the box on every side.
+     * @return true if the segment touches the (slightly enlarged) box.
+     */
+    private boolean segmentTouchesBox(int node, double x0, double y0, double dx, double dy, double radius) {
+        double slack = radius + SEGMENT_SLACK;
+        double tMin = 0;
+        double tMax = 1;
+        double lo = this.minX[node] - slack;
+        double hi = this.maxX[node] + slack;
+        if (dx == 0) {
+            if (x0 < lo || x0 > hi) {
+                return false;
+            }
+        } else {
+            double t1 = (lo - x0) / dx;
+            double t2 = (hi - x0) / dx;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        lo = this.minY[node] - slack;
+        hi = this.maxY[node] + slack;
+        if (dy == 0) {
+            if (y0 < lo || y0 > hi) {
+                return false;
+            }
+        } else {
+            double t1 = (lo - y0) / dy;
+            double t2 = (hi - y0) / dy;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        return tMin <= tMax;
+    }
+
+    /**
+     * Hangs a detached leaf next to the sibling that grows the tree's total perimeter the least.
+     *
+     * @param leaf the leaf to insert.
+     */
+    private void insertLeaf(int leaf) {
+        if (this.root == NULL) {
+            this.root = leaf;
+            this.parent[leaf] = NULL;
+            return;
+        }
+
+        int index = this.root;
+        while (this.child1[index] != NULL) {
+            int c1 = this.child1[index];
+            int c2 = this.child2[index];
+            double perimeter = perimeter(index);
+            double combined = combinedPerimeter(index, leaf);
+
+            // Cost of making a new parent for this node and the new leaf.
+            double cost = 2 * combined;
+            // Minimum cost of pushing the leaf further down the tree.
+            double inheritance = 2 * (combined - perimeter);
+            double cost1 = descendCost(c1, leaf) + inheritance;
+            double cost2 = descendCost(c2, leaf) + inheritance;
+
+            if (cost < cost1 && cost < cost2) {
+                break;
+            }
+            index = cost1 < cost2 ? c1 : c2;
+        }
+
+        int sibling = index;
+        int oldParent = this.parent[sibling];
+        int newParent = allocateNode();
+        this.parent[newParent] = oldParent;
+        this.proxy[newParent] = null;
+        setUnion(newParent, leaf, sibling);
+        this.height[newParent] = this.height[sibling] + 1;
+        this.child1[newParent] = sibling;
+        this.child2[newParent] = leaf;
+        this.parent[sibling] = newParent;
+        this.parent[leaf] = newParent;
+
+        if (oldParent == NULL) {
+            this.root = newParent;
+        } else if (this.child1[oldParent] == sibling) {
+            this.child1[oldParent] = newParent;
+        } else {
+            this.child2[oldParent] = newParent;
+        }
+
+        refitFrom(this.parent[leaf]);
+    }
+
+    /**
+     * Detaches a leaf from the tree, collapsing its parent.
+     *
+     * @param leaf the leaf to remove.
+     */
+    private void removeLeaf(int leaf) {
+        if (leaf == this.root) {
+            this.root = NULL;
+            return;
+        }
+
+        int p = this.parent[leaf];
+        int grandParent = this.parent[p];
+        int sibling = this.child1[p] == leaf ? this.child2[p] : this.child1[p];
+
+        if (grandParent == NULL) {
+            this.root = sibling;
+            this.parent[sibling] = NULL;
+            freeNode(p);
+            return;
+        }
+
+        if (this.child1[grandParent] == p) {
+            this.child1[grandParent] = sibling;
+        } else {
+            this.child2[grandParent] = sibling;
+        }
+        this.parent[sibling] = grandParent;
+        freeNode(p);
+        refitFrom(grandParent);
+    }
+
+    /**
+     * Walks up from a node, rebalancing and refitting boxes and heights.
+     *
+     * @param start the first node to fix.
+     */
+    private void refitFrom(int start) {
+        int index = start;
+        while (index != NULL) {
+            index = balance(index);
+            int c1 = this.child1[index];
+            int c2 = this.child2[index];
+            this.height[index] = 1 + Math.max(this.height[c1], this.height[c2]);
+            setUnion(index, c1, c2);
+            index = this.parent[index];
+        }
+    }
+
+    /**
+     * Performs a left or right rotation if the node's subtrees differ in height by more than one.
+     *
+     * @param a the node to balance.
+     * @return the node now sitting where a was.
+     */
+    private int balance(int a) {
+        if (this.child1[a] == NULL || this.height[a] < 2) {
+            return a;
+        }
+        int b = this.child1[a];
+        int c = this.child2[a];
+        int diff = this.height[c] - this.height[b];
+        if (diff > 1) {
+            return rotateUp(a, c, b);
+        }
+        if (diff < -1) {
+            return rotateUp(a, b, c);
+        }
+        return a;
+    }
+
+    /**
+     * Lifts the taller child of a into a's place.
+     *
+     * @param a       the unbalanced node.
+     * @param tall    the taller child of a, which takes a's place.
+     * @param shorter the other child of a.
+     * @return the node now sitting where a was (tall).
+     */
+    private int rotateUp(int a, int tall, int shorter) {
+        int f = this.child1[tall];
+        int g = this.child2[tall];
+
+        this.child1[tall] = a;
+        this.parent[tall] = this.parent[a];
+        this.parent[a] = tall;
+
+        int oldParent = this.parent[tall];
+        if (oldParent == NULL) {
+            this.root = tall;
+        } else if (this.child1[oldParent] == a) {
+            this.child1[oldParent] = tall;
+        } else {
+            this.child2[oldParent] = tall;
+        }
+
+        // Keep the taller grandchild under tall, hand the shorter one down to a.
+        int keep = this.height[f] > this.height[g] ? f : g;
+        int give = keep == f ? g : f;
+        this.child2[tall] = keep;
+        if (this.child1[a] == tall) {
+            this.child1[a] = give;
+        } else {
+            this.child2[a] = give;
+        }
+        this.parent[give] = a;
+
+        setUnion(a, shorter, give);
+        this.height[a] = 1 + Math.max(this.height[shorter], this.height[give]);
+        setUnion(tall, a, keep);
+        this.height[tall] = 1 + Math.max(this.height[a], this.height[keep]);
+        return tall;
+    }
+
+    /**
+     * @param child a candidate sibling.
+     * @param leaf  the leaf being inserted.
+     * @return the perimeter growth of descending into the child.
+     */
+    private double descendCost(int child, int leaf) {
+        double combined = combinedPerimeter(child, leaf);
+        if (this.child1[child] == NULL) {
+            return combined;
+        }
+        return combined - perimeter(child);
+    }
+
+    /**
+     * @param node a node.
+     * @return the perimeter of the node's box.
+     */
+    private double perimeter(int node) {
+        return 2 * ((this.maxX[node] - this.minX[node]) + (this.maxY[node] - this.minY[node]));
+    }
+
+    /**
+     * @param a a node.
+     * @param b another node.
+     * @return the perimeter of the box enclosing both nodes.
+     */
+    private double combinedPerimeter(int a, int b) {
+        double w = Math.max(this.maxX[a], this.maxX[b]) - Math.min(this.minX[a], this.minX[b]);
+        double h = Math.max(this.maxY[a], this.maxY[b]) - Math.min(this.minY[a], this.minY[b]);
+        return 2 * (w + h);
+    }
+
+    /**
+     * Sets a node's box to the union of two other nodes' boxes.
+     *
+     * @param target the node to update.
+     * @param a      the first node.
+     * @param b      the second node.
+     */
+    private void setUnion(int target, int a, int b) {
+        this.minX[target] = Math.min(this.minX[a], this.minX[b]);
+        this.minY[target] = Math.min(this.minY[a], this.minY[b]);
+        this.maxX[target] = Math.max(this.maxX[a], this.maxX[b]);
+        this.maxY[target] = Math.max(this.maxY[a], this.maxY[b]);
+    }
+
+    /**
+     * @return the index of a fresh node, taken from the free list or by growing the arrays.
+     */
+    private int allocateNode() {
+        if (this.freeList == NULL) {
+            int oldCapacity = this.parent.length;
+            growArrays(oldCapacity * 2);
+            for (int i = oldCapacity; i < this.parent.length - 1; i++) {
+                this.parent[i] = i + 1;
+            }
+            this.parent[this.parent.length - 1] = NULL;
+            this.freeList = oldCapacity;
+        }
+        int node = this.freeList;
+        this.freeList = this.parent[node];
+        this.parent[node] = NULL;
+        this.child1[node] = NULL;
+        this.child2[node] = NULL;
+        this.height[node] = 0;
+        return node;
+    }
+
+    /**
+     * Returns a node to the free list.
+     *
+     * @param node the node to free.
+     */
+    private void freeNode(int node) {
+        this.proxy[node] = null;
+        this.height[node] = -1;
+        this.parent[node] = this.freeList;
+        this.freeList = node;
+    }
+
+    /**
+     * Allocates the node arrays and threads all nodes onto the free list.
+     *
+     * @param capacity the initial number of nodes.
+     */
+    private void allocateArrays(int capacity) {
+        this.minX = new double[capacity];
+        this.minY = new double[capacity];
+        this.maxX = new double[capacity];
+        this.maxY = new double[capacity];
+        this.parent = new int[capacity];
+        this.child1 = new int[capacity];
+        this.child2 = new int[capacity];
+        this.height = new int[capacity];
+        this.proxy = new CollidableProxy[capacity];
+        for (int i = 0; i < capacity - 1; i++) {
+            this.parent[i] = i + 1;
+        }
+        this.parent[capacity - 1] = NULL;
+        this.freeList = 0;
+    }
+
+    /**
+     * Grows every node array to the given capacity.
+     *
+     * @param capacity the new number of nodes.
+     */
+    private void growArrays(int capacity) {
+        this.minX = Arrays.copyOf(this.minX, capacity);
+        this.minY = Arrays.copyOf(this.minY, capacity);
+        this.maxX = Arrays.copyOf(this.maxX, capacity);
+        this.maxY = Arrays.copyOf(this.maxY, capacity);
+        this.parent = Arrays.copyOf(this.parent, capacity);
+        this.child1 = Arrays.copyOf(this.child1, capacity);
+        this.child2 = Arrays.copyOf(this.child2, capacity);
+        this.height = Arrays.copyOf(this.height, capacity);
+        this.proxy = Arrays.copyOf(this.proxy, capacity);
+    }
+}
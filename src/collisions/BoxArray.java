@@ -0,0 +1,193 @@
+package collisions;
+
+import geometry.Rectangle;
+import geometry.SegmentHit;
+
+import java.util.List;
+
+/**
+ * A BoxArray is a static index that keeps the bounds of every collidable in structure-of-arrays form
+ * (one double[] per edge) and scans all of them on each query, with no spatial structure at all.
+ * The scan is split in two passes: a branch-free slab test over the flat arrays that rejects almost
+ * every box, and the exact narrow-phase test on the few boxes that survive it.
+ * The first pass runs on the Vector API (see VectorSlab) when the jdk.incubator.vector module is present,
+ * so several boxes are tested per instruction. Without the module it falls back to a plain counted loop
+ * of the same multiplies, mins and maxes, which the JIT may or may not vectorize by itself.
+ * This suits layouts that do not fit a grid; it needs no tuning and has no worst case per cell.
+ */
+class BoxArray implements StaticIndex {
+    /** Extra room around every box in the first pass, so hits found within EPSILON are never rejected. */
+    private static final double MARGIN = 0.001;
+    /**
+     * Whether the first pass uses the Vector API: when the JVM was started with
+     * "--add-modules jdk.incubator.vector", unless -Dboxscan.scalar=true asks for the plain loop.
+     */
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !Boolean.getBoolean("boxscan.scalar");
+
+    private final CollidableProxy[] proxies;
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    private final double[] slack;
+    private final SegmentHit scratch;
+    private int live;
+
+    /**
+     * Packs the given proxies into flat arrays.
+     *
+     * @param statics the proxies to index, sorted by insertion order.
+     */
+    BoxArray(List<CollidableProxy> statics) {
+        int count = statics.size();
+        this.proxies = statics.toArray(new CollidableProxy[count]);
+        this.minX = new double[count];
+        this.minY = new double[count];
+        this.maxX = new double[count];
+        this.maxY = new double[count];
+        this.slack = new double[count];
+        this.scratch = new SegmentHit();
+        this.live = count;
+        for (int i = 0; i < count; i++) {
+            CollidableProxy p = this.proxies[i];
+            p.setStaticSlot(i);
+            this.minX[i] = p.minX();
+            this.minY[i] = p.minY();
+            this.maxX[i] = p.maxX();
+            this.maxY[i] = p.maxY();
+        }
+    }
+
+    /**
+     * Drops a proxy's entry by turning its horizontal bounds into NaN, which makes the first pass
+     * reject it without an extra check.
+     *
+     * @param p the proxy to drop; it must belong to this array.
+     */
+    @Override
+    public void remove(CollidableProxy p) {
+        int slot = p.staticSlot();
+        if (!Double.isNaN(this.minX[slot])) {
+            this.minX[slot] = Double.NaN;
+            this.maxX[slot] = Double.NaN;
+            this.live--;
+        }
+        p.setStaticSlot(-1);
+    }
+
+    /**
+     * @return true when dropped entries outnumber live ones and the array is worth rebuilding.
+     */
+    @Override
+    public boolean isMostlyDead() {
+        return this.proxies.length - this.live > this.live;
+    }
+
+    /**
+     * Scans every box for the earliest hit.
+     * When several entries are hit at the same time, the one added first wins.
+     *
+     * @param x0     x of the start.
+     * @param y0     y of the start.
+     * @param dx     x extent of the motion.
+     * @param dy     y extent of the motion.
+     * @param radius the circle radius, or 0 for a segment.
+     * @param out    receives the time of impact and the normal of the hit.
+     * @return the proxy hit first, or null if nothing is hit.
+     */
+    @Override
+    public CollidableProxy closest(double x0, double y0, double dx, double dy, double radius, SegmentHit out) {
+        slabPass(x0, y0, dx, dy, radius + MARGIN);
+
+        int best = -1;
+        double bestTime = Double.POSITIVE_INFINITY;
+        double bestNormalX = 0;
+        double bestNormalY = 0;
+        for (int i = 0; i < this.slack.length; i++) {
+            // Negative or NaN slack: the grown box is missed, so the exact shape is missed too.
+            if (!(this.slack[i] >= 0)) {
+                continue;
+            }
+            if (!intersect(i, x0, y0, dx, dy, radius)) {
+                continue;
+            }
+            double t = this.scratch.getTime();
+            if (t < bestTime) {
+                best = i;
+                bestTime = t;
+                bestNormalX = this.scratch.getNormalX();
+                bestNormalY = this.scratch.getNormalY();
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        out.set(bestTime, bestNormalX, bestNormalY);
+        return this.proxies[best];
+    }
+
+    /**
+     * First pass: slab test of the segment against every box grown by the given reach.
+     * Stores, per box, how far the segment's overlap with the box is from being empty;
+     * it is non-negative exactly when the segment touches the grown box.
+     * The direction of the motion is the same for every box, so which edge is entered first on each axis
+     * is decided once, outside the loop. What is left in the loop body is one max and three mins,
+     * with no branches, so it maps directly onto vector lanes.
+     *
+     * @param x0    x of the start.
+     * @param y0    y of the start.
+     * @param dx    x extent of the motion.
+     * @param dy    y extent of the motion.
+     * @param reach how much to grow every box on each side.
+     */
+    private void slabPass(double x0, double y0, double dx, double dy, double reach) {
+        // With no motion along an axis, a huge finite factor keeps the signs right
+        // where 1 / 0 would turn a start exactly on an edge into 0 * infinity = NaN.
+        double invDx = dx == 0 ? Double.MAX_VALUE : 1 / dx;
+        double invDy = dy == 0 ? Double.MAX_VALUE : 1 / dy;
+        double[] nearX = dx >= 0 ? this.minX : this.maxX;
+        double[] farX = dx >= 0 ? this.maxX : this.minX;
+        double[] nearY = dy >= 0 ? this.minY : this.maxY;
+        double[] farY = dy >= 0 ? this.maxY : this.minY;
+        double nearOffsetX = (dx >= 0 ? -reach : reach) - x0;
+        double farOffsetX = (dx >= 0 ? reach : -reach) - x0;
+        double nearOffsetY = (dy >= 0 ? -reach : reach) - y0;
+        double farOffsetY = (dy >= 0 ? reach : -reach) - y0;
+        double[] out = this.slack;
+        if (VECTORIZED) {
+            VectorSlab.pass(nearX, farX, nearY, farY, nearOffsetX, farOffsetX, nearOffsetY, farOffsetY,
+                    invDx, invDy, out);
+            return;
+        }
+        for (int i = 0; i < out.length; i++) {
+            double enter = Math.max((nearX[i] + nearOffsetX) * invDx, (nearY[i] + nearOffsetY) * invDy);
+            double exit = Math.min((farX[i] + farOffsetX) * invDx, (farY[i] + farOffsetY) * invDy);
+            out[i] = Math.min(Math.min(exit - enter, exit), 1 - enter);
+        }
+    }
+
+    /**
+     * Exact narrow-phase test of one box, filling the scratch hit.
+     *
+     * @param i      the slot of the box.
+     * @param x0     x of the start.
+     * @param y0     y of the start.
+     * @param dx     x extent of the motion.
+     * @param dy     y extent of the motion.
+     * @param radius the circle radius, or 0 for a segment.
+     * @return true if the box (or the exact shape inside it) is hit.
+     */
+    private boolean intersect(int i, double x0, double y0, double dx, double dy, double radius) {
+        if (this.proxies[i].isShaped()) {
+            return ((ShapedCollidable) this.proxies[i].collidable())
+                    .intersect(x0, y0, dx, dy, radius, this.scratch);
+        }
+        if (radius <= 0) {
+            return Rectangle.intersectSegment(x0, y0, dx, dy,
+                    this.minX[i], this.minY[i], this.maxX[i], this.maxY[i], this.scratch);
+        }
+        return Rectangle.intersectSweptCircle(x0, y0, dx, dy, radius,
+                this.minX[i], this.minY[i], this.maxX[i], this.maxY[i], this.scratch);
+    }
+}
@@ -0,0 +1,44 @@
+package collisions;
+
+import java.util.List;
+
+/**
+ * A BroadPhase is a spatial index over collidable bounds. It only narrows down which
+ * collidables a trajectory may hit; the exact intersection test is left to the environment.
+ */
+interface BroadPhase {
+
+    /**
+     * Adds a proxy to the index, using its current bounds.
+     *
+     * @param p the proxy to add.
+     */
+    void insert(CollidableProxy p);
+
+    /**
+     * Removes a proxy from the index.
+     *
+     * @param p the proxy to remove.
+     */
+    void remove(CollidableProxy p);
+
+    /**
+     * Brings the index up to date after the proxy's bounds were refreshed.
+     *
+     * @param p the proxy that moved.
+     */
+    void update(CollidableProxy p);
+
+    /**
+     * Collects every proxy that the segment (x0, y0) - (x1, y1), thickened by the given radius, may touch.
+     * Each proxy is reported at most once, in no particular order.
+     *
+     * @param x0     x of the segment start.
+     * @param y0     y of the segment start.
+     * @param x1     x of the segment end.
+     * @param y1     y of the segment end.
+     * @param radius how far from the segment a proxy may be and still count; 0 for a plain segment.
+     * @param out    the list the candidates are appended to.
+     */
+    void query(double x0, double y0, double x1, double y1, double radius, List<CollidableProxy> out);
+}
@@ -0,0 +1,164 @@
+package collisions;
+
+/**
+ * A CellGrid divides the area [0, width] x [0, height] into square cells and knows how to walk
+ * the cells a segment passes through (a DDA traversal). Anything outside the covered area is
+ * clamped into the border cells. Subclasses decide what is stored per cell.
+ */
+abstract class CellGrid {
+    /** Extra room around every indexed rectangle, so hits found within EPSILON are never missed. */
+    protected static final double MARGIN = 0.001;
+
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+
+    /**
+     * Constructs a grid covering the area [0, width] x [0, height].
+     *
+     * @param width    the width of the covered area.
+     * @param height   the height of the covered area.
+     * @param cellSize the edge length of a single cell.
+     */
+    CellGrid(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+    }
+
+    /**
+     * Called for every cell reached by a walk. A cell may be visited more than once per walk.
+     *
+     * @param cell the index of the cell, row * columns + column.
+     */
+    protected abstract void visitCell(int cell);
+
+    /**
+     * @return the number of cells in the grid.
+     */
+    protected int cellCount() {
+        return this.cols * this.rows;
+    }
+
+    /**
+     * @return the number of columns in the grid.
+     */
+    protected int columns() {
+        return this.cols;
+    }
+
+    /**
+     * Walks the cells crossed by the segment (x0, y0) - (x1, y1),
+     * plus every cell within the given radius of them.
+     *
+     * @param x0     x of the segment start.
+     * @param y0     y of the segment start.
+     * @param x1     x of the segment end.
+     * @param y1     y of the segment end.
+     * @param radius how far from the segment a cell may be and still count; 0 for a plain segment.
+     */
+    protected void walk(double x0, double y0, double x1, double y1, double radius) {
+        int ring = (int) Math.ceil(radius / this.cellSize);
+        int col = cellOf(x0);
+        int row = cellOf(y0);
+        int endCol = cellOf(x1);
+        int endRow = cellOf(y1);
+
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int stepCol = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+
+        // Parametric distance along the segment to the next vertical / horizontal cell border.
+        double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : this.cellSize / Math.abs(dx);
+        double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : this.cellSize / Math.abs(dy);
+        double nextBorderX = (dx > 0 ? col + 1 : col) * this.cellSize;
+        double nextBorderY = (dy > 0 ? row + 1 : row) * this.cellSize;
+        double tMaxX = dx == 0 ? Double.POSITIVE_INFINITY : (nextBorderX - x0) / dx;
+        double tMaxY = dy == 0 ? Double.POSITIVE_INFINITY : (nextBorderY - y0) / dy;
+
+        int steps = Math.abs(endCol - col) + Math.abs(endRow - row);
+        visitAround(col, row, ring);
+        for (int i = 0; i < steps; i++) {
+            if (tMaxX < tMaxY) {
+                col += stepCol;
+                tMaxX += tDeltaX;
+            } else {
+                row += stepRow;
+                tMaxY += tDeltaY;
+            }
+            visitAround(col, row, ring);
+        }
+    }
+
+    /**
+     * Visits a (possibly out of range) cell and the cells around it.
+     *
+     * @param col  the column.
+     * @param row  the row.
+     * @param ring how many neighbouring cells to include on every side.
+     */
+    private void visitAround(int col, int row, int ring) {
+        for (int r = clampRow(row - ring); r <= clampRow(row + ring); r++) {
+            for (int c = clampCol(col - ring); c <= clampCol(col + ring); c++) {
+                visitCell(r * this.cols + c);
+            }
+        }
+    }
+
+    /**
+     * @param x left edge of a box.
+     * @return the first column the box overlaps, clamped into the grid.
+     */
+    protected int firstColOf(double x) {
+        return clampCol(cellOf(x - MARGIN));
+    }
+
+    /**
+     * @param x right edge of a box.
+     * @return the last column the box overlaps, clamped into the grid.
+     */
+    protected int lastColOf(double x) {
+        return clampCol(cellOf(x + MARGIN));
+    }
+
+    /**
+     * @param y top edge of a box.
+     * @return the first row the box overlaps, clamped into the grid.
+     */
+    protected int firstRowOf(double y) {
+        return clampRow(cellOf(y - MARGIN));
+    }
+
+    /**
+     * @param y bottom edge of a box.
+     * @return the last row the box overlaps, clamped into the grid.
+     */
+    protected int lastRowOf(double y) {
+        return clampRow(cellOf(y + MARGIN));
+    }
+
+    /**
+     * @param coordinate an x or y coordinate.
+     * @return the unclamped cell index containing the coordinate.
+     */
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / this.cellSize);
+    }
+
+    /**
+     * @param col a column index.
+     * @return the column clamped into the grid.
+     */
+    private int clampCol(int col) {
+        return Math.min(this.cols - 1, Math.max(0, col));
+    }
+
+    /**
+     * @param row a row index.
+     * @return the row clamped into the grid.
+     */
+    private int clampRow(int row) {
+        return Math.min(this.rows - 1, Math.max(0, row));
+    }
+}
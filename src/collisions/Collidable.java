@@ -1,28 +1,56 @@
-package collisions;
-import geometry.Rectangle;
-import geometry.Point;
-import geometry.Velocity;
-import sprites.Ball;
-
-/**
- * The Collidable interface is used for objects that can be collided with.
- */
-public interface Collidable {
-
-    /**
-     * Returns the shape of the object that can be collided with.
-     *
-     * @return the rectangle representing the collision area.
-     */
-    Rectangle getCollisionRectangle();
-
-    /**
-     * Notifies the object that a collision occurred at a certain point with a given velocity.
-     *
-     * @param hitter the ball that hit the object.
-     * @param collisionPoint the point of collision.
-     * @param currentVelocity the current velocity before collision.
-     * @return the new velocity after the collision.
-     */
-    Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity);
-}
+package collisions;
+import geometry.Rectangle;
+import geometry.Point;
+import geometry.Vector2;
+import geometry.Velocity;
+import sprites.Ball;
+
+/**
+ * The Collidable interface is used for objects that can be collided with.
+ */
+public interface Collidable {
+
+    /**
+     * Returns the shape of the object that can be collided with.
+     *
+     * @return the rectangle representing the collision area.
+     */
+    Rectangle getCollisionRectangle();
+
+    /**
+     * Notifies the object that a collision occurred at a certain point with a given velocity.
+     *
+     * @param hitter the ball that hit the object.
+     * @param collisionPoint the point of collision.
+     * @param currentVelocity the current velocity before collision.
+     * @return the new velocity after the collision.
+     */
+    Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity);
+
+    /**
+     * Notifies the object that a collision described by a CollisionInfo occurred.
+     * Objects that can use the time of impact or the surface normal override this;
+     * by default only the collision point is passed on.
+     *
+     * @param hitter the ball that hit the object.
+     * @param collision the details of the collision.
+     * @param currentVelocity the current velocity before collision.
+     * @return the new velocity after the collision.
+     */
+    default Velocity hit(Ball hitter, CollisionInfo collision, Velocity currentVelocity) {
+        return hit(hitter, collision.collisionPoint(), currentVelocity);
+    }
+
+    /**
+     * Notifies the object that a collision occurred, and has it turn the ball's velocity in place.
+     * This is what the ball uses, so a collision allocates nothing; objects override it to update
+     * the vector directly. By default the velocity goes through hit(Ball, CollisionInfo, Velocity).
+     *
+     * @param hitter the ball that hit the object.
+     * @param collision the details of the collision.
+     * @param velocity the velocity before the collision, set to the velocity after it.
+     */
+    default void hit(Ball hitter, CollisionInfo collision, Vector2 velocity) {
+        velocity.set(hit(hitter, collision, velocity.toVelocity()));
+    }
+}
@@ -0,0 +1,220 @@
+package collisions;
+
+import geometry.Rectangle;
+
+/**
+ * A CollidableProxy is the bookkeeping record the environment keeps for every collidable:
+ * the bounds it was indexed with, its insertion order and per-query scratch state.
+ */
+class CollidableProxy {
+    private final Collidable collidable;
+    private final long order;
+
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+
+    private int firstCol;
+    private int firstRow;
+    private int lastCol;
+    private int lastRow;
+
+    private int treeLeaf = -1;
+    private int staticSlot = -1;
+    private boolean dynamic;
+
+    private final boolean shaped;
+    private int queryStamp;
+    private boolean removed;
+
+    /**
+     * Constructs a proxy for the given collidable.
+     *
+     * @param collidable the collidable this proxy stands for.
+     * @param order      the insertion order, used to break ties between equally close hits.
+     */
+    CollidableProxy(Collidable collidable, long order) {
+        this.collidable = collidable;
+        this.order = order;
+        this.shaped = collidable instanceof ShapedCollidable;
+        this.refreshBounds();
+    }
+
+    /**
+     * Re-reads the bounds from the collidable's current collision rectangle.
+     */
+    void refreshBounds() {
+        Rectangle rect = this.collidable.getCollisionRectangle();
+        this.minX = rect.getMinX();
+        this.minY = rect.getMinY();
+        this.maxX = this.minX + rect.getWidth();
+        this.maxY = this.minY + rect.getHeight();
+    }
+
+    /**
+     * @return the collidable this proxy stands for.
+     */
+    Collidable collidable() {
+        return this.collidable;
+    }
+
+    /**
+     * @return true if the collidable has an exact shape that must be tested after its bounds.
+     */
+    boolean isShaped() {
+        return this.shaped;
+    }
+
+    /**
+     * @return the insertion order of the collidable.
+     */
+    long order() {
+        return this.order;
+    }
+
+    /**
+     * @return the left edge of the indexed bounds.
+     */
+    double minX() {
+        return this.minX;
+    }
+
+    /**
+     * @return the top edge of the indexed bounds.
+     */
+    double minY() {
+        return this.minY;
+    }
+
+    /**
+     * @return the right edge of the indexed bounds.
+     */
+    double maxX() {
+        return this.maxX;
+    }
+
+    /**
+     * @return the bottom edge of the indexed bounds.
+     */
+    double maxY() {
+        return this.maxY;
+    }
+
+    /**
+     * Remembers the range of grid cells this proxy was inserted into.
+     *
+     * @param col0 first column.
+     * @param row0 first row.
+     * @param col1 last column (inclusive).
+     * @param row1 last row (inclusive).
+     */
+    void setCellRange(int col0, int row0, int col1, int row1) {
+        this.firstCol = col0;
+        this.firstRow = row0;
+        this.lastCol = col1;
+        this.lastRow = row1;
+    }
+
+    /**
+     * @return first grid column the proxy occupies.
+     */
+    int firstCol() {
+        return this.firstCol;
+    }
+
+    /**
+     * @return first grid row the proxy occupies.
+     */
+    int firstRow() {
+        return this.firstRow;
+    }
+
+    /**
+     * @return last grid column the proxy occupies.
+     */
+    int lastCol() {
+        return this.lastCol;
+    }
+
+    /**
+     * @return last grid row the proxy occupies.
+     */
+    int lastRow() {
+        return this.lastRow;
+    }
+
+    /**
+     * Remembers the tree leaf holding this proxy.
+     *
+     * @param leaf the leaf node index, or -1 when the proxy is not in a tree.
+     */
+    void setTreeLeaf(int leaf) {
+        this.treeLeaf = leaf;
+    }
+
+    /**
+     * @return the tree leaf holding this proxy, or -1 when it is not in a tree.
+     */
+    int treeLeaf() {
+        return this.treeLeaf;
+    }
+
+    /**
+     * Remembers the static grid slot holding this proxy.
+     *
+     * @param slot the slot index, or -1 when the proxy is not in the static grid.
+     */
+    void setStaticSlot(int slot) {
+        this.staticSlot = slot;
+    }
+
+    /**
+     * @return the static grid slot holding this proxy, or -1 when it is not in the static grid.
+     */
+    int staticSlot() {
+        return this.staticSlot;
+    }
+
+    /**
+     * Marks the collidable as one that moves, so it is never packed into the static grid.
+     */
+    void markDynamic() {
+        this.dynamic = true;
+    }
+
+    /**
+     * @return true if the collidable moves and is kept in the dynamic index.
+     */
+    boolean isDynamic() {
+        return this.dynamic;
+    }
+
+    /**
+     * Marks the proxy as no longer part of the environment.
+     */
+    void markRemoved() {
+        this.removed = true;
+    }
+
+    /**
+     * @return true once the collidable was removed from the environment.
+     */
+    boolean isRemoved() {
+        return this.removed;
+    }
+
+    /**
+     * Marks the proxy as visited by a query.
+     *
+     * @param stamp the stamp of the running query.
+     * @return true if this is the first visit during that query.
+     */
+    boolean visit(int stamp) {
+        if (this.queryStamp == stamp) {
+            return false;
+        }
+        this.queryStamp = stamp;
+        return true;
+    }
+}
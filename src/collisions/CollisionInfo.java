@@ -1,38 +1,162 @@
-package collisions;
-import geometry.Point;
-/**
- * CollisionInfo holds the details about a collision — the point and the object involved.
- */
-public class CollisionInfo {
-    private Point collisionPoint;
-    private Collidable collisionObject;
-
-    /**
-     * Constructs a CollisionInfo with a collision point and a collidable object.
-     *
-     * @param collisionPoint the point where the collision occurred.
-     * @param collisionObject the object that was hit.
-     */
-    public CollisionInfo(Point collisionPoint, Collidable collisionObject) {
-        this.collisionPoint = collisionPoint;
-        this.collisionObject = collisionObject;
-    }
-
-    /**
-     * Returns the point at which the collision occurs.
-     *
-     * @return the collision point.
-     */
-    public Point collisionPoint() {
-        return collisionPoint;
-    }
-
-    /**
-     * Returns the collidable object involved in the collision.
-     *
-     * @return the object collided with.
-     */
-    public Collidable collisionObject() {
-        return collisionObject;
-    }
-}
+package collisions;
+import geometry.Point;
+/**
+ * CollisionInfo holds the details about a collision — the point and the object involved,
+ * and, when known, the time of impact along the trajectory and the normal of the surface hit.
+ * An info can be owned by a caller and refilled by every query (see GameEnvironment.findClosestCollision),
+ * so that the collision path allocates nothing; the collision point is then only created if it is asked for.
+ */
+public class CollisionInfo {
+    private double collisionX;
+    private double collisionY;
+    private Point collisionPoint;
+    private Collidable collisionObject;
+    private double collisionTime;
+    private double normalX;
+    private double normalY;
+
+    /**
+     * Constructs an empty CollisionInfo, to be filled by a query.
+     */
+    public CollisionInfo() {
+        this.collisionTime = Double.NaN;
+    }
+
+    /**
+     * Constructs a CollisionInfo with a collision point and a collidable object.
+     * The time of impact is unknown (NaN) and the normal is zero.
+     *
+     * @param collisionPoint the point where the collision occurred.
+     * @param collisionObject the object that was hit.
+     */
+    public CollisionInfo(Point collisionPoint, Collidable collisionObject) {
+        this(collisionPoint, collisionObject, Double.NaN, 0, 0);
+    }
+
+    /**
+     * Constructs a CollisionInfo with full contact details.
+     *
+     * @param collisionPoint the point where the collision occurred.
+     * @param collisionObject the object that was hit.
+     * @param collisionTime the parametric time of impact along the trajectory, in [0, 1].
+     * @param normalX x component of the unit normal of the surface hit.
+     * @param normalY y component of the unit normal of the surface hit.
+     */
+    public CollisionInfo(Point collisionPoint, Collidable collisionObject,
+                         double collisionTime, double normalX, double normalY) {
+        this.collisionPoint = collisionPoint;
+        if (collisionPoint != null) {
+            this.collisionX = collisionPoint.getX();
+            this.collisionY = collisionPoint.getY();
+        }
+        this.collisionObject = collisionObject;
+        this.collisionTime = collisionTime;
+        this.normalX = normalX;
+        this.normalY = normalY;
+    }
+
+    /**
+     * Refills the info with a new collision.
+     *
+     * @param x               x of the point where the collision occurred.
+     * @param y               y of the point where the collision occurred.
+     * @param collisionObject the object that was hit.
+     * @param collisionTime   the parametric time of impact along the trajectory, in [0, 1].
+     * @param normalX         x component of the unit normal of the surface hit.
+     * @param normalY         y component of the unit normal of the surface hit.
+     */
+    void set(double x, double y, Collidable collisionObject, double collisionTime, double normalX, double normalY) {
+        this.collisionX = x;
+        this.collisionY = y;
+        this.collisionPoint = null;
+        this.collisionObject = collisionObject;
+        this.collisionTime = collisionTime;
+        this.normalX = normalX;
+        this.normalY = normalY;
+    }
+
+    /**
+     * Copies another collision.
+     *
+     * @param other the collision to copy.
+     */
+    void set(CollisionInfo other) {
+        set(other.collisionX, other.collisionY, other.collisionObject, other.collisionTime,
+                other.normalX, other.normalY);
+    }
+
+    /**
+     * Returns the point at which the collision occurs.
+     *
+     * @return the collision point.
+     */
+    public Point collisionPoint() {
+        if (collisionPoint == null) {
+            collisionPoint = new Point(collisionX, collisionY);
+        }
+        return collisionPoint;
+    }
+
+    /**
+     * Returns the x of the collision point, without creating the point.
+     *
+     * @return the x of the collision point.
+     */
+    public double collisionX() {
+        return collisionX;
+    }
+
+    /**
+     * Returns the y of the collision point, without creating the point.
+     *
+     * @return the y of the collision point.
+     */
+    public double collisionY() {
+        return collisionY;
+    }
+
+    /**
+     * Returns the collidable object involved in the collision.
+     *
+     * @return the object collided with.
+     */
+    public Collidable collisionObject() {
+        return collisionObject;
+    }
+
+    /**
+     * Returns the parametric time of impact: 0 at the start of the trajectory, 1 at its end.
+     *
+     * @return the time of impact, or NaN if unknown.
+     */
+    public double collisionTime() {
+        return collisionTime;
+    }
+
+    /**
+     * Returns the x component of the unit normal of the surface that was hit.
+     *
+     * @return the normal's x component, or 0 if unknown.
+     */
+    public double normalX() {
+        return normalX;
+    }
+
+    /**
+     * Returns the y component of the unit normal of the surface that was hit.
+     *
+     * @return the normal's y component, or 0 if unknown.
+     */
+    public double normalY() {
+        return normalY;
+    }
+
+    /**
+     * Tells whether this collision carries a surface normal.
+     *
+     * @return true if the normal is known.
+     */
+    public boolean hasNormal() {
+        return normalX != 0 || normalY != 0;
+    }
+}
@@ -0,0 +1,385 @@
+package collisions;
+
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+import sprites.Ball;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The CollisionScheduler moves balls in an event-driven way instead of polling the environment every step.
+ * For each ball it computes the time of the next impact once, keeps the impacts in a priority queue,
+ * and moves balls in a straight line between impacts. Time is measured in steps (frames).
+ * A ball's predicted impact is recomputed only when the environment changes in a way that can affect it:
+ * when its target is removed, when something moves into its path, or when something is added.
+ * Balls also bounce off their frame, as they do when they move themselves. Forbidden areas and ball systems
+ * are not supported, so such balls are refused.
+ */
+public class CollisionScheduler implements EnvironmentListener {
+    /** Default look-ahead, in steps, of a single prediction. */
+    public static final double DEFAULT_HORIZON = 120;
+
+    private GameEnvironment environment;
+    private double horizon;
+    private double now;
+    private long nextSequence;
+    private PriorityQueue<Event> queue;
+    private Map<Ball, BallState> states;
+    private List<BallState> active;
+
+    /**
+     * Constructs a scheduler over the given environment, with the default look-ahead.
+     *
+     * @param environment the environment holding the collidables.
+     */
+    public CollisionScheduler(GameEnvironment environment) {
+        this(environment, DEFAULT_HORIZON);
+    }
+
+    /**
+     * Constructs a scheduler over the given environment.
+     *
+     * @param environment the environment holding the collidables.
+     * @param horizon     how many steps ahead a single prediction looks;
+     *                    a ball with no impact within the horizon is simply re-checked when it runs out.
+     */
+    public CollisionScheduler(GameEnvironment environment, double horizon) {
+        this.environment = environment;
+        this.horizon = horizon;
+        this.queue = new PriorityQueue<>();
+        this.states = new IdentityHashMap<>();
+        this.active = new ArrayList<>();
+        environment.addEnvironmentListener(this);
+    }
+
+    /**
+     * Starts moving a ball by events. The ball stops moving itself in timePassed.
+     *
+     * @param ball the ball to schedule; a standalone ball without a forbidden area.
+     * @throws IllegalArgumentException if the ball is in a ball system or has a forbidden area.
+     */
+    public void addBall(Ball ball) {
+        if (ball.getSystem() != null) {
+            throw new IllegalArgumentException("Balls in a ball system cannot be scheduled");
+        }
+        if (ball.hasForbiddenArea()) {
+            throw new IllegalArgumentException("Balls with a forbidden area cannot be scheduled");
+        }
+        if (this.states.containsKey(ball)) {
+            return;
+        }
+        BallState s = new BallState(ball, this.now);
+        this.states.put(ball, s);
+        this.active.add(s);
+        ball.setEventDriven(true);
+        predict(s);
+    }
+
+    /**
+     * Stops scheduling a ball. Its pending events are dropped, and the ball moves itself again.
+     *
+     * @param ball the ball to remove.
+     */
+    public void removeBall(Ball ball) {
+        BallState s = this.states.remove(ball);
+        if (s == null) {
+            return;
+        }
+        sync(s);
+        s.removed = true;
+        s.version++;
+        this.active.remove(s);
+        ball.setEventDriven(false);
+    }
+
+    /**
+     * Drops every ball and its pending events and sets the clock, for example when an earlier
+     * game state is restored. The balls move themselves again until they are added back.
+     *
+     * @param time the new current time, in steps.
+     */
+    public void restart(double time) {
+        for (int i = 0; i < this.active.size(); i++) {
+            BallState s = this.active.get(i);
+            s.removed = true;
+            s.version++;
+            s.ball.setEventDriven(false);
+        }
+        this.states.clear();
+        this.active.clear();
+        this.queue.clear();
+        this.now = time;
+    }
+
+    /**
+     * Returns the current simulation time.
+     *
+     * @return the time, in steps.
+     */
+    public double getTime() {
+        return this.now;
+    }
+
+    /**
+     * Returns the time of the earliest pending impact (or re-check).
+     *
+     * @return the time of the next event, or infinity if no ball is scheduled.
+     */
+    public double nextEventTime() {
+        discardStale();
+        Event next = this.queue.peek();
+        return next == null ? Double.POSITIVE_INFINITY : next.time;
+    }
+
+    /**
+     * Processes every event up to the given time, then moves every ball to that time.
+     *
+     * @param time the time to advance to, in steps.
+     */
+    public void advanceTo(double time) {
+        while (nextEventTime() <= time) {
+            process(this.queue.poll());
+        }
+        this.now = Math.max(this.now, time);
+        for (int i = 0; i < this.active.size(); i++) {
+            sync(this.active.get(i));
+        }
+    }
+
+    /**
+     * Jumps straight to the next event and processes it, without moving any other ball.
+     * This lets a run without input skip all the steps in which nothing happens.
+     *
+     * @return the new current time, or infinity if nothing is scheduled.
+     */
+    public double advanceToNextEvent() {
+        double next = nextEventTime();
+        if (next != Double.POSITIVE_INFINITY) {
+            process(this.queue.poll());
+        }
+        return next;
+    }
+
+    @Override
+    public void collidableAdded(Collidable c) {
+        repredictAll();
+    }
+
+    @Override
+    public void collidableRemoved(Collidable c) {
+        for (int i = 0; i < this.active.size(); i++) {
+            BallState s = this.active.get(i);
+            if (s.target == c) {
+                sync(s);
+                predict(s);
+            }
+        }
+    }
+
+    @Override
+    public void collidableChanged(Collidable c) {
+        collidableRemoved(c);
+    }
+
+    @Override
+    public void collidableMoved(Collidable c) {
+        Rectangle rect = c.getCollisionRectangle();
+        double minX = rect.getMinX();
+        double minY = rect.getMinY();
+        double maxX = minX + rect.getWidth();
+        double maxY = minY + rect.getHeight();
+        for (int i = 0; i < this.active.size(); i++) {
+            BallState s = this.active.get(i);
+            if (s.target == c || s.pathTouches(minX, minY, maxX, maxY)) {
+                sync(s);
+                predict(s);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the next impact of every scheduled ball.
+     */
+    private void repredictAll() {
+        for (int i = 0; i < this.active.size(); i++) {
+            BallState s = this.active.get(i);
+            sync(s);
+            predict(s);
+        }
+    }
+
+    /**
+     * Handles one event: moves its ball to the impact and bounces it, then predicts its next impact.
+     *
+     * @param e the event to process.
+     */
+    private void process(Event e) {
+        BallState s = e.state;
+        this.now = Math.max(this.now, e.time);
+        s.contactsInPlace = e.time > s.time ? 0 : s.contactsInPlace + 1;
+        s.ball.advanceBy(e.time - s.time);
+        s.time = e.time;
+        s.target = null;
+        if (e.collision != null) {
+            s.ball.collide(e.collision);
+        } else if (e.frame) {
+            s.ball.bounceOffFrame();
+        }
+        if (!s.removed) {
+            predict(s);
+        }
+    }
+
+    /**
+     * Moves a ball from the time it was last placed at up to the current time.
+     *
+     * @param s the ball's state.
+     */
+    private void sync(BallState s) {
+        if (s.time < this.now) {
+            s.ball.advanceBy(this.now - s.time);
+            s.time = this.now;
+        }
+    }
+
+    /**
+     * Computes when the ball hits something next and queues that event, invalidating older ones.
+     *
+     * @param s the ball's state.
+     */
+    private void predict(BallState s) {
+        s.version++;
+        Ball ball = s.ball;
+        if (ball.getVelocity() == null) {
+            s.target = null;
+            return;
+        }
+        Point start = ball.getCenter();
+        double dx = ball.getVelocity().getDx() * this.horizon;
+        double dy = ball.getVelocity().getDy() * this.horizon;
+        Line path = new Line(start, new Point(start.getX() + dx, start.getY() + dy));
+        double radius = ball.isSweptCollision() ? ball.getSize() : 0;
+        CollisionInfo info = this.environment.getClosestCollision(path, radius);
+
+        double t = info == null ? 1 : info.collisionTime();
+        if (info != null && t == 0 && s.contactsInPlace >= Ball.DEFAULT_MAX_CONTACTS_PER_STEP) {
+            // Stuck bouncing in place (e.g. inside a moving paddle): let it move freely for one step.
+            info = null;
+            t = 1 / this.horizon;
+        }
+        double frameTime = ball.stepsToFrame() / this.horizon;
+        boolean frame = frameTime < t;
+        if (frame) {
+            info = null;
+            t = frameTime;
+        }
+        s.target = info == null ? null : info.collisionObject();
+        s.setPath(start.getX(), start.getY(), start.getX() + dx * t, start.getY() + dy * t, radius);
+        this.queue.add(new Event(s.time + t * this.horizon, this.nextSequence++, s, info, frame));
+    }
+
+    /**
+     * Drops events at the head of the queue that were invalidated by a newer prediction.
+     */
+    private void discardStale() {
+        while (!this.queue.isEmpty()) {
+            Event head = this.queue.peek();
+            if (!head.state.removed && head.version == head.state.version) {
+                return;
+            }
+            this.queue.poll();
+        }
+    }
+
+    /**
+     * The scheduling state of one ball.
+     */
+    private static class BallState {
+        private final Ball ball;
+        private double time;
+        private int version;
+        private int contactsInPlace;
+        private boolean removed;
+        private Collidable target;
+        private double pathMinX;
+        private double pathMinY;
+        private double pathMaxX;
+        private double pathMaxY;
+
+        /**
+         * @param ball the ball.
+         * @param time the time its current center corresponds to.
+         */
+        BallState(Ball ball, double time) {
+            this.ball = ball;
+            this.time = time;
+        }
+
+        /**
+         * Remembers the bounding box of the predicted path, grown by the radius.
+         *
+         * @param x0     x of the path start.
+         * @param y0     y of the path start.
+         * @param x1     x of the path end.
+         * @param y1     y of the path end.
+         * @param radius the radius used for the prediction.
+         */
+        void setPath(double x0, double y0, double x1, double y1, double radius) {
+            this.pathMinX = Math.min(x0, x1) - radius;
+            this.pathMinY = Math.min(y0, y1) - radius;
+            this.pathMaxX = Math.max(x0, x1) + radius;
+            this.pathMaxY = Math.max(y0, y1) + radius;
+        }
+
+        /**
+         * @param minX left edge of a box.
+         * @param minY top edge of a box.
+         * @param maxX right edge of a box.
+         * @param maxY bottom edge of a box.
+         * @return true if the box overlaps the bounding box of the predicted path.
+         */
+        boolean pathTouches(double minX, double minY, double maxX, double maxY) {
+            return minX <= this.pathMaxX && maxX >= this.pathMinX
+                    && minY <= this.pathMaxY && maxY >= this.pathMinY;
+        }
+    }
+
+    /**
+     * A predicted impact, a bounce off the ball's frame, or a re-check when the look-ahead runs out.
+     */
+    private static class Event implements Comparable<Event> {
+        private final double time;
+        private final long sequence;
+        private final BallState state;
+        private final int version;
+        private final CollisionInfo collision;
+        private final boolean frame;
+
+        /**
+         * @param time      when the event happens.
+         * @param sequence  creation order, to break ties deterministically.
+         * @param state     the ball the event belongs to.
+         * @param collision the predicted collision, or null for a frame bounce or a re-check.
+         * @param frame     true if the ball reaches its frame.
+         */
+        Event(double time, long sequence, BallState state, CollisionInfo collision, boolean frame) {
+            this.time = time;
+            this.sequence = sequence;
+            this.state = state;
+            this.version = state.version;
+            this.collision = collision;
+            this.frame = frame;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Double.compare(this.time, other.time);
+            return byTime != 0 ? byTime : Long.compare(this.sequence, other.sequence);
+        }
+    }
+}
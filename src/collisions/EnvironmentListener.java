@@ -0,0 +1,37 @@
+package collisions;
+
+/**
+ * An EnvironmentListener is notified whenever the set of collidables in a GameEnvironment,
+ * or the shape of one of them, changes.
+ */
+public interface EnvironmentListener {
+
+    /**
+     * Called after a collidable was added to the environment.
+     *
+     * @param c the collidable that was added.
+     */
+    void collidableAdded(Collidable c);
+
+    /**
+     * Called after a collidable was removed from the environment.
+     *
+     * @param c the collidable that was removed.
+     */
+    void collidableRemoved(Collidable c);
+
+    /**
+     * Called after a collidable's collision rectangle changed.
+     *
+     * @param c the collidable that moved.
+     */
+    void collidableMoved(Collidable c);
+
+    /**
+     * Called after part of a collidable's shape went away while its collision rectangle stayed the same,
+     * e.g. when a brick of a block field was destroyed.
+     *
+     * @param c the collidable whose shape changed.
+     */
+    void collidableChanged(Collidable c);
+}
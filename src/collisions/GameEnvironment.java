@@ -1,69 +1,499 @@
-package collisions;
-
-import geometry.Line;
-import geometry.Point;
-
-import java.util.List;
-import java.util.ArrayList;
-
-/**
- * The GameEnvironment class holds all the collidable objects in the game.
- */
-public class GameEnvironment {
-    private List<Collidable> collidables;
-
-    /**
-     * Constructs a GameEnvironment with an empty list of collidables.
-     */
-    public GameEnvironment() {
-        this.collidables = new ArrayList<>();
-    }
-
-    /**
-     * Adds a collidable object to the environment.
-     *
-     * @param c the collidable to add.
-     */
-    public void addCollidable(Collidable c) {
-        this.collidables.add(c);
-    }
-
-    /**
-     * Removes a collidable object from the environment.
-     *
-     * @param c the collidable to remove.
-     */
-    public void removeCollidable(Collidable c) {
-        this.collidables.remove(c);
-    }
-
-    /**
-     * Determines the closest collision that will occur based on a trajectory.
-     *
-     * @param trajectory the line representing the object's path.
-     * @return information about the closest collision, or null if no collision is detected.
-     */
-    public CollisionInfo getClosestCollision(Line trajectory) {
-        Point closestPoint = null;
-        Collidable closestObject = null;
-        double minDistance = Double.POSITIVE_INFINITY;
-
-        for (Collidable c : collidables) {
-            Point p = trajectory.closestIntersectionToStartOfLine(c.getCollisionRectangle());
-            if (p != null) {
-                double distance = trajectory.start().distance(p);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    closestPoint = p;
-                    closestObject = c;
-                }
-            }
-        }
-
-        if (closestPoint == null) {
-            return null;
-        }
-
-        return new CollisionInfo(closestPoint, closestObject);
-    }
-}
+package collisions;
+
+import geometry.Line;
+import geometry.Rectangle;
+import geometry.SegmentHit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The GameEnvironment class holds all the collidable objects in the game.
+ * Collidables are kept in a spatial index (the backend), so a collision query only tests
+ * the objects the trajectory can actually reach instead of every collidable.
+ * Collidables that never move can be packed into an immutable static index with buildStaticIndex;
+ * after that, only the few moving ones live in the backend and are re-indexed as they move.
+ * Equally close hits go to the collidable added first; with setKeepRemovedOrder(true), one added again
+ * after it was removed keeps its old place in that order, so a game brought back to an earlier state
+ * plays out the same.
+ */
+public class GameEnvironment {
+
+    /**
+     * The spatial index used to find collision candidates.
+     */
+    public enum Backend {
+        /** A uniform grid; best for many static objects spread over the screen. */
+        GRID,
+        /** A dynamic AABB tree with fattened boxes; best when many objects move every frame. */
+        AABB_TREE,
+        /**
+         * A uniform grid for the moving objects, and a brute-force scan over flat arrays of bounds
+         * for the static ones; best for static layouts that do not fit a grid.
+         */
+        BOX_SCAN
+    }
+
+    /** Default width of the indexed area (the game screen). */
+    public static final double DEFAULT_WIDTH = 800;
+    /** Default height of the indexed area (the game screen). */
+    public static final double DEFAULT_HEIGHT = 600;
+    /** Default edge length of a grid cell. */
+    public static final double DEFAULT_CELL_SIZE = 50;
+
+    /** Extra room around batched query boxes, so hits found within EPSILON are never missed. */
+    private static final double BATCH_MARGIN = 0.001;
+
+    private Map<Collidable, CollidableProxy> proxies;
+    private Map<Collidable, Long> retiredOrders;
+    private BroadPhase broadPhase;
+    private Backend backend;
+    private StaticIndex staticIndex;
+    private boolean staticPending;
+    private double width;
+    private double height;
+    private double cellSize;
+    private List<CollidableProxy> candidates;
+    private SegmentHit hit;
+    private SegmentHit staticHit;
+    private final CollisionInfo queryInfo = new CollisionInfo();
+    private List<EnvironmentListener> listeners;
+    private SweepAndPrune sweepAndPrune;
+    private List<List<CollidableProxy>> batchCandidates;
+    private double[] batchMinX = new double[0];
+    private double[] batchMinY = new double[0];
+    private double[] batchMaxX = new double[0];
+    private double[] batchMaxY = new double[0];
+    private long modificationCount;
+    private long nextOrder;
+
+    /**
+     * Constructs a GameEnvironment covering the game screen, with no collidables.
+     */
+    public GameEnvironment() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructs a GameEnvironment covering the game screen, using the given backend.
+     *
+     * @param backend the spatial index to use.
+     */
+    public GameEnvironment(Backend backend) {
+        this(backend, DEFAULT_WIDTH, DEFAULT_HEIGHT, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructs a GameEnvironment whose grid covers the given area, with no collidables.
+     *
+     * @param width    the width of the indexed area.
+     * @param height   the height of the indexed area.
+     * @param cellSize the edge length of a grid cell.
+     */
+    public GameEnvironment(double width, double height, double cellSize) {
+        this(Backend.GRID, width, height, cellSize);
+    }
+
+    /**
+     * Constructs a GameEnvironment with no collidables; every other constructor comes here.
+     *
+     * @param backend  the spatial index to use.
+     * @param width    the width of the indexed area.
+     * @param height   the height of the indexed area.
+     * @param cellSize the edge length of a grid cell, for the grid backends.
+     */
+    private GameEnvironment(Backend backend, double width, double height, double cellSize) {
+        this.proxies = new IdentityHashMap<>();
+        this.candidates = new ArrayList<>();
+        this.hit = new SegmentHit();
+        this.staticHit = new SegmentHit();
+        this.listeners = new ArrayList<>();
+        this.sweepAndPrune = new SweepAndPrune();
+        this.batchCandidates = new ArrayList<>();
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.backend = backend;
+        if (backend == Backend.AABB_TREE) {
+            this.broadPhase = new AabbTree();
+        } else {
+            this.broadPhase = new UniformGrid(width, height, cellSize);
+        }
+    }
+
+    /**
+     * Sets whether removed collidables remember their place in the order of equally close hits,
+     * so that adding one again puts it back there. Off by default, since only a game that goes back
+     * to earlier states needs it.
+     *
+     * @param keep true to remember the places of collidables removed from now on.
+     */
+    public void setKeepRemovedOrder(boolean keep) {
+        if (!keep) {
+            this.retiredOrders = null;
+        } else if (this.retiredOrders == null) {
+            this.retiredOrders = new IdentityHashMap<>();
+        }
+    }
+
+    /**
+     * Adds a collidable object that does not move to the environment.
+     * It is packed into the static index by the next buildStaticIndex.
+     *
+     * @param c the collidable to add.
+     */
+    public void addCollidable(Collidable c) {
+        add(c, false);
+    }
+
+    /**
+     * Adds a collidable object that moves (such as the paddle) to the environment.
+     * It always stays in the dynamic backend, which is tested on every query.
+     *
+     * @param c the collidable to add.
+     */
+    public void addDynamicCollidable(Collidable c) {
+        add(c, true);
+    }
+
+    /**
+     * Packs every collidable that does not move into an immutable static index (a packed grid,
+     * or flat arrays with BOX_SCAN) and takes them out of the dynamic backend. Call it once the level
+     * is set up; removals keep the index up to date afterwards, and collidables added later are packed
+     * at the next rebuild.
+     */
+    public void buildStaticIndex() {
+        List<CollidableProxy> statics = new ArrayList<>();
+        for (CollidableProxy p : this.proxies.values()) {
+            if (p.isDynamic()) {
+                continue;
+            }
+            if (p.staticSlot() < 0) {
+                this.broadPhase.remove(p);
+            }
+            statics.add(p);
+        }
+        statics.sort(Comparator.comparingLong(CollidableProxy::order));
+        if (this.backend == Backend.BOX_SCAN) {
+            this.staticIndex = new BoxArray(statics);
+        } else {
+            this.staticIndex = new StaticGrid(this.width, this.height, this.cellSize, statics);
+        }
+        this.staticPending = false;
+    }
+
+    /**
+     * Creates the proxy of a new collidable and indexes it.
+     *
+     * @param c       the collidable to add.
+     * @param dynamic true if the collidable moves.
+     */
+    private void add(Collidable c, boolean dynamic) {
+        if (this.proxies.containsKey(c)) {
+            return;
+        }
+        Long oldOrder = this.retiredOrders != null ? this.retiredOrders.remove(c) : null;
+        CollidableProxy p = new CollidableProxy(c, oldOrder != null ? oldOrder : this.nextOrder++);
+        if (dynamic) {
+            p.markDynamic();
+        } else if (this.staticIndex != null) {
+            this.staticPending = true;
+        }
+        this.proxies.put(c, p);
+        this.broadPhase.insert(p);
+        this.sweepAndPrune.insert(p);
+        this.modificationCount++;
+        for (int i = 0; i < this.listeners.size(); i++) {
+            this.listeners.get(i).collidableAdded(c);
+        }
+    }
+
+    /**
+     * Removes a collidable object from the environment.
+     *
+     * @param c the collidable to remove.
+     */
+    public void removeCollidable(Collidable c) {
+        CollidableProxy p = this.proxies.remove(c);
+        if (p != null) {
+            p.markRemoved();
+            if (this.retiredOrders != null) {
+                this.retiredOrders.put(c, p.order());
+            }
+            if (p.staticSlot() >= 0) {
+                this.staticIndex.remove(p);
+                if (this.staticPending || this.staticIndex.isMostlyDead()) {
+                    buildStaticIndex();
+                }
+            } else {
+                this.broadPhase.remove(p);
+            }
+            this.sweepAndPrune.remove(p);
+            this.modificationCount++;
+            for (int i = 0; i < this.listeners.size(); i++) {
+                this.listeners.get(i).collidableRemoved(c);
+            }
+        }
+    }
+
+    /**
+     * Re-indexes a collidable whose collision rectangle has changed.
+     * Moving collidables must call this after every move.
+     * A collidable that was packed into the static index is moved to the dynamic backend for good.
+     *
+     * @param c the collidable that moved.
+     */
+    public void updateCollidable(Collidable c) {
+        CollidableProxy p = this.proxies.get(c);
+        if (p != null) {
+            p.refreshBounds();
+            if (p.staticSlot() >= 0) {
+                this.staticIndex.remove(p);
+                p.markDynamic();
+                this.broadPhase.insert(p);
+            } else {
+                this.broadPhase.update(p);
+            }
+            this.modificationCount++;
+            for (int i = 0; i < this.listeners.size(); i++) {
+                this.listeners.get(i).collidableMoved(c);
+            }
+        }
+    }
+
+    /**
+     * Tells the environment that part of a shaped collidable went away while its collision rectangle
+     * stayed the same, so earlier collision results involving it are no longer valid.
+     *
+     * @param c the collidable whose shape changed.
+     */
+    public void shapeChanged(Collidable c) {
+        if (this.proxies.containsKey(c)) {
+            this.modificationCount++;
+            for (int i = 0; i < this.listeners.size(); i++) {
+                this.listeners.get(i).collidableChanged(c);
+            }
+        }
+    }
+
+    /**
+     * Returns a counter that changes every time a collidable is added, removed or moved.
+     * A collision result computed earlier is still valid as long as this value has not changed.
+     *
+     * @return the modification count.
+     */
+    public long getModificationCount() {
+        return this.modificationCount;
+    }
+
+    /**
+     * Registers a listener to be notified when collidables are added, removed or moved.
+     *
+     * @param l the listener to add.
+     */
+    public void addEnvironmentListener(EnvironmentListener l) {
+        this.listeners.add(l);
+    }
+
+    /**
+     * Removes a listener from change notifications.
+     *
+     * @param l the listener to remove.
+     */
+    public void removeEnvironmentListener(EnvironmentListener l) {
+        this.listeners.remove(l);
+    }
+
+    /**
+     * Determines the closest collision that will occur based on a trajectory.
+     * When several objects are hit at the same time, the one added first wins.
+     * The returned info carries the time of impact along the trajectory and the normal of the surface hit.
+     *
+     * @param trajectory the line representing the object's path.
+     * @return information about the closest collision, or null if no collision is detected.
+     */
+    public CollisionInfo getClosestCollision(Line trajectory) {
+        return getClosestCollision(trajectory, 0);
+    }
+
+    /**
+     * Determines the closest collision of a circle moving along a trajectory (continuous collision detection).
+     * The circle is swept against every candidate, so the radius is respected and a fast circle
+     * cannot tunnel through thin objects. With radius 0 this is a plain segment query.
+     * The collision point is the contact point on the surface of the object;
+     * the circle's center at impact is the start of the trajectory moved by the time of impact.
+     *
+     * @param trajectory the line the circle's center follows.
+     * @param radius     the circle radius.
+     * @return information about the closest collision, or null if no collision is detected.
+     */
+    public CollisionInfo getClosestCollision(Line trajectory, double radius) {
+        return getClosestCollision(trajectory.start().getX(), trajectory.start().getY(),
+                trajectory.end().getX(), trajectory.end().getY(), radius);
+    }
+
+    /**
+     * Same as getClosestCollision(Line, double), for a trajectory given by its end points.
+     * Nothing is allocated when there is no collision.
+     *
+     * @param x0     x of the start of the trajectory.
+     * @param y0     y of the start of the trajectory.
+     * @param x1     x of the end of the trajectory.
+     * @param y1     y of the end of the trajectory.
+     * @param radius the circle radius, or 0 for a segment.
+     * @return information about the closest collision, or null if no collision is detected.
+     */
+    public CollisionInfo getClosestCollision(double x0, double y0, double x1, double y1, double radius) {
+        if (!findClosestCollision(x0, y0, x1, y1, radius, this.queryInfo)) {
+            return null;
+        }
+        CollisionInfo info = new CollisionInfo();
+        info.set(this.queryInfo);
+        return info;
+    }
+
+    /**
+     * Same as getClosestCollision(double, double, double, double, double), but fills an info owned by the caller
+     * instead of creating one, so the query allocates nothing whether or not something is hit.
+     *
+     * @param x0     x of the start of the trajectory.
+     * @param y0     y of the start of the trajectory.
+     * @param x1     x of the end of the trajectory.
+     * @param y1     y of the end of the trajectory.
+     * @param radius the circle radius, or 0 for a segment.
+     * @param out    receives the closest collision; left as it was if there is none.
+     * @return true if a collision is detected.
+     */
+    public boolean findClosestCollision(double x0, double y0, double x1, double y1, double radius,
+                                        CollisionInfo out) {
+        CollidableProxy fromStatic = null;
+        if (this.staticIndex != null) {
+            fromStatic = this.staticIndex.closest(x0, y0, x1 - x0, y1 - y0, radius, this.staticHit);
+        }
+        this.candidates.clear();
+        this.broadPhase.query(x0, y0, x1, y1, radius, this.candidates);
+        return closestAmong(this.candidates, x0, y0, x1 - x0, y1 - y0, radius, fromStatic, out);
+    }
+
+    /**
+     * Determines the closest collision of many trajectories at once, e.g. of every ball in a frame.
+     * Candidates for the whole batch are found in a single sweep-and-prune pass over the collidables
+     * sorted by x, instead of one independent spatial query per trajectory.
+     * Each result is the same as findClosestCollision gives for that trajectory. The buffers are kept
+     * between calls, so a batch no larger than an earlier one allocates nothing.
+     *
+     * @param x0    x of the start of each path.
+     * @param y0    y of the start of each path.
+     * @param x1    x of the end of each path.
+     * @param y1    y of the end of each path.
+     * @param radii the circle radius of each path (0 for a plain segment), or null for all 0.
+     * @param count the number of paths.
+     * @param out   out[i] receives the closest collision of path i, when it has one.
+     * @param found found[i] is set to whether path i hits anything.
+     */
+    public void findClosestCollisions(double[] x0, double[] y0, double[] x1, double[] y1, double[] radii,
+                                      int count, CollisionInfo[] out, boolean[] found) {
+        if (this.batchMinX.length < count) {
+            this.batchMinX = new double[count];
+            this.batchMinY = new double[count];
+            this.batchMaxX = new double[count];
+            this.batchMaxY = new double[count];
+        }
+        while (this.batchCandidates.size() < count) {
+            this.batchCandidates.add(new ArrayList<>());
+        }
+        for (int i = 0; i < count; i++) {
+            double reach = (radii == null ? 0 : radii[i]) + BATCH_MARGIN;
+            this.batchMinX[i] = Math.min(x0[i], x1[i]) - reach;
+            this.batchMinY[i] = Math.min(y0[i], y1[i]) - reach;
+            this.batchMaxX[i] = Math.max(x0[i], x1[i]) + reach;
+            this.batchMaxY[i] = Math.max(y0[i], y1[i]) + reach;
+            this.batchCandidates.get(i).clear();
+        }
+
+        this.sweepAndPrune.sweep(this.batchMinX, this.batchMinY, this.batchMaxX, this.batchMaxY, count,
+                this.batchCandidates);
+
+        for (int i = 0; i < count; i++) {
+            found[i] = closestAmong(this.batchCandidates.get(i), x0[i], y0[i], x1[i] - x0[i], y1[i] - y0[i],
+                    radii == null ? 0 : radii[i], null, out[i]);
+        }
+    }
+
+    /**
+     * Runs the narrow phase over a list of candidates and fills in the result for the earliest hit.
+     * When several objects are hit at the same time, the one added first wins.
+     *
+     * @param list       the candidates.
+     * @param x0         x of the start.
+     * @param y0         y of the start.
+     * @param dx         x extent of the motion.
+     * @param dy         y extent of the motion.
+     * @param radius     the circle radius, or 0 for a segment.
+     * @param fromStatic the earliest hit already found in the static index (described by staticHit), or null.
+     * @param out        receives the closest collision.
+     * @return true if something is hit.
+     */
+    private boolean closestAmong(List<CollidableProxy> list, double x0, double y0, double dx, double dy,
+                                 double radius, CollidableProxy fromStatic, CollisionInfo out) {
+        CollidableProxy closest = fromStatic;
+        double minTime = Double.POSITIVE_INFINITY;
+        double normalX = 0;
+        double normalY = 0;
+        if (fromStatic != null) {
+            minTime = this.staticHit.getTime();
+            normalX = this.staticHit.getNormalX();
+            normalY = this.staticHit.getNormalY();
+        }
+
+        for (int i = 0; i < list.size(); i++) {
+            CollidableProxy p = list.get(i);
+            if (intersect(p, x0, y0, dx, dy, radius)) {
+                double t = this.hit.getTime();
+                if (t < minTime || (t == minTime && p.order() < closest.order())) {
+                    minTime = t;
+                    normalX = this.hit.getNormalX();
+                    normalY = this.hit.getNormalY();
+                    closest = p;
+                }
+            }
+        }
+
+        if (closest == null) {
+            return false;
+        }
+
+        out.set(x0 + dx * minTime - normalX * radius, y0 + dy * minTime - normalY * radius,
+                closest.collidable(), minTime, normalX, normalY);
+        return true;
+    }
+
+    /**
+     * Runs the narrow-phase test of a segment or swept circle against a collidable, filling this.hit.
+     * Shaped collidables are tested against their exact shape, the others against their rectangle.
+     *
+     * @param p      the proxy of the collidable to test.
+     * @param x0     x of the start.
+     * @param y0     y of the start.
+     * @param dx     x extent of the motion.
+     * @param dy     y extent of the motion.
+     * @param radius the circle radius, or 0 for a segment.
+     * @return true if there is a hit.
+     */
+    private boolean intersect(CollidableProxy p, double x0, double y0, double dx, double dy, double radius) {
+        if (p.isShaped()) {
+            return ((ShapedCollidable) p.collidable()).intersect(x0, y0, dx, dy, radius, this.hit);
+        }
+        Rectangle rect = p.collidable().getCollisionRectangle();
+        if (radius <= 0) {
+            return rect.intersectSegment(x0, y0, dx, dy, this.hit);
+        }
+        double minX = rect.getMinX();
+        double minY = rect.getMinY();
+        return Rectangle.intersectSweptCircle(x0, y0, dx, dy, radius,
+                minX, minY, minX + rect.getWidth(), minY + rect.getHeight(), this.hit);
+    }
+}
@@ -0,0 +1,24 @@
+package collisions;
+
+import geometry.SegmentHit;
+
+/**
+ * A ShapedCollidable is a collidable whose actual shape is smaller than its collision rectangle,
+ * such as a whole field of bricks with gaps and destroyed cells. The collision rectangle only bounds it
+ * for the spatial index; every trajectory that reaches the bounds is then tested against the exact shape.
+ */
+public interface ShapedCollidable extends Collidable {
+
+    /**
+     * Tests a segment or a swept circle against the exact shape.
+     *
+     * @param x0     x of the start.
+     * @param y0     y of the start.
+     * @param dx     x extent of the motion.
+     * @param dy     y extent of the motion.
+     * @param radius the circle radius, or 0 for a segment.
+     * @param out    receives the time of impact and the unit normal when there is a hit.
+     * @return true if the shape is hit.
+     */
+    boolean intersect(double x0, double y0, double dx, double dy, double radius, SegmentHit out);
+}
@@ -0,0 +1,180 @@
+package collisions;
+
+import geometry.Rectangle;
+import geometry.SegmentHit;
+
+import java.util.List;
+
+/**
+ * A StaticGrid is a static index that buckets collidables that never move (walls, blocks) by grid cell.
+ * The bounds live in flat arrays, and the cell buckets are one shared array of slot numbers with
+ * a start offset per cell, so a query walks contiguous memory and tests the bounds directly
+ * without going through the collidables.
+ */
+class StaticGrid extends CellGrid implements StaticIndex {
+    private final CollidableProxy[] proxies;
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    private final boolean[] dead;
+    private final int[] cellStart;
+    private final int[] cellItems;
+    private final int[] stamps;
+    private int live;
+    private int stamp;
+
+    private final SegmentHit scratch;
+    private double x0;
+    private double y0;
+    private double dx;
+    private double dy;
+    private double radius;
+    private int best;
+    private double bestTime;
+    private double bestNormalX;
+    private double bestNormalY;
+
+    /**
+     * Packs the given proxies into a grid covering the area [0, width] x [0, height].
+     *
+     * @param width    the width of the covered area.
+     * @param height   the height of the covered area.
+     * @param cellSize the edge length of a single cell.
+     * @param statics  the proxies to index, sorted by insertion order.
+     */
+    StaticGrid(double width, double height, double cellSize, List<CollidableProxy> statics) {
+        super(width, height, cellSize);
+        int count = statics.size();
+        this.proxies = statics.toArray(new CollidableProxy[count]);
+        this.minX = new double[count];
+        this.minY = new double[count];
+        this.maxX = new double[count];
+        this.maxY = new double[count];
+        this.dead = new boolean[count];
+        this.stamps = new int[count];
+        this.live = count;
+        this.scratch = new SegmentHit();
+
+        // First pass counts the entries per cell, second pass fills the buckets.
+        this.cellStart = new int[cellCount() + 1];
+        for (int i = 0; i < count; i++) {
+            CollidableProxy p = this.proxies[i];
+            p.setStaticSlot(i);
+            this.minX[i] = p.minX();
+            this.minY[i] = p.minY();
+            this.maxX[i] = p.maxX();
+            this.maxY[i] = p.maxY();
+            for (int row = firstRowOf(p.minY()); row <= lastRowOf(p.maxY()); row++) {
+                for (int col = firstColOf(p.minX()); col <= lastColOf(p.maxX()); col++) {
+                    this.cellStart[row * columns() + col + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cellCount(); cell++) {
+            this.cellStart[cell + 1] += this.cellStart[cell];
+        }
+        this.cellItems = new int[this.cellStart[cellCount()]];
+        int[] fill = new int[cellCount()];
+        for (int i = 0; i < count; i++) {
+            for (int row = firstRowOf(this.minY[i]); row <= lastRowOf(this.maxY[i]); row++) {
+                for (int col = firstColOf(this.minX[i]); col <= lastColOf(this.maxX[i]); col++) {
+                    int cell = row * columns() + col;
+                    this.cellItems[this.cellStart[cell] + fill[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a proxy's entry as dead, so queries skip it.
+     *
+     * @param p the proxy to drop; it must belong to this grid.
+     */
+    @Override
+    public void remove(CollidableProxy p) {
+        int slot = p.staticSlot();
+        if (!this.dead[slot]) {
+            this.dead[slot] = true;
+            this.live--;
+        }
+        p.setStaticSlot(-1);
+    }
+
+    /**
+     * @return true when dead entries outnumber live ones and the grid is worth rebuilding.
+     */
+    @Override
+    public boolean isMostlyDead() {
+        return this.proxies.length - this.live > this.live;
+    }
+
+    /**
+     * Walks the cells on the trajectory and tests their live entries.
+     * When several entries are hit at the same time, the one added first wins.
+     *
+     * @param startX x of the start.
+     * @param startY y of the start.
+     * @param moveX  x extent of the motion.
+     * @param moveY  y extent of the motion.
+     * @param r      the circle radius, or 0 for a segment.
+     * @param out    receives the time of impact and the normal of the hit.
+     * @return the proxy hit first, or null if nothing is hit.
+     */
+    @Override
+    public CollidableProxy closest(double startX, double startY, double moveX, double moveY, double r,
+                                   SegmentHit out) {
+        this.stamp++;
+        this.x0 = startX;
+        this.y0 = startY;
+        this.dx = moveX;
+        this.dy = moveY;
+        this.radius = r;
+        this.best = -1;
+        this.bestTime = Double.POSITIVE_INFINITY;
+        walk(startX, startY, startX + moveX, startY + moveY, r);
+        if (this.best < 0) {
+            return null;
+        }
+        out.set(this.bestTime, this.bestNormalX, this.bestNormalY);
+        return this.proxies[this.best];
+    }
+
+    /**
+     * Tests the not-yet-visited live entries of a cell against the running query.
+     *
+     * @param cell the index of the cell.
+     */
+    @Override
+    protected void visitCell(int cell) {
+        for (int k = this.cellStart[cell]; k < this.cellStart[cell + 1]; k++) {
+            int i = this.cellItems[k];
+            if (this.dead[i] || this.stamps[i] == this.stamp) {
+                continue;
+            }
+            this.stamps[i] = this.stamp;
+            boolean hit;
+            if (this.proxies[i].isShaped()) {
+                hit = ((ShapedCollidable) this.proxies[i].collidable())
+                        .intersect(this.x0, this.y0, this.dx, this.dy, this.radius, this.scratch);
+            } else if (this.radius <= 0) {
+                hit = Rectangle.intersectSegment(this.x0, this.y0, this.dx, this.dy,
+                        this.minX[i], this.minY[i], this.maxX[i], this.maxY[i], this.scratch);
+            } else {
+                hit = Rectangle.intersectSweptCircle(this.x0, this.y0, this.dx, this.dy, this.radius,
+                        this.minX[i], this.minY[i], this.maxX[i], this.maxY[i], this.scratch);
+            }
+            if (!hit) {
+                continue;
+            }
+            double t = this.scratch.getTime();
+            // Slots follow insertion order, so the lower slot is the one added first.
+            if (t < this.bestTime || (t == this.bestTime && i < this.best)) {
+                this.best = i;
+                this.bestTime = t;
+                this.bestNormalX = this.scratch.getNormalX();
+                this.bestNormalY = this.scratch.getNormalY();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package collisions;
+
+import geometry.SegmentHit;
+
+/**
+ * A StaticIndex is an immutable, packed index of collidables that never move.
+ * It is built once from a fixed set of proxies and answers closest-hit queries on its own,
+ * including the exact narrow-phase test. Entries can only be dropped afterwards;
+ * the owner rebuilds the index when too many have been dropped.
+ */
+interface StaticIndex {
+
+    /**
+     * Drops a proxy's entry, so queries skip it.
+     *
+     * @param p the proxy to drop; it must belong to this index.
+     */
+    void remove(CollidableProxy p);
+
+    /**
+     * @return true when dropped entries outnumber live ones and the index is worth rebuilding.
+     */
+    boolean isMostlyDead();
+
+    /**
+     * Finds the earliest hit of a segment or swept circle against the live entries.
+     * When several entries are hit at the same time, the one added first wins.
+     *
+     * @param x0     x of the start.
+     * @param y0     y of the start.
+     * @param dx     x extent of the motion.
+     * @param dy     y extent of the motion.
+     * @param radius the circle radius, or 0 for a segment.
+     * @param out    receives the time of impact and the normal of the hit.
+     * @return the proxy hit first, or null if nothing is hit.
+     */
+    CollidableProxy closest(double x0, double y0, double dx, double dy, double radius, SegmentHit out);
+}
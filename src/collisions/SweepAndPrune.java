@@ -0,0 +1,159 @@
+package collisions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SweepAndPrune keeps the collidable bounds in an array sorted by their left edge and pairs them with
+ * a whole batch of query boxes in a single sweep along the x axis.
+ * The array is re-sorted with insertion sort before each sweep; objects barely move between frames,
+ * so it is almost sorted already and the sort is close to linear.
+ */
+class SweepAndPrune {
+    private CollidableProxy[] boxes;
+    private int size;
+    private int removed;
+
+    private int[] queryOrder;
+    private int lastQueryCount;
+    private List<CollidableProxy> active;
+
+    /**
+     * Constructs an empty sweep-and-prune structure.
+     */
+    SweepAndPrune() {
+        this.boxes = new CollidableProxy[16];
+        this.queryOrder = new int[16];
+        this.active = new ArrayList<>();
+    }
+
+    /**
+     * Adds a proxy. It is sorted into place at the next sweep.
+     *
+     * @param p the proxy to add.
+     */
+    void insert(CollidableProxy p) {
+        if (this.size == this.boxes.length) {
+            this.boxes = Arrays.copyOf(this.boxes, this.size * 2);
+        }
+        this.boxes[this.size++] = p;
+    }
+
+    /**
+     * Removes a proxy. It is dropped from the array at the next sweep, or as soon as removed proxies
+     * make up half of the array, so an environment that never sweeps does not keep them forever.
+     *
+     * @param p the proxy to remove; it must already be marked as removed.
+     */
+    void remove(CollidableProxy p) {
+        this.removed++;
+        if (this.removed * 2 > this.size) {
+            compact();
+        }
+    }
+
+    /**
+     * Finds, for each query box, every proxy whose bounds overlap it.
+     *
+     * @param minX  left edges of the query boxes.
+     * @param minY  top edges of the query boxes.
+     * @param maxX  right edges of the query boxes.
+     * @param maxY  bottom edges of the query boxes.
+     * @param count the number of query boxes.
+     * @param pairs receives the candidates of query i in pairs.get(i); the lists must exist and be empty.
+     */
+    void sweep(double[] minX, double[] minY, double[] maxX, double[] maxY, int count,
+               List<List<CollidableProxy>> pairs) {
+        compactAndSort();
+        sortQueries(minX, count);
+
+        this.active.clear();
+        int next = 0;
+        for (int k = 0; k < count; k++) {
+            int q = this.queryOrder[k];
+            // Boxes starting left of this query's right edge become active.
+            while (next < this.size && this.boxes[next].minX() <= maxX[q]) {
+                this.active.add(this.boxes[next++]);
+            }
+            List<CollidableProxy> out = pairs.get(q);
+            for (int i = 0; i < this.active.size(); i++) {
+                CollidableProxy p = this.active.get(i);
+                if (p.maxX() < minX[q]) {
+                    // Queries are visited by increasing left edge, so this box can never overlap again.
+                    int last = this.active.size() - 1;
+                    this.active.set(i, this.active.get(last));
+                    this.active.remove(last);
+                    i--;
+                    continue;
+                }
+                if (p.minX() <= maxX[q] && p.minY() <= maxY[q] && p.maxY() >= minY[q]) {
+                    out.add(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops removed proxies, keeping the others in order.
+     */
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (!this.boxes[i].isRemoved()) {
+                this.boxes[kept++] = this.boxes[i];
+            }
+        }
+        Arrays.fill(this.boxes, kept, this.size, null);
+        this.size = kept;
+        this.removed = 0;
+    }
+
+    /**
+     * Drops removed proxies and restores the order by left edge with an insertion sort.
+     */
+    private void compactAndSort() {
+        if (this.removed > 0) {
+            compact();
+        }
+        for (int i = 1; i < this.size; i++) {
+            CollidableProxy p = this.boxes[i];
+            double key = p.minX();
+            int j = i - 1;
+            while (j >= 0 && this.boxes[j].minX() > key) {
+                this.boxes[j + 1] = this.boxes[j];
+                j--;
+            }
+            this.boxes[j + 1] = p;
+        }
+    }
+
+    /**
+     * Orders the query indices by left edge. When the batch has the same size as the last one,
+     * the previous order is the starting point, so coherent motion keeps the insertion sort cheap.
+     *
+     * @param minX  left edges of the query boxes.
+     * @param count the number of query boxes.
+     */
+    private void sortQueries(double[] minX, int count) {
+        if (this.queryOrder.length < count) {
+            this.queryOrder = new int[count];
+            this.lastQueryCount = -1;
+        }
+        if (count != this.lastQueryCount) {
+            for (int i = 0; i < count; i++) {
+                this.queryOrder[i] = i;
+            }
+            this.lastQueryCount = count;
+        }
+        for (int i = 1; i < count; i++) {
+            int q = this.queryOrder[i];
+            int j = i - 1;
+            while (j >= 0 && minX[this.queryOrder[j]] > minX[q]) {
+                this.queryOrder[j + 1] = this.queryOrder[j];
+                j--;
+            }
+            this.queryOrder[j + 1] = q;
+        }
+    }
+}
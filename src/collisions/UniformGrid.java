@@ -0,0 +1,109 @@
+package collisions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A UniformGrid buckets collidables by the fixed-size cells their bounds overlap,
+ * so a trajectory only has to look at the cells it actually passes through.
+ * Anything outside the covered area is clamped into the border cells.
+ */
+class UniformGrid extends CellGrid implements BroadPhase {
+    private final List<List<CollidableProxy>> cells;
+    private int stamp;
+    private List<CollidableProxy> out;
+
+    /**
+     * Constructs a grid covering the area [0, width] x [0, height].
+     *
+     * @param width    the width of the covered area.
+     * @param height   the height of the covered area.
+     * @param cellSize the edge length of a single cell.
+     */
+    UniformGrid(double width, double height, double cellSize) {
+        super(width, height, cellSize);
+        this.cells = new ArrayList<>(cellCount());
+        for (int i = 0; i < cellCount(); i++) {
+            this.cells.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Inserts a proxy into every cell its bounds overlap.
+     *
+     * @param p the proxy to insert.
+     */
+    @Override
+    public void insert(CollidableProxy p) {
+        int col0 = firstColOf(p.minX());
+        int row0 = firstRowOf(p.minY());
+        int col1 = lastColOf(p.maxX());
+        int row1 = lastRowOf(p.maxY());
+        p.setCellRange(col0, row0, col1, row1);
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                this.cells.get(row * columns() + col).add(p);
+            }
+        }
+    }
+
+    /**
+     * Removes a proxy from all the cells it was inserted into.
+     *
+     * @param p the proxy to remove.
+     */
+    @Override
+    public void remove(CollidableProxy p) {
+        for (int row = p.firstRow(); row <= p.lastRow(); row++) {
+            for (int col = p.firstCol(); col <= p.lastCol(); col++) {
+                this.cells.get(row * columns() + col).remove(p);
+            }
+        }
+    }
+
+    /**
+     * Moves a proxy from its old cells to the cells its refreshed bounds overlap.
+     *
+     * @param p the proxy that moved.
+     */
+    @Override
+    public void update(CollidableProxy p) {
+        remove(p);
+        insert(p);
+    }
+
+    /**
+     * Collects every proxy stored in the cells crossed by the segment (x0, y0) - (x1, y1),
+     * or lying within the given radius of it. Each proxy is reported once, in no particular order.
+     *
+     * @param x0     x of the segment start.
+     * @param y0     y of the segment start.
+     * @param x1     x of the segment end.
+     * @param y1     y of the segment end.
+     * @param radius how far from the segment a proxy may be and still count; 0 for a plain segment.
+     * @param list   the list the candidates are appended to.
+     */
+    @Override
+    public void query(double x0, double y0, double x1, double y1, double radius, List<CollidableProxy> list) {
+        this.stamp++;
+        this.out = list;
+        walk(x0, y0, x1, y1, radius);
+        this.out = null;
+    }
+
+    /**
+     * Appends the not-yet-visited proxies of a cell.
+     *
+     * @param cell the index of the cell.
+     */
+    @Override
+    protected void visitCell(int cell) {
+        List<CollidableProxy> bucket = this.cells.get(cell);
+        for (int i = 0; i < bucket.size(); i++) {
+            CollidableProxy p = bucket.get(i);
+            if (p.visit(this.stamp)) {
+                this.out.add(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package collisions;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The first pass of BoxArray written with the Vector API, so that it runs as many boxes per instruction
+ * as the widest vectors of the CPU hold, whether or not the JIT manages to vectorize the plain loop.
+ * The arithmetic is the same as the scalar loop's, lane for lane, and lanewise max and min propagate NaN
+ * like Math.max and Math.min, so removed boxes are rejected the same way.
+ * Only BoxArray refers to this class, and only when the jdk.incubator.vector module is present.
+ */
+final class VectorSlab {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Not instantiable.
+     */
+    private VectorSlab() {
+    }
+
+    /**
+     * Computes the slack of every box; see BoxArray.slabPass.
+     *
+     * @param nearX       the edge entered first on the x axis, per box.
+     * @param farX        the edge left last on the x axis, per box.
+     * @param nearY       the edge entered first on the y axis, per box.
+     * @param farY        the edge left last on the y axis, per box.
+     * @param nearOffsetX what to add to nearX before scaling.
+     * @param farOffsetX  what to add to farX before scaling.
+     * @param nearOffsetY what to add to nearY before scaling.
+     * @param farOffsetY  what to add to farY before scaling.
+     * @param invDx       the inverse of the x extent of the motion.
+     * @param invDy       the inverse of the y extent of the motion.
+     * @param out         receives the slack of every box.
+     */
+    static void pass(double[] nearX, double[] farX, double[] nearY, double[] farY,
+                     double nearOffsetX, double farOffsetX, double nearOffsetY, double farOffsetY,
+                     double invDx, double invDy, double[] out) {
+        DoubleVector nox = DoubleVector.broadcast(SPECIES, nearOffsetX);
+        DoubleVector fox = DoubleVector.broadcast(SPECIES, farOffsetX);
+        DoubleVector noy = DoubleVector.broadcast(SPECIES, nearOffsetY);
+        DoubleVector foy = DoubleVector.broadcast(SPECIES, farOffsetY);
+        DoubleVector ix = DoubleVector.broadcast(SPECIES, invDx);
+        DoubleVector iy = DoubleVector.broadcast(SPECIES, invDy);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(out.length); i < bound; i += SPECIES.length()) {
+            DoubleVector enter = DoubleVector.fromArray(SPECIES, nearX, i).add(nox).mul(ix)
+                    .max(DoubleVector.fromArray(SPECIES, nearY, i).add(noy).mul(iy));
+            DoubleVector exit = DoubleVector.fromArray(SPECIES, farX, i).add(fox).mul(ix)
+                    .min(DoubleVector.fromArray(SPECIES, farY, i).add(foy).mul(iy));
+            exit.sub(enter).min(exit).min(one.sub(enter)).intoArray(out, i);
+        }
+        for (; i < out.length; i++) {
+            double enter = Math.max((nearX[i] + nearOffsetX) * invDx, (nearY[i] + nearOffsetY) * invDy);
+            double exit = Math.min((farX[i] + farOffsetX) * invDx, (farY[i] + farOffsetY) * invDy);
+            out[i] = Math.min(Math.min(exit - enter, exit), 1 - enter);
+        }
+    }
+}
@@ -1,19 +1,25 @@
-package game;
-
-import biuoop.GUI;
-import java.util.ArrayList;
-import java.util.List;
-
-public class Ass5Game {
-    public static void main(String[] args) {
-        GUI gui = new GUI("Arkanoid", 800, 600);
-        GameFlow gameFlow = new GameFlow(gui);
-
-        List<LevelInformation> levels = new ArrayList<>();
-        levels.add(new Level1());
-        levels.add(new Level2());
-        levels.add(new Level3());
-
-        gameFlow.runLevels(levels);
-    }
-}
+package game;
+
+import biuoop.GUI;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Ass5Game {
+    public static void main(String[] args) {
+        GUI gui = new GUI("Arkanoid", 800, 600);
+        GameFlow gameFlow = new GameFlow(gui);
+        if (args.length > 0) {
+            // Record the input of every level, to be replayed with ReplayGame.
+            gameFlow.setRecording(args[0]);
+        }
+        // -Drewind.mb=N keeps N MB of history per level; holding the down key then plays the game backwards.
+        gameFlow.setRewindMemory(Integer.getInteger("rewind.mb", 0) << 20);
+
+        List<LevelInformation> levels = new ArrayList<>();
+        levels.add(new Level1());
+        levels.add(new Level2());
+        levels.add(new Level3());
+
+        gameFlow.runLevels(levels);
+    }
+}
@@ -0,0 +1,33 @@
+package game;
+
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+// Plays a level many times headless, in parallel, and prints the summary.
+// Usage: BatchGame [games] [level 1-3] [tracking|random] [max ticks per game]
+public class BatchGame {
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int levelNumber = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        String policy = args.length > 2 ? args[2] : "tracking";
+        long maxTicks = args.length > 3 ? Long.parseLong(args[3]) : 100_000L;
+
+        Supplier<LevelInformation> levels;
+        switch (levelNumber) {
+            case 1: levels = Level1::new; break;
+            case 2: levels = Level2::new; break;
+            case 3: levels = Level3::new; break;
+            default: throw new IllegalArgumentException("No level " + levelNumber);
+        }
+        LongFunction<InputPolicy> policies;
+        switch (policy) {
+            case "tracking": policies = TrackingInput::new; break;
+            case "random": policies = RandomInput::new; break;
+            default: throw new IllegalArgumentException("No input policy " + policy);
+        }
+
+        BatchRunner runner = new BatchRunner(levels, policies);
+        runner.setMaxTicks(maxTicks);
+        System.out.println(runner.run(games, 1).report());
+    }
+}
@@ -0,0 +1,89 @@
+package game;
+
+import utils.Counter;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+// Plays many independent headless games of one level in parallel on a fork-join pool.
+// Every game gets its own level, counters and input policy (made from its seed), so the games share
+// nothing mutable and the work spreads over the cores. Results are folded into the summary on the
+// calling thread as each game finishes.
+public class BatchRunner {
+    private final Supplier<LevelInformation> levels;
+    private final LongFunction<InputPolicy> policies;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long maxTicks = 100_000L;
+    private Consumer<GameLevel> setup;
+
+    public BatchRunner(Supplier<LevelInformation> levels, LongFunction<InputPolicy> policies) {
+        this.levels = levels;
+        this.policies = policies;
+    }
+
+    public void setParallelism(int threads) {
+        this.parallelism = Math.max(1, threads);
+    }
+
+    // A game that has not ended after this many ticks counts as not cleared.
+    public void setMaxTicks(long limit) {
+        this.maxTicks = limit;
+    }
+
+    // Called on every level before it is initialized, for example to choose its collision mode.
+    public void setSetup(Consumer<GameLevel> setup) {
+        this.setup = setup;
+    }
+
+    public BatchSummary run(int games, long firstSeed) {
+        return run(games, firstSeed, null);
+    }
+
+    public BatchSummary run(int games, long firstSeed, Consumer<GameResult> onResult) {
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        long start = System.nanoTime();
+        try {
+            CompletionService<GameResult> done = new ExecutorCompletionService<>(pool);
+            for (int i = 0; i < games; i++) {
+                long seed = firstSeed + i;
+                done.submit(() -> play(seed));
+            }
+            BatchSummary summary = new BatchSummary();
+            for (int i = 0; i < games; i++) {
+                GameResult result = done.take().get();
+                summary.add(result);
+                if (onResult != null) {
+                    onResult.accept(result);
+                }
+            }
+            summary.setWallNanos(System.nanoTime() - start);
+            return summary;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The batch was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public GameResult play(long seed) {
+        Counter score = new Counter();
+        Counter lives = new Counter();
+        GameLevel level = new GameLevel(this.levels.get(), this.policies.apply(seed), score, lives);
+        level.setVerbose(false);
+        level.setMaxTicks(this.maxTicks);
+        if (this.setup != null) {
+            this.setup.accept(level);
+        }
+        level.initialize();
+        boolean cleared = level.run();
+        return new GameResult(seed, cleared, level.getTicks(), score.getValue(), level.getBallsLost());
+    }
+}
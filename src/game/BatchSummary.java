@@ -0,0 +1,75 @@
+package game;
+
+// Aggregates game results as they arrive. Only the thread collecting the results touches it.
+public class BatchSummary {
+    private int games;
+    private int cleared;
+    private long totalTicks;
+    private long clearTicks;
+    private long minClearTicks = Long.MAX_VALUE;
+    private long maxClearTicks;
+    private long totalScore;
+    private long totalBallsLost;
+    private long wallNanos;
+
+    public void add(GameResult result) {
+        this.games++;
+        this.totalTicks += result.getTicks();
+        this.totalScore += result.getScore();
+        this.totalBallsLost += result.getBallsLost();
+        if (result.isCleared()) {
+            this.cleared++;
+            this.clearTicks += result.getTicks();
+            this.minClearTicks = Math.min(this.minClearTicks, result.getTicks());
+            this.maxClearTicks = Math.max(this.maxClearTicks, result.getTicks());
+        }
+    }
+
+    public void setWallNanos(long nanos) {
+        this.wallNanos = nanos;
+    }
+
+    public int getGames() {
+        return this.games;
+    }
+
+    public int getCleared() {
+        return this.cleared;
+    }
+
+    public double getClearRate() {
+        return this.games == 0 ? 0 : (double) this.cleared / this.games;
+    }
+
+    public double getMeanTicksToClear() {
+        return this.cleared == 0 ? 0 : (double) this.clearTicks / this.cleared;
+    }
+
+    public double getMeanScore() {
+        return this.games == 0 ? 0 : (double) this.totalScore / this.games;
+    }
+
+    public double getMeanBallsLost() {
+        return this.games == 0 ? 0 : (double) this.totalBallsLost / this.games;
+    }
+
+    public long getTotalTicks() {
+        return this.totalTicks;
+    }
+
+    public double getTicksPerSecond() {
+        return this.wallNanos == 0 ? 0 : this.totalTicks * 1e9 / this.wallNanos;
+    }
+
+    public String report() {
+        String lineSeparator = System.lineSeparator();
+        return String.format("games:          %d", this.games) + lineSeparator
+                + String.format("clear rate:     %.1f%% (%d)", getClearRate() * 100, this.cleared) + lineSeparator
+                + String.format("ticks to clear: mean %.0f, min %d, max %d", getMeanTicksToClear(),
+                        this.cleared == 0 ? 0 : this.minClearTicks, this.maxClearTicks) + lineSeparator
+                + String.format("score:          mean %.1f", getMeanScore()) + lineSeparator
+                + String.format("balls lost:     mean %.2f", getMeanBallsLost()) + lineSeparator
+                + String.format("simulated:      %d ticks in %.3f s (%.0f ticks/s)", this.totalTicks,
+                        this.wallNanos / 1e9, getTicksPerSecond());
+    }
+}
@@ -1,38 +1,111 @@
-package game;
-
-import biuoop.GUI;
-import java.util.List;
-import utils.Counter;
-
-public class GameFlow {
-    private GUI gui;
-    private Counter score;
-    private Counter lives;
-
-    public GameFlow(GUI gui) {
-        this.gui = gui;
-        this.score = new Counter();
-        this.lives = new Counter();
-        this.lives.increase(3);
-    }
-
-    public void runLevels(List<LevelInformation> levels) {
-        for (LevelInformation levelInfo : levels) {
-            GameLevel level = new GameLevel(levelInfo, gui, this.score, this.lives);
-
-            level.initialize();
-            boolean finished = level.run();
-
-
-            if (!finished || level.isPlayerDead()) {
-                System.out.println("Game Over! Your score: " + score.getValue());
-                gui.close();
-                return;
-            }
-        }
-
-        System.out.println("You Win! Final score: " + score.getValue());
-        gui.close();
-    }
-
-}
+package game;
+
+import biuoop.GUI;
+import biuoop.KeyboardSensor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import utils.Counter;
+
+public class GameFlow {
+    private GUI gui;
+    private KeyboardSensor keyboard;
+    private Counter score;
+    private Counter lives;
+    private long maxTicks;
+    private String recordingPrefix;
+    private int rewindMemory;
+
+    public GameFlow(GUI gui) {
+        this(gui.getKeyboardSensor());
+        this.gui = gui;
+    }
+
+    // Runs the levels headless, reading input from the given sensor.
+    public GameFlow(KeyboardSensor keyboard) {
+        this.keyboard = keyboard;
+        this.score = new Counter();
+        this.lives = new Counter();
+        this.lives.increase(3);
+    }
+
+    public void setMaxTicks(long limit) {
+        this.maxTicks = limit;
+    }
+
+    // Records every level's input to <prefix>-<level number>.arklog, for ReplayGame.
+    public void setRecording(String prefix) {
+        this.recordingPrefix = prefix;
+    }
+
+    // Lets every level be rewound by holding the down key, keeping its history in about this many bytes.
+    public void setRewindMemory(int bytes) {
+        this.rewindMemory = bytes;
+    }
+
+    public Counter getScore() {
+        return this.score;
+    }
+
+    public void runLevels(List<LevelInformation> levels) {
+        int number = 0;
+        for (LevelInformation levelInfo : levels) {
+            number++;
+            GameLevel level = gui != null
+                    ? new GameLevel(levelInfo, gui, this.score, this.lives)
+                    : new GameLevel(levelInfo, keyboard, this.score, this.lives);
+            level.setMaxTicks(this.maxTicks);
+            // A recording only goes forward, so a recorded level cannot be rewound.
+            level.setRewindMemory(this.recordingPrefix == null ? this.rewindMemory : 0);
+            InputRecorder recorder = null;
+            if (this.recordingPrefix != null) {
+                recorder = startRecording(this.recordingPrefix + "-" + number + ".arklog");
+                level.setInputPolicy(recorder);
+            }
+
+            level.initialize();
+            boolean finished;
+            try {
+                finished = level.run();
+            } finally {
+                if (recorder != null) {
+                    stopRecording(recorder);
+                }
+            }
+
+
+            if (!finished || level.isPlayerDead()) {
+                System.out.println("Game Over! Your score: " + score.getValue());
+                close();
+                return;
+            }
+        }
+
+        System.out.println("You Win! Final score: " + score.getValue());
+        close();
+    }
+
+    private InputRecorder startRecording(String path) {
+        try {
+            return new InputRecorder(keyboard, new FileOutputStream(path), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void stopRecording(InputRecorder recorder) {
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void close() {
+        if (gui != null) {
+            gui.close();
+        }
+    }
+
+}
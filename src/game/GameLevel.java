@@ -1,172 +1,969 @@
-package game;
-
-import biuoop.GUI;
-import biuoop.DrawSurface;
-import biuoop.Sleeper;
-import biuoop.KeyboardSensor;
-
-import java.awt.Color;
-import java.util.List;
-
-import sprites.Ball;
-import sprites.BallRemover;
-import sprites.Paddle;
-import sprites.ScoreIndicator;
-import sprites.Sprite;
-import sprites.SpriteCollection;
-
-import geometry.Point;
-import geometry.Rectangle;
-import geometry.Velocity;
-
-import collisions.Collidable;
-import collisions.GameEnvironment;
-
-import blocks.Block;
-import blocks.BlockRemover;
-import blocks.ScoreTrackingListener;
-
-import utils.Counter;
-
-public class GameLevel {
-    private LevelInformation levelInfo;
-    private SpriteCollection sprites;
-    private GameEnvironment environment;
-    private GUI gui;
-    private KeyboardSensor keyboard;
-    private Counter remainingBlocks;
-    private Counter remainingBalls;
-    private Counter lives;
-    private Counter score;
-
-    public GameLevel(LevelInformation levelInfo, GUI gui, Counter score, Counter lives) {
-        this.levelInfo = levelInfo;
-        this.gui = gui;
-        this.sprites = new SpriteCollection();
-        this.environment = new GameEnvironment();
-        this.remainingBlocks = new Counter();
-        this.remainingBalls = new Counter();
-        this.score = score;
-        this.lives = lives;
-        this.keyboard = gui.getKeyboardSensor();
-    }
-
-    public void addCollidable(Collidable c) {
-        this.environment.addCollidable(c);
-    }
-
-    public void addSprite(Sprite s) {
-        this.sprites.addSprite(s);
-    }
-
-    public void removeSprite(Sprite s) {
-        this.sprites.removeSprite(s);
-    }
-
-    public void removeCollidable(Collidable c) {
-        this.environment.removeCollidable(c);
-    }
-
-    public void initialize() {
-        ScoreTrackingListener scoreTracker = new ScoreTrackingListener(this.score);
-        BallRemover ballRemover = new BallRemover(this, this.remainingBalls);
-        BlockRemover blockRemover = new BlockRemover(this, this.remainingBlocks);
-
-
-        this.addSprite(levelInfo.getBackground());
-
-
-        List<Velocity> ballVelocities = levelInfo.initialBallVelocities();
-        for (int i = 0; i < levelInfo.numberOfBalls(); i++) {
-            Ball ball = new Ball(new Point(400, 400), 5, Color.WHITE);
-            ball.setVelocity(ballVelocities.get(i));
-            ball.setGameEnvironment(this.environment);
-            ball.addToGame(this);
-            this.remainingBalls.increase(1);
-        }
-
-
-        Rectangle paddleRect = new Rectangle(new Point(350, 560), levelInfo.paddleWidth(), 20);
-        Paddle paddle = new Paddle(paddleRect, Color.ORANGE, keyboard, levelInfo.paddleSpeed(), 800);
-        paddle.addToGame(this);
-
-
-        Block top = new Block(new Rectangle(new Point(0, 0), 800, 25), Color.GRAY);
-        Block left = new Block(new Rectangle(new Point(0, 25), 20, 575), Color.GRAY);
-        Block right = new Block(new Rectangle(new Point(780, 25), 20, 575), Color.GRAY);
-        for (Block wall : new Block[]{top, left, right}) {
-            wall.addToGame(this);
-        }
-
-
-        Block deathBlock = new Block(new Rectangle(new Point(0, 580), 800, 20), Color.GRAY, true);
-        deathBlock.addHitListener(ballRemover);
-        deathBlock.addToGame(this);
-
-
-        for (Block block : levelInfo.blocks()) {
-            block.addToGame(this);
-            block.addHitListener(blockRemover);
-            block.addHitListener(scoreTracker);
-            this.remainingBlocks.increase(1);
-        }
-
-
-        ScoreIndicator scoreDisplay = new ScoreIndicator(this.score, levelInfo.levelName());
-        this.addSprite(scoreDisplay);
-
-
-        this.lives.increase(3);
-    }
-
-    public boolean run() {
-        Sleeper sleeper = new Sleeper();
-        int fps = 60;
-        int msPerFrame = 1000 / fps;
-
-        while (true) {
-            long start = System.currentTimeMillis();
-
-            DrawSurface d = gui.getDrawSurface();
-            this.sprites.drawAllOn(d);
-            gui.show(d);
-            this.sprites.notifyAllTimePassed();
-
-
-            if (remainingBlocks.getValue() == 0) {
-                score.increase(100);
-                System.out.println("שלב הסתיים! ניקוד: " + score.getValue());
-                return true;
-            }
-
-
-            if (remainingBalls.getValue() == 0) {
-                lives.decrease(1);
-                if (lives.getValue() == 0) {
-                    System.out.println("Game Over. ניקוד: " + score.getValue());
-                    return false;
-                } else {
-                    return false;
-                }
-            }
-
-            long used = System.currentTimeMillis() - start;
-            long leftToSleep = msPerFrame - used;
-            if (leftToSleep > 0) {
-                sleeper.sleepFor(leftToSleep);
-            }
-        }
-    }
-
-    public boolean isPlayerDead() {
-        return this.lives.getValue() <= 0;
-    }
-
-    public Counter getScore() {
-        return this.score;
-    }
-
-    public boolean isGameOver() {
-        return lives.getValue() <= 0;
-    }
-}
+package game;
+
+import biuoop.GUI;
+import biuoop.DrawSurface;
+import biuoop.KeyboardSensor;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import sprites.Ball;
+import sprites.BatchingDrawSurface;
+import sprites.CachedBackground;
+import sprites.DirtyRectRenderer;
+import sprites.DisplayList;
+import sprites.BallRemover;
+import sprites.BallSystem;
+import sprites.Paddle;
+import sprites.ScoreIndicator;
+import sprites.Sprite;
+import sprites.SpriteCollection;
+import sprites.TurboIndicator;
+
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+
+import collisions.Collidable;
+import collisions.CollisionInfo;
+import collisions.CollisionScheduler;
+import collisions.GameEnvironment;
+
+import blocks.Block;
+import blocks.BlockField;
+import blocks.BlockRemover;
+import blocks.ScoreTrackingListener;
+
+import utils.Counter;
+import utils.FramePacer;
+import utils.RewindBuffer;
+import utils.TripleBuffer;
+
+public class GameLevel {
+    // Level speeds are given in pixels per tick at this rate.
+    private static final int BASE_TICK_RATE = 60;
+    // A longer pause (a stall, a dragged window) is not caught up on.
+    private static final long MAX_FRAME_NANOS = 250_000_000L;
+    // In turbo mode the ticks of a frame may take this share of it, leaving the rest for drawing.
+    private static final double TURBO_BUDGET = 0.75;
+    private static final long TURBO_REPORT_NANOS = 500_000_000L;
+    // A ball in the saved state: in play, position, velocity, moving, colour.
+    private static final int BALL_STATE_SIZE = 1 + 4 * 8 + 1 + 4;
+
+    private LevelInformation levelInfo;
+    private SpriteCollection sprites;
+    private GameEnvironment environment;
+    private GUI gui;
+    private KeyboardSensor keyboard;
+    private InputPolicy inputPolicy;
+    private Paddle paddle;
+    private Counter remainingBlocks;
+    private Counter remainingBalls;
+    private Counter lives;
+    private Counter score;
+    private boolean sweptCollision;
+    private boolean eventDriven;
+    private CollisionScheduler scheduler;
+    private boolean batchedCollisions;
+    private boolean blockField;
+    private boolean dirtyRendering;
+    private DirtyRectRenderer renderer;
+    private BatchingDrawSurface batcher;
+    private boolean useBallSystem;
+    private BallSystem ballSystem;
+    private List<Ball> balls;
+    // The batched query's buffers, one entry per ball in play; they only grow.
+    private double[] pathX0 = new double[0];
+    private double[] pathY0 = new double[0];
+    private double[] pathX1 = new double[0];
+    private double[] pathY1 = new double[0];
+    private double[] pathRadii = new double[0];
+    private CollisionInfo[] pathHits = new CollisionInfo[0];
+    private boolean[] pathFound = new boolean[0];
+    private List<Ball> allBalls;
+    // Bit i is set while allBalls.get(i) is in play, so the state can tell without searching balls.
+    // A ball knows its i (Ball.getGameIndex), and balls is rebuilt from the bits when it is next used.
+    private BitSet ballsInPlay;
+    private boolean ballsStale;
+    // Removed sprites, collidables and balls remember their places once a state has been saved or loaded;
+    // lostOrders tells whether something was removed before that, so its place is unknown.
+    private boolean keepsRemovedOrder;
+    private boolean lostOrders;
+    private List<Block> levelBlocks;
+    private BlockField field;
+    private long ticks;
+    private int tickRate = BASE_TICK_RATE;
+    private int frameRate = 60;
+    private FramePacer pacer;
+    private boolean renderThread;
+    private boolean headlessDrawing;
+    private long maxTicks;
+    private double ticksPerSecond;
+    private boolean verbose = true;
+    private int turbo = 1;
+    private double effectiveTurbo = 1;
+    private double tickCost;
+    private long turboTicks;
+    private long turboWindowStart;
+    private TurboIndicator turboIndicator;
+    private int rewindMemory;
+    private RewindBuffer history;
+    private byte[] state;
+    private ByteBuffer stateBuffer;
+
+    public GameLevel(LevelInformation levelInfo, GUI gui, Counter score, Counter lives) {
+        this(levelInfo, gui.getKeyboardSensor(), score, lives);
+        this.gui = gui;
+    }
+
+    // A headless level: no window, input from the given sensor, and run() simulates as fast as it can.
+    // An InputPolicy as the sensor is asked for its keys before every tick.
+    public GameLevel(LevelInformation levelInfo, KeyboardSensor keyboard, Counter score, Counter lives) {
+        this.levelInfo = levelInfo;
+        this.sprites = new SpriteCollection();
+        this.environment = new GameEnvironment();
+        this.remainingBlocks = new Counter();
+        this.remainingBalls = new Counter();
+        this.score = score;
+        this.lives = lives;
+        this.keyboard = keyboard;
+        this.inputPolicy = keyboard instanceof InputPolicy ? (InputPolicy) keyboard : null;
+        this.balls = new ArrayList<>();
+        this.allBalls = new ArrayList<>();
+        this.ballsInPlay = new BitSet();
+        this.levelBlocks = new ArrayList<>();
+        this.batcher = new BatchingDrawSurface();
+        this.batcher.setBatching(false);
+    }
+
+    public void setSweptCollision(boolean swept) {
+        this.sweptCollision = swept;
+    }
+
+    public void setEventDriven(boolean eventDriven) {
+        this.eventDriven = eventDriven;
+    }
+
+    public void setBatchedCollisions(boolean batched) {
+        this.batchedCollisions = batched;
+    }
+
+    public void setBlockField(boolean useField) {
+        this.blockField = useField;
+    }
+
+    public void setBallSystem(boolean useSystem) {
+        this.useBallSystem = useSystem;
+    }
+
+    public void setTickRate(int ticksPerSecond) {
+        this.tickRate = Math.max(1, ticksPerSecond);
+    }
+
+    public void setFrameRate(int framesPerSecond) {
+        this.frameRate = Math.max(1, framesPerSecond);
+    }
+
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    public void setHeadlessDrawing(boolean draw) {
+        this.headlessDrawing = draw;
+    }
+
+    public void setMaxTicks(long limit) {
+        this.maxTicks = limit;
+    }
+
+    public double getTicksPerSecond() {
+        return this.ticksPerSecond;
+    }
+
+    // Keeps the state of every tick in about this many bytes, delta-encoded, for rewind();
+    // holding the down key then plays the game backwards. Call before initialize().
+    public void setRewindMemory(int bytes) {
+        this.rewindMemory = bytes;
+    }
+
+    public RewindBuffer getHistory() {
+        return this.history;
+    }
+
+    // Puts the level back by this many ticks, as far as the history goes. Returns how many it went back.
+    public int rewind(int ticksBack) {
+        int age = Math.min(ticksBack, this.history.size() - 1);
+        if (age <= 0) {
+            return 0;
+        }
+        this.history.rewind(age, this.state);
+        this.stateBuffer.clear();
+        loadState(this.stateBuffer);
+        return age;
+    }
+
+    private void recordHistory() {
+        this.stateBuffer.clear();
+        saveState(this.stateBuffer);
+        this.history.push(this.state);
+    }
+
+    // Whether the level prints its result (and, headless, its ticks per second) when it ends.
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    // Reads the paddle's input from the given policy instead, e.g. to record it. Call before initialize().
+    public void setInputPolicy(InputPolicy policy) {
+        this.keyboard = policy;
+        this.inputPolicy = policy;
+    }
+
+    public List<Ball> getBalls() {
+        return this.ballsInPlay();
+    }
+
+    // The balls in play, in their order among all balls.
+    private List<Ball> ballsInPlay() {
+        if (this.ballsStale) {
+            this.balls.clear();
+            for (int b = this.ballsInPlay.nextSetBit(0); b >= 0; b = this.ballsInPlay.nextSetBit(b + 1)) {
+                this.balls.add(this.allBalls.get(b));
+            }
+            this.ballsStale = false;
+        }
+        return this.balls;
+    }
+
+    public Paddle getPaddle() {
+        return this.paddle;
+    }
+
+    public String getLevelName() {
+        return levelInfo.levelName();
+    }
+
+    public int getTickRate() {
+        return this.tickRate;
+    }
+
+    // The collision and update modes, as bits, so a recording can be replayed with the same ones.
+    int getModeFlags() {
+        return (this.sweptCollision ? InputLog.SWEPT : 0) | (this.eventDriven ? InputLog.EVENT_DRIVEN : 0)
+                | (this.batchedCollisions ? InputLog.BATCHED : 0) | (this.blockField ? InputLog.BLOCK_FIELD : 0)
+                | (this.useBallSystem ? InputLog.BALL_SYSTEM : 0);
+    }
+
+    void setModeFlags(int flags) {
+        this.sweptCollision = (flags & InputLog.SWEPT) != 0;
+        this.eventDriven = (flags & InputLog.EVENT_DRIVEN) != 0;
+        this.batchedCollisions = (flags & InputLog.BATCHED) != 0;
+        this.blockField = (flags & InputLog.BLOCK_FIELD) != 0;
+        this.useBallSystem = (flags & InputLog.BALL_SYSTEM) != 0;
+    }
+
+    // The size of the game state in bytes. It is the same for the whole level,
+    // so the states of one level line up byte for byte.
+    public int getStateSize() {
+        int blockCount = this.field != null ? this.field.getCellCount() : this.levelBlocks.size();
+        return 8 + 4 * 4 + 8 + this.allBalls.size() * BALL_STATE_SIZE + (blockCount + 7) / 8;
+    }
+
+    // Writes everything the simulation depends on: ticks, counters, paddle, balls and the blocks still standing.
+    public void saveState(ByteBuffer out) {
+        this.keepRemovedOrder();
+        out.putLong(this.ticks);
+        out.putInt(this.score.getValue());
+        out.putInt(this.remainingBlocks.getValue());
+        out.putInt(this.remainingBalls.getValue());
+        out.putInt(this.lives.getValue());
+        out.putDouble(this.paddle.getCollisionRectangle().getMinX());
+        for (int b = 0; b < this.allBalls.size(); b++) {
+            Ball ball = this.allBalls.get(b);
+            if (!this.ballsInPlay.get(b)) {
+                // Whatever a lost ball last held does not matter, so it is left out of the state.
+                for (int i = 0; i < BALL_STATE_SIZE; i++) {
+                    out.put((byte) 0);
+                }
+                continue;
+            }
+            Point center = ball.getCenter();
+            Velocity v = ball.getVelocity();
+            out.put((byte) 1);
+            out.putDouble(center.getX());
+            out.putDouble(center.getY());
+            out.putDouble(v != null ? v.getDx() : 0);
+            out.putDouble(v != null ? v.getDy() : 0);
+            out.put((byte) (v != null ? 1 : 0));
+            out.putInt(ball.getColor().getRGB());
+        }
+        int blockCount = this.field != null ? this.field.getCellCount() : this.levelBlocks.size();
+        for (int i = 0; i < blockCount; i += 8) {
+            int bits = 0;
+            for (int j = i; j < Math.min(i + 8, blockCount); j++) {
+                boolean standing = this.field != null ? this.field.isAlive(j)
+                        : this.sprites.contains(this.levelBlocks.get(j));
+                bits |= (standing ? 1 : 0) << (j - i);
+            }
+            out.put((byte) bits);
+        }
+    }
+
+    // Puts the level into a state written by saveState, earlier or later in the same level, in place:
+    // balls and blocks that are gone are taken out, and those that came back are put back where they were,
+    // so the game goes on exactly as it did from that state. (Event-driven levels predict their balls' impacts
+    // afresh from the restored state, so they go on from it in the same way up to rounding.)
+    // Throws IllegalStateException, leaving the level as it was, if the state brings back a ball or block
+    // that was removed before this level first saved or loaded a state, since its place was not kept.
+    public void loadState(ByteBuffer in) {
+        if (this.lostOrders && this.restoresLostObjects(in)) {
+            throw new IllegalStateException("The state brings back a ball or block removed before the level"
+                    + " first saved or loaded a state, so its place in the game is unknown");
+        }
+        this.keepRemovedOrder();
+        this.ticks = in.getLong();
+        setCounter(this.score, in.getInt());
+        setCounter(this.remainingBlocks, in.getInt());
+        setCounter(this.remainingBalls, in.getInt());
+        setCounter(this.lives, in.getInt());
+        this.paddle.moveTo(in.getDouble());
+        if (this.scheduler != null) {
+            // The predicted impacts belong to the old paths; the balls are scheduled afresh below.
+            this.scheduler.restart(this.ticks);
+        }
+        boolean ballsChanged = false;
+        for (int b = 0; b < this.allBalls.size(); b++) {
+            Ball ball = this.allBalls.get(b);
+            boolean inPlay = in.get() != 0;
+            double x = in.getDouble();
+            double y = in.getDouble();
+            double dx = in.getDouble();
+            double dy = in.getDouble();
+            boolean moving = in.get() != 0;
+            int rgb = in.getInt();
+            if (!inPlay) {
+                if (this.ballsInPlay.get(b)) {
+                    this.ballsInPlay.clear(b);
+                    this.detachBall(ball);
+                    ballsChanged = true;
+                }
+                continue;
+            }
+            if (!this.ballsInPlay.get(b)) {
+                this.ballsInPlay.set(b);
+                this.attachBall(ball);
+                ballsChanged = true;
+            }
+            ball.setCenter(x, y);
+            if (moving) {
+                ball.setVelocity(dx, dy);
+            } else {
+                ball.setVelocity(null);
+            }
+            if (ball.getColor().getRGB() != rgb) {
+                ball.setColor(new Color(rgb));
+            }
+        }
+        if (ballsChanged) {
+            this.ballsStale = true;
+        }
+        if (this.scheduler != null) {
+            for (Ball ball : this.ballsInPlay()) {
+                this.scheduler.addBall(ball);
+            }
+        }
+        boolean restoredBlocks = false;
+        int blockCount = this.field != null ? this.field.getCellCount() : this.levelBlocks.size();
+        for (int i = 0; i < blockCount; i += 8) {
+            int bits = in.get();
+            for (int j = i; j < Math.min(i + 8, blockCount); j++) {
+                boolean standing = (bits & (1 << (j - i))) != 0;
+                if (this.field != null) {
+                    if (standing) {
+                        this.field.restoreBrick(j);
+                    } else {
+                        this.field.removeBrick(j);
+                    }
+                    continue;
+                }
+                Block block = this.levelBlocks.get(j);
+                if (!standing && this.sprites.contains(block)) {
+                    block.removeFromGame(this);
+                } else if (standing && !this.sprites.contains(block)) {
+                    block.addToGame(this);
+                    restoredBlocks = true;
+                }
+            }
+        }
+        if (restoredBlocks) {
+            this.environment.buildStaticIndex();
+        }
+        if (this.renderer != null) {
+            this.renderer.invalidate();
+        }
+    }
+
+    // From now on removed sprites, collidables and balls remember their places, so loadState can put them back.
+    private void keepRemovedOrder() {
+        if (this.keepsRemovedOrder) {
+            return;
+        }
+        this.keepsRemovedOrder = true;
+        this.sprites.setKeepRemovedOrder(true);
+        this.environment.setKeepRemovedOrder(true);
+        if (this.ballSystem != null) {
+            this.ballSystem.setKeepRemovedOrder(true);
+        }
+    }
+
+    // Whether loading the given state would bring back a ball or block that is out of the game now.
+    // Reads the state without moving the buffer's position.
+    private boolean restoresLostObjects(ByteBuffer in) {
+        int at = in.position() + 8 + 4 * 4 + 8;
+        for (int b = 0; b < this.allBalls.size(); b++, at += BALL_STATE_SIZE) {
+            if (in.get(at) != 0 && !this.ballsInPlay.get(b)) {
+                return true;
+            }
+        }
+        if (this.field != null) {
+            // Bricks of a block field are cells of one collidable, and have no place of their own.
+            return false;
+        }
+        for (int j = 0; j < this.levelBlocks.size(); j++) {
+            boolean standing = (in.get(at + j / 8) & (1 << (j % 8))) != 0;
+            if (standing && !this.sprites.contains(this.levelBlocks.get(j))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Puts a lost ball back into the game; the caller sets its bit in ballsInPlay.
+    private void attachBall(Ball ball) {
+        if (this.ballSystem != null) {
+            this.ballSystem.add(ball);
+        } else {
+            this.addSprite(ball);
+        }
+    }
+
+    // Takes a ball out of the game; the caller clears its bit in ballsInPlay.
+    private void detachBall(Ball ball) {
+        if (ball.getSystem() != null) {
+            this.lostOrders |= !this.keepsRemovedOrder;
+            ball.getSystem().remove(ball);
+        } else {
+            this.removeSprite(ball);
+        }
+        if (this.scheduler != null) {
+            this.scheduler.removeBall(ball);
+        }
+    }
+
+    private static void setCounter(Counter counter, int value) {
+        counter.increase(value - counter.getValue());
+    }
+
+    public boolean isCleared() {
+        return remainingBlocks.getValue() == 0;
+    }
+
+    public int getBallsLost() {
+        return levelInfo.numberOfBalls() - remainingBalls.getValue();
+    }
+
+    // Runs the game up to this many times faster than real time, drawing once per frame as usual.
+    // The multiplier drops by itself to whatever rate the machine can keep up.
+    public void setTurbo(int multiplier) {
+        this.turbo = Math.max(1, multiplier);
+    }
+
+    public double getEffectiveTurbo() {
+        return this.effectiveTurbo;
+    }
+
+    public void setRenderThread(boolean separate) {
+        this.renderThread = separate;
+    }
+
+    public FramePacer getPacer() {
+        return this.pacer;
+    }
+
+    public void setDirtyRendering(boolean dirty) {
+        this.dirtyRendering = dirty;
+    }
+
+    public void setBatchedDrawing(boolean batched) {
+        this.batcher.setBatching(batched);
+    }
+
+    public long getDrawCalls() {
+        return this.batcher.getDrawCalls();
+    }
+
+    public long getColorSwitches() {
+        return this.batcher.getColorSwitches();
+    }
+
+    public long getPixelsRedrawn() {
+        return this.renderer != null ? this.renderer.getPixelsRedrawn() : 800L * 600L;
+    }
+
+    public void addCollidable(Collidable c) {
+        this.environment.addCollidable(c);
+    }
+
+    public void addDynamicCollidable(Collidable c) {
+        this.environment.addDynamicCollidable(c);
+    }
+
+    public void addSprite(Sprite s) {
+        this.sprites.addSprite(s);
+    }
+
+    public void removeSprite(Sprite s) {
+        this.lostOrders |= !this.keepsRemovedOrder;
+        this.sprites.removeSprite(s);
+    }
+
+    public void removeCollidable(Collidable c) {
+        this.lostOrders |= !this.keepsRemovedOrder;
+        this.environment.removeCollidable(c);
+    }
+
+    // Returns false if the ball was already out of play, so a ball is never counted as lost twice.
+    public boolean removeBall(Ball ball) {
+        int index = ball.getGameIndex();
+        if (index < 0 || index >= this.allBalls.size() || this.allBalls.get(index) != ball
+                || !this.ballsInPlay.get(index)) {
+            return false;
+        }
+        this.ballsInPlay.clear(index);
+        this.ballsStale = true;
+        this.detachBall(ball);
+        return true;
+    }
+
+    // Throws IllegalStateException for modes that cannot be combined: event-driven balls are moved
+    // by their scheduler and ball systems move their own, so neither goes with the other or with batching.
+    public void initialize() {
+        if (this.eventDriven && (this.useBallSystem || this.batchedCollisions)) {
+            throw new IllegalStateException("Event-driven balls cannot be in a ball system or batched");
+        }
+        if (this.useBallSystem && this.batchedCollisions) {
+            throw new IllegalStateException("Balls in a ball system cannot be batched");
+        }
+        ScoreTrackingListener scoreTracker = new ScoreTrackingListener(this.score);
+        BallRemover ballRemover = new BallRemover(this, this.remainingBalls);
+        BlockRemover blockRemover = new BlockRemover(this, this.remainingBlocks);
+
+
+        this.addSprite(new CachedBackground(levelInfo.getBackground()));
+
+
+        if (this.useBallSystem) {
+            this.ballSystem = new BallSystem();
+            this.ballSystem.setGameEnvironment(this.environment);
+            this.ballSystem.setSweptCollision(this.sweptCollision);
+            this.addSprite(this.ballSystem);
+        }
+        double stepScale = (double) BASE_TICK_RATE / this.tickRate;
+        List<Velocity> ballVelocities = levelInfo.initialBallVelocities();
+        for (int i = 0; i < levelInfo.numberOfBalls(); i++) {
+            Ball ball = new Ball(new Point(400, 400), 5, Color.WHITE);
+            Velocity v = ballVelocities.get(i);
+            ball.setVelocity(v.getDx() * stepScale, v.getDy() * stepScale);
+            ball.setGameEnvironment(this.environment);
+            ball.setSweptCollision(this.sweptCollision);
+            if (this.ballSystem != null) {
+                this.ballSystem.add(ball);
+            } else {
+                ball.addToGame(this);
+            }
+            this.balls.add(ball);
+            ball.setGameIndex(this.allBalls.size());
+            this.ballsInPlay.set(this.allBalls.size());
+            this.allBalls.add(ball);
+            this.remainingBalls.increase(1);
+        }
+
+
+        Rectangle paddleRect = new Rectangle(new Point(350, 560), levelInfo.paddleWidth(), 20);
+        this.paddle = new Paddle(paddleRect, Color.ORANGE, keyboard, levelInfo.paddleSpeed() * stepScale, 800);
+        this.paddle.setGameEnvironment(this.environment);
+        this.paddle.addToGame(this);
+
+
+        Block top = new Block(new Rectangle(new Point(0, 0), 800, 25), Color.GRAY);
+        Block left = new Block(new Rectangle(new Point(0, 25), 20, 575), Color.GRAY);
+        Block right = new Block(new Rectangle(new Point(780, 25), 20, 575), Color.GRAY);
+        for (Block wall : new Block[]{top, left, right}) {
+            wall.addToGame(this);
+        }
+
+
+        Block deathBlock = new Block(new Rectangle(new Point(0, 580), 800, 20), Color.GRAY, true);
+        deathBlock.addHitListener(ballRemover);
+        deathBlock.addToGame(this);
+
+
+        List<Block> blocks = levelInfo.blocks();
+        BlockField field = this.blockField ? BlockField.fromBlocks(blocks) : null;
+        this.field = field;
+        if (field != null) {
+            field.setGameEnvironment(this.environment);
+            field.addToGame(this);
+            field.addHitListener(blockRemover);
+            field.addHitListener(scoreTracker);
+            this.remainingBlocks.increase(field.getBrickCount());
+        } else {
+            for (Block block : blocks) {
+                this.levelBlocks.add(block);
+                block.addToGame(this);
+                block.addHitListener(blockRemover);
+                block.addHitListener(scoreTracker);
+                this.remainingBlocks.increase(1);
+            }
+        }
+
+
+        ScoreIndicator scoreDisplay = new ScoreIndicator(this.score, levelInfo.levelName());
+        this.addSprite(scoreDisplay);
+        if (this.turbo > 1) {
+            this.turboIndicator = new TurboIndicator();
+            this.turboIndicator.setRate(this.turbo, (double) this.turbo * this.tickRate);
+            this.addSprite(this.turboIndicator);
+        }
+
+
+        this.lives.increase(3);
+        this.environment.buildStaticIndex();
+        if (this.dirtyRendering) {
+            this.renderer = new DirtyRectRenderer(800, 600);
+            this.renderer.setBatcher(this.batcher);
+        }
+
+
+        if (this.eventDriven) {
+            this.scheduler = new CollisionScheduler(this.environment);
+            for (Ball ball : this.balls) {
+                this.scheduler.addBall(ball);
+            }
+        }
+        if (this.rewindMemory > 0) {
+            this.state = new byte[getStateSize()];
+            this.stateBuffer = ByteBuffer.wrap(this.state);
+            this.history = new RewindBuffer(this.state.length, this.rewindMemory);
+            recordHistory();
+        }
+    }
+
+    public boolean run() {
+        if (this.gui == null) {
+            return this.runHeadless();
+        }
+        if (this.renderThread) {
+            return this.runThreaded();
+        }
+        this.pacer = new FramePacer(this.frameRate);
+        long nanosPerTick = 1_000_000_000L / this.tickRate;
+        long accumulator = 0;
+        long previous = System.nanoTime();
+        long budget = (long) (this.pacer.getPeriod() * TURBO_BUDGET);
+        long drawn = 0;
+        this.effectiveTurbo = this.turbo;
+        this.turboWindowStart = previous;
+        this.pacer.start();
+
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                accumulator += (long) (Math.min(now - previous, MAX_FRAME_NANOS) * this.effectiveTurbo);
+                previous = now;
+
+                // Run as many fixed ticks as the elapsed time holds; the remainder carries over.
+                int ran = 0;
+                while (accumulator >= nanosPerTick) {
+                    accumulator -= nanosPerTick;
+                    this.tick();
+                    ran++;
+                    if (this.isOver()) {
+                        return this.finish();
+                    }
+                    if (this.turbo > 1 && System.nanoTime() - now > budget) {
+                        // Out of time for this frame: drop the ticks that did not fit rather than owe them.
+                        accumulator %= nanosPerTick;
+                        break;
+                    }
+                }
+
+                long updated = System.nanoTime();
+                this.pacer.recordUpdate(updated - now);
+                if (this.turbo > 1) {
+                    this.adaptTurbo(ran, updated - now, drawn, updated);
+                }
+                this.draw((double) accumulator / nanosPerTick);
+                drawn = System.nanoTime() - updated;
+                this.pacer.recordDraw(drawn);
+                this.pacer.waitForNextFrame();
+            }
+        } finally {
+            System.out.println(this.pacer.report());
+        }
+    }
+
+    // Sets the turbo multiplier to what the ticks measured so far can sustain within the frame budget,
+    // and shows it together with the ticks actually run per second.
+    private void adaptTurbo(int ran, long updateNanos, long drawNanos, long now) {
+        if (ran > 0) {
+            double perTick = (double) updateNanos / ran;
+            this.tickCost = this.tickCost == 0 ? perTick : this.tickCost * 0.9 + perTick * 0.1;
+        }
+        if (this.tickCost > 0) {
+            double affordable = (this.pacer.getPeriod() * TURBO_BUDGET - drawNanos) / this.tickCost;
+            double realTime = (double) this.tickRate / this.frameRate;
+            this.effectiveTurbo = Math.max(1, Math.min(this.turbo, affordable / realTime));
+        }
+        this.turboTicks += ran;
+        if (this.turboIndicator != null && now - this.turboWindowStart >= TURBO_REPORT_NANOS) {
+            double rate = this.turboTicks * 1e9 / (now - this.turboWindowStart);
+            this.turboIndicator.setRate(rate / this.tickRate, rate);
+            this.turboTicks = 0;
+            this.turboWindowStart = now;
+        }
+    }
+
+    // The simulation runs on this thread and a render thread draws at the frame rate, so neither waits for the other.
+    // After a tick the sprites are recorded into a display list only if the renderer has taken the last one,
+    // so the simulation records about once per frame rather than once per tick.
+    private boolean runThreaded() {
+        TripleBuffer<DisplayList> frames = new TripleBuffer<>(new DisplayList(800, 600),
+                new DisplayList(800, 600), new DisplayList(800, 600));
+        AtomicBoolean running = new AtomicBoolean(true);
+        FramePacer tickPacer = new FramePacer(this.tickRate);
+        this.pacer = new FramePacer(this.frameRate);
+        this.publish(frames);
+        Thread renderer = new Thread(() -> this.renderLoop(frames, running), "render");
+        renderer.start();
+        tickPacer.start();
+
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                this.tick();
+                if (this.isOver()) {
+                    return this.finish();
+                }
+                long ticked = System.nanoTime();
+                tickPacer.recordUpdate(ticked - start);
+                if (!frames.isPending()) {
+                    this.publish(frames);
+                }
+                tickPacer.recordDraw(System.nanoTime() - ticked);
+                tickPacer.waitForNextFrame();
+            }
+        } finally {
+            running.set(false);
+            try {
+                renderer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            System.out.println("simulation (draw = recording):" + System.lineSeparator() + tickPacer.report());
+            System.out.println("render:" + System.lineSeparator() + this.pacer.report());
+        }
+    }
+
+    // Runs ticks back to back with no window and no sleeping, until the level ends or the tick limit is reached.
+    // With headless drawing on, every tick is also drawn into a display list, to include the cost of drawing.
+    // An event-driven level that nothing looks at between ticks jumps from event to event instead.
+    private boolean runHeadless() {
+        DisplayList list = this.headlessDrawing ? new DisplayList(800, 600) : null;
+        long first = this.ticks;
+        long last = this.maxTicks <= 0 ? Long.MAX_VALUE : first + this.maxTicks;
+        boolean eventsOnly = this.scheduler != null && list == null && this.history == null
+                && this.inputPolicy == null && !this.keyboard.isPressed(KeyboardSensor.LEFT_KEY)
+                && !this.keyboard.isPressed(KeyboardSensor.RIGHT_KEY);
+        long start = System.nanoTime();
+
+        try {
+            while (this.ticks < last) {
+                if (eventsOnly) {
+                    if (!this.jumpToNextEvent(last)) {
+                        return false;
+                    }
+                } else {
+                    this.tick();
+                }
+                if (list != null) {
+                    list.clear();
+                    this.sprites.drawAllOn(list);
+                }
+                if (this.isOver()) {
+                    return this.finish();
+                }
+            }
+            return false;
+        } finally {
+            if (eventsOnly) {
+                // The balls between events were left where they were last placed.
+                this.scheduler.advanceTo(this.ticks);
+            }
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            this.ticksPerSecond = (this.ticks - first) * 1e9 / elapsed;
+            if (this.verbose) {
+                System.out.printf("%s: %d ticks in %.3f s (%.0f ticks/s)%n", levelInfo.levelName(),
+                        this.ticks - first, elapsed / 1e9, this.ticksPerSecond);
+            }
+        }
+    }
+
+    private void publish(TripleBuffer<DisplayList> frames) {
+        DisplayList list = frames.getWriteBuffer();
+        list.clear();
+        this.sprites.drawAllOn(list);
+        frames.publish();
+    }
+
+    private void renderLoop(TripleBuffer<DisplayList> frames, AtomicBoolean running) {
+        this.pacer.start();
+        while (running.get()) {
+            long start = System.nanoTime();
+            frames.update();
+            DrawSurface d = gui.getDrawSurface();
+            this.batcher.resetCounters();
+            this.batcher.begin(d);
+            frames.getReadBuffer().replay(this.batcher);
+            this.batcher.flush();
+            gui.show(d);
+            this.pacer.recordDraw(System.nanoTime() - start);
+            this.pacer.waitForNextFrame();
+        }
+    }
+
+    private boolean isOver() {
+        return remainingBlocks.getValue() == 0 || remainingBalls.getValue() == 0;
+    }
+
+    private boolean finish() {
+        if (remainingBlocks.getValue() == 0) {
+            score.increase(100);
+            if (this.verbose) {
+                System.out.println("שלב הסתיים! ניקוד: " + score.getValue());
+            }
+            return true;
+        }
+
+
+        lives.decrease(1);
+        if (lives.getValue() == 0) {
+            if (this.verbose) {
+                System.out.println("Game Over. ניקוד: " + score.getValue());
+            }
+            return false;
+        } else {
+            return false;
+        }
+    }
+
+    private void tick() {
+        if (this.history != null && this.keyboard.isPressed(KeyboardSensor.DOWN_KEY)) {
+            rewind(1);
+            return;
+        }
+        if (this.inputPolicy != null) {
+            this.inputPolicy.beforeTick(this);
+        }
+        if (this.batchedCollisions) {
+            this.prefetchBallCollisions();
+        }
+        this.sprites.notifyAllTimePassed();
+        this.ticks++;
+        if (this.scheduler != null) {
+            this.scheduler.advanceTo(this.ticks);
+        }
+        if (this.history != null) {
+            recordHistory();
+        }
+    }
+
+    // Goes straight to the tick of the next ball event, or to the last tick if that comes first, and processes
+    // every event up to it. With no input, no drawing and no history, the paddle stands still and the ticks
+    // in between change nothing but the time, so the cost follows the number of collisions, not of ticks.
+    // Only the balls that collide are moved; the rest are brought up to date when the run ends.
+    // Returns false if nothing is scheduled any more and there is no last tick, so the level can never end.
+    private boolean jumpToNextEvent(long last) {
+        double next = this.scheduler.nextEventTime();
+        if (next == Double.POSITIVE_INFINITY && last == Long.MAX_VALUE) {
+            return false;
+        }
+        // An event is processed by the tick that reaches its time, as tick() does.
+        this.ticks = Math.max(this.ticks + 1, Math.min(last, (long) Math.ceil(next)));
+        while (this.scheduler.nextEventTime() <= this.ticks) {
+            this.scheduler.advanceToNextEvent();
+        }
+        return true;
+    }
+
+    private void draw(double alpha) {
+        DrawSurface d = gui.getDrawSurface();
+        this.batcher.resetCounters();
+        if (this.renderer != null) {
+            this.renderer.render(this.sprites, alpha);
+            d.drawImage(0, 0, this.renderer.getFrame());
+        } else {
+            this.batcher.begin(d);
+            this.sprites.drawAllOn(this.batcher, alpha);
+            this.batcher.flush();
+        }
+        gui.show(d);
+    }
+
+    private void prefetchBallCollisions() {
+        List<Ball> inPlay = this.ballsInPlay();
+        int count = inPlay.size();
+        if (this.pathX0.length < count) {
+            int capacity = Math.max(count, this.pathX0.length * 2);
+            this.pathX0 = new double[capacity];
+            this.pathY0 = new double[capacity];
+            this.pathX1 = new double[capacity];
+            this.pathY1 = new double[capacity];
+            this.pathRadii = new double[capacity];
+            this.pathFound = new boolean[capacity];
+            int old = this.pathHits.length;
+            this.pathHits = Arrays.copyOf(this.pathHits, capacity);
+            for (int i = old; i < capacity; i++) {
+                this.pathHits[i] = new CollisionInfo();
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            Ball ball = inPlay.get(i);
+            ball.nextTrajectory(this.pathX0, this.pathY0, this.pathX1, this.pathY1, i);
+            this.pathRadii[i] = ball.getCollisionRadius();
+        }
+        this.environment.findClosestCollisions(this.pathX0, this.pathY0, this.pathX1, this.pathY1,
+                this.pathRadii, count, this.pathHits, this.pathFound);
+        // Each ball keeps its entry until its step in this tick, and the entries are refilled only next tick.
+        for (int i = 0; i < count; i++) {
+            inPlay.get(i).prefetchCollision(this.pathFound[i] ? this.pathHits[i] : null);
+        }
+    }
+
+    public boolean isPlayerDead() {
+        return this.lives.getValue() <= 0;
+    }
+
+    public Counter getScore() {
+        return this.score;
+    }
+
+    public boolean isGameOver() {
+        return lives.getValue() <= 0;
+    }
+}
@@ -0,0 +1,44 @@
+package game;
+
+// The outcome of one headless game.
+public class GameResult {
+    private final long seed;
+    private final boolean cleared;
+    private final long ticks;
+    private final int score;
+    private final int ballsLost;
+
+    public GameResult(long seed, boolean cleared, long ticks, int score, int ballsLost) {
+        this.seed = seed;
+        this.cleared = cleared;
+        this.ticks = ticks;
+        this.score = score;
+        this.ballsLost = ballsLost;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public boolean isCleared() {
+        return this.cleared;
+    }
+
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    public int getBallsLost() {
+        return this.ballsLost;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("seed=%d cleared=%b ticks=%d score=%d ballsLost=%d",
+                this.seed, this.cleared, this.ticks, this.score, this.ballsLost);
+    }
+}
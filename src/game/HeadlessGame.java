@@ -0,0 +1,23 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Plays all levels without a window, as fast as the CPU allows, and reports ticks per second for each.
+// Usage: HeadlessGame [max ticks per level, 0 for no limit]
+public class HeadlessGame {
+    private static final long DEFAULT_MAX_TICKS = 1_000_000L;
+
+    public static void main(String[] args) {
+        long maxTicks = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_MAX_TICKS;
+        GameFlow gameFlow = new GameFlow(new ScriptedKeyboard());
+        gameFlow.setMaxTicks(maxTicks);
+
+        List<LevelInformation> levels = new ArrayList<>();
+        levels.add(new Level1());
+        levels.add(new Level2());
+        levels.add(new Level3());
+
+        gameFlow.runLevels(levels);
+    }
+}
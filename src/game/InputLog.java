@@ -0,0 +1,133 @@
+package game;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// A recorded game, as written by InputRecorder. The file holds:
+//   a header: magic, level name, tick rate, mode flags, seed;
+//   records: RUN (keys held, for how many ticks, as a varint), CHECKPOINT (tick, size, game state)
+//   and a final END (the number of ticks played);
+//   a footer: the tick and file offset of every checkpoint, then the offset of the footer itself.
+// Input rarely changes, so a run of identical ticks costs two or three bytes.
+public class InputLog {
+    static final int MAGIC = 0x41524B31;
+    static final byte RUN = 0;
+    static final byte CHECKPOINT = 1;
+    static final byte END = 2;
+    static final int LEFT = 1;
+    static final int RIGHT = 2;
+    // The bits of the mode flags in the header; their values are part of the file format.
+    static final int SWEPT = 1;
+    static final int EVENT_DRIVEN = 2;
+    static final int BATCHED = 4;
+    static final int BLOCK_FIELD = 8;
+    static final int BALL_SYSTEM = 16;
+
+    private final ByteBuffer data;
+    private final String levelName;
+    private final int tickRate;
+    private final int modeFlags;
+    private final long seed;
+    private final int recordsStart;
+    private final long[] checkpointTicks;
+    private final int[] checkpointOffsets;
+    private final long totalTicks;
+
+    public InputLog(byte[] bytes) throws IOException {
+        this.data = ByteBuffer.wrap(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a recorded game");
+        }
+        this.levelName = in.readUTF();
+        this.tickRate = in.readInt();
+        this.modeFlags = in.readInt();
+        this.seed = in.readLong();
+        this.recordsStart = bytes.length - in.available();
+
+        int footer = (int) this.data.getLong(bytes.length - 8);
+        int count = this.data.getInt(footer);
+        this.checkpointTicks = new long[count];
+        this.checkpointOffsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.checkpointTicks[i] = this.data.getLong(footer + 4 + i * 16);
+            this.checkpointOffsets[i] = (int) this.data.getLong(footer + 4 + i * 16 + 8);
+        }
+        // The END record sits right before the footer: its type byte, then the tick count.
+        if (this.data.get(footer - 9) != END) {
+            throw new IOException("The recording is incomplete");
+        }
+        this.totalTicks = this.data.getLong(footer - 8);
+    }
+
+    public static InputLog read(Path path) throws IOException {
+        return new InputLog(Files.readAllBytes(path));
+    }
+
+    public String getLevelName() {
+        return this.levelName;
+    }
+
+    public int getTickRate() {
+        return this.tickRate;
+    }
+
+    public int getModeFlags() {
+        return this.modeFlags;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public long getTotalTicks() {
+        return this.totalTicks;
+    }
+
+    public int getCheckpointCount() {
+        return this.checkpointTicks.length;
+    }
+
+    public long getCheckpointTick(int i) {
+        return this.checkpointTicks[i];
+    }
+
+    // The last checkpoint at or before the given tick, or -1 if there is none.
+    public int checkpointAtOrBefore(long tick) {
+        int found = -1;
+        for (int i = 0; i < this.checkpointTicks.length && this.checkpointTicks[i] <= tick; i++) {
+            found = i;
+        }
+        return found;
+    }
+
+    // The records, positioned at the first one.
+    ByteBuffer records() {
+        ByteBuffer records = this.data.duplicate();
+        records.position(this.recordsStart);
+        return records;
+    }
+
+    // The records, positioned at the given checkpoint's record.
+    ByteBuffer recordsAt(int checkpoint) {
+        ByteBuffer records = this.data.duplicate();
+        records.position(this.checkpointOffsets[checkpoint]);
+        return records;
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
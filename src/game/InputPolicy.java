@@ -0,0 +1,9 @@
+package game;
+
+import biuoop.KeyboardSensor;
+
+// A programmatic player for headless games: a keyboard whose keys are chosen before every tick.
+// Each game needs its own policy; a policy may keep state (such as a random generator) but must not share it.
+public interface InputPolicy extends KeyboardSensor {
+    void beforeTick(GameLevel level);
+}
@@ -0,0 +1,137 @@
+package game;
+
+import biuoop.KeyboardSensor;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Records the paddle input of a level, tick by tick, into the format read by InputLog.
+// The keys are read from the source once before every tick and held for that whole tick, so the game
+// sees exactly what is recorded, even with a live keyboard. Every so many ticks the game state is
+// written as a checkpoint, so a replay can start from there. Call close() when the level is over.
+public class InputRecorder implements InputPolicy, Closeable {
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 600;
+
+    private final KeyboardSensor source;
+    private final DataOutputStream out;
+    private final long seed;
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private boolean started;
+    private int keys;
+    private int runKeys = -1;
+    private long runLength;
+    private long ticks;
+    private final List<long[]> index = new ArrayList<>();
+    private ByteBuffer state;
+
+    public InputRecorder(KeyboardSensor source, OutputStream out, long seed) {
+        this.source = source;
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.seed = seed;
+    }
+
+    // 0 writes only the checkpoint at the start.
+    public void setCheckpointInterval(int ticks) {
+        this.checkpointInterval = Math.max(0, ticks);
+    }
+
+    @Override
+    public void beforeTick(GameLevel level) {
+        if (this.source instanceof InputPolicy) {
+            ((InputPolicy) this.source).beforeTick(level);
+        }
+        try {
+            if (!this.started) {
+                writeHeader(level);
+                this.started = true;
+            }
+            long tick = level.getTicks();
+            if (tick == 0 || this.checkpointInterval > 0 && tick % this.checkpointInterval == 0) {
+                flushRun();
+                writeCheckpoint(level);
+            }
+            int pressed = (this.source.isPressed(LEFT_KEY) ? InputLog.LEFT : 0)
+                    | (this.source.isPressed(RIGHT_KEY) ? InputLog.RIGHT : 0);
+            if (pressed != this.runKeys) {
+                flushRun();
+                this.runKeys = pressed;
+            }
+            this.runLength++;
+            this.keys = pressed;
+            this.ticks = tick + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return (this.keys & InputLog.LEFT) != 0;
+        }
+        if (RIGHT_KEY.equals(key)) {
+            return (this.keys & InputLog.RIGHT) != 0;
+        }
+        return false;
+    }
+
+    private void writeHeader(GameLevel level) throws IOException {
+        this.out.writeInt(InputLog.MAGIC);
+        this.out.writeUTF(level.getLevelName());
+        this.out.writeInt(level.getTickRate());
+        this.out.writeInt(level.getModeFlags());
+        this.out.writeLong(this.seed);
+    }
+
+    private void writeCheckpoint(GameLevel level) throws IOException {
+        if (this.state == null) {
+            this.state = ByteBuffer.allocate(level.getStateSize());
+        }
+        this.state.clear();
+        level.saveState(this.state);
+        this.index.add(new long[]{level.getTicks(), this.out.size()});
+        this.out.writeByte(InputLog.CHECKPOINT);
+        this.out.writeLong(level.getTicks());
+        this.out.writeInt(this.state.position());
+        this.out.write(this.state.array(), 0, this.state.position());
+    }
+
+    private void flushRun() throws IOException {
+        if (this.runLength == 0) {
+            return;
+        }
+        this.out.writeByte(InputLog.RUN);
+        this.out.writeByte(this.runKeys);
+        long length = this.runLength;
+        while ((length & ~0x7FL) != 0) {
+            this.out.writeByte((int) (length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        this.out.writeByte((int) length);
+        this.runLength = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.started) {
+            flushRun();
+            this.out.writeByte(InputLog.END);
+            this.out.writeLong(this.ticks);
+            long footer = this.out.size();
+            this.out.writeInt(this.index.size());
+            for (long[] entry : this.index) {
+                this.out.writeLong(entry[0]);
+                this.out.writeLong(entry[1]);
+            }
+            this.out.writeLong(footer);
+        }
+        this.out.close();
+    }
+}
@@ -0,0 +1,69 @@
+package game;
+
+import java.nio.ByteBuffer;
+
+// Plays a recorded game's input back: before every tick it holds the keys that were held in that tick.
+// seek() jumps to a checkpoint instead of replaying from the start.
+public class InputReplay implements InputPolicy {
+    private final InputLog log;
+    private ByteBuffer records;
+    private int keys;
+    private long runLeft;
+
+    public InputReplay(InputLog log) {
+        this.log = log;
+        this.records = log.records();
+    }
+
+    // Puts the level into the state of the last checkpoint at or before the given tick, and continues
+    // the input from there. The level must be freshly initialized with the recording's settings.
+    // Returns the tick the level is at now; the rest of the way is for the caller to run.
+    public long seek(GameLevel level, long tick) {
+        int checkpoint = this.log.checkpointAtOrBefore(tick);
+        if (checkpoint < 0) {
+            throw new IllegalArgumentException("No checkpoint at or before tick " + tick);
+        }
+        this.records = this.log.recordsAt(checkpoint);
+        this.records.get();
+        this.records.getLong();
+        int size = this.records.getInt();
+        ByteBuffer state = this.records.slice();
+        state.limit(size);
+        level.loadState(state);
+        this.records.position(this.records.position() + size);
+        this.runLeft = 0;
+        return level.getTicks();
+    }
+
+    @Override
+    public void beforeTick(GameLevel level) {
+        while (this.runLeft == 0) {
+            byte type = this.records.get();
+            if (type == InputLog.RUN) {
+                this.keys = this.records.get();
+                this.runLeft = InputLog.readVarLong(this.records);
+            } else if (type == InputLog.CHECKPOINT) {
+                this.records.getLong();
+                int size = this.records.getInt();
+                this.records.position(this.records.position() + size);
+            } else {
+                // Past the end of the recording nothing is held.
+                this.records.position(this.records.position() - 1);
+                this.keys = 0;
+                return;
+            }
+        }
+        this.runLeft--;
+    }
+
+    @Override
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return (this.keys & InputLog.LEFT) != 0;
+        }
+        if (RIGHT_KEY.equals(key)) {
+            return (this.keys & InputLog.RIGHT) != 0;
+        }
+        return false;
+    }
+}
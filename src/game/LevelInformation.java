@@ -1,17 +1,17 @@
-package game;
-
-import sprites.Sprite;
-import blocks.Block;
-import geometry.Velocity;
-import java.util.List;
-
-public interface LevelInformation {
-    int numberOfBalls();
-    List<Velocity> initialBallVelocities();
-    int paddleSpeed();
-    int paddleWidth();
-    String levelName();
-    Sprite getBackground();
-    List<Block> blocks();
-    int numberOfBlocksToRemove();
-}
+package game;
+
+import sprites.Sprite;
+import blocks.Block;
+import geometry.Velocity;
+import java.util.List;
+
+public interface LevelInformation {
+    int numberOfBalls();
+    List<Velocity> initialBallVelocities();
+    int paddleSpeed();
+    int paddleWidth();
+    String levelName();
+    Sprite getBackground();
+    List<Block> blocks();
+    int numberOfBlocksToRemove();
+}
@@ -0,0 +1,31 @@
+package game;
+
+import java.util.Random;
+
+// Holds left, right or nothing for a random number of ticks, then picks again.
+public class RandomInput extends ScriptedKeyboard implements InputPolicy {
+    private static final int MIN_HOLD = 5;
+    private static final int MAX_HOLD = 60;
+
+    private final Random random;
+    private int holdFor;
+
+    public RandomInput(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void beforeTick(GameLevel level) {
+        if (--this.holdFor > 0) {
+            return;
+        }
+        releaseAll();
+        int choice = this.random.nextInt(3);
+        if (choice == 0) {
+            press(LEFT_KEY);
+        } else if (choice == 1) {
+            press(RIGHT_KEY);
+        }
+        this.holdFor = MIN_HOLD + this.random.nextInt(MAX_HOLD - MIN_HOLD + 1);
+    }
+}
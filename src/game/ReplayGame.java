@@ -0,0 +1,42 @@
+package game;
+
+import utils.Counter;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+// Replays a recorded level headless, as fast as possible, and prints where it ended.
+// Usage: ReplayGame recording [tick to start near: the replay starts at the last checkpoint before it]
+public class ReplayGame {
+    public static void main(String[] args) throws IOException {
+        InputLog log = InputLog.read(Paths.get(args[0]));
+        long from = args.length > 1 ? Long.parseLong(args[1]) : 0;
+
+        InputReplay replay = new InputReplay(log);
+        GameLevel level = new GameLevel(levelNamed(log.getLevelName()), replay, new Counter(), new Counter());
+        level.setModeFlags(log.getModeFlags());
+        level.setTickRate(log.getTickRate());
+        level.initialize();
+
+        long start = replay.seek(level, from);
+        if (start > 0) {
+            System.out.println("Starting from the checkpoint at tick " + start);
+        }
+        if (start < log.getTotalTicks()) {
+            level.setMaxTicks(log.getTotalTicks() - start);
+            level.run();
+        }
+        System.out.printf("%s: tick %d of %d, score %d, blocks %s, balls lost %d%n", log.getLevelName(),
+                level.getTicks(), log.getTotalTicks(), level.getScore().getValue(),
+                level.isCleared() ? "cleared" : "left", level.getBallsLost());
+    }
+
+    static LevelInformation levelNamed(String name) {
+        for (LevelInformation level : new LevelInformation[]{new Level1(), new Level2(), new Level3()}) {
+            if (level.levelName().equals(name)) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException("No level named " + name);
+    }
+}
@@ -0,0 +1,28 @@
+package game;
+
+import biuoop.KeyboardSensor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// A KeyboardSensor driven by code instead of a window: keys stay pressed until released.
+public class ScriptedKeyboard implements KeyboardSensor {
+    private final Set<String> pressed = new HashSet<>();
+
+    public void press(String key) {
+        this.pressed.add(key);
+    }
+
+    public void release(String key) {
+        this.pressed.remove(key);
+    }
+
+    public void releaseAll() {
+        this.pressed.clear();
+    }
+
+    @Override
+    public boolean isPressed(String key) {
+        return this.pressed.contains(key);
+    }
+}
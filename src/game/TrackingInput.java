@@ -0,0 +1,52 @@
+package game;
+
+import geometry.Rectangle;
+import sprites.Ball;
+import sprites.Paddle;
+
+import java.util.List;
+import java.util.Random;
+
+// Moves the paddle under the lowest ball, like a player who is good but not perfect:
+// it reacts on only part of the ticks and aims at a random spot of the paddle, chosen again now and then.
+public class TrackingInput extends ScriptedKeyboard implements InputPolicy {
+    private static final double DEAD_ZONE = 4;
+    private static final int AIM_CHANGE_TICKS = 120;
+
+    private final Random random;
+    private final double reaction;
+    private double aim;
+
+    public TrackingInput(long seed) {
+        this.random = new Random(seed);
+        this.reaction = 0.6 + this.random.nextDouble() * 0.4;
+        this.aim = this.random.nextDouble() * 2 - 1;
+    }
+
+    @Override
+    public void beforeTick(GameLevel level) {
+        releaseAll();
+        if (this.random.nextInt(AIM_CHANGE_TICKS) == 0) {
+            this.aim = this.random.nextDouble() * 2 - 1;
+        }
+        Paddle paddle = level.getPaddle();
+        List<Ball> balls = level.getBalls();
+        if (paddle == null || balls.isEmpty() || this.random.nextDouble() > this.reaction) {
+            return;
+        }
+        Ball lowest = balls.get(0);
+        for (int i = 1; i < balls.size(); i++) {
+            if (balls.get(i).getY() > lowest.getY()) {
+                lowest = balls.get(i);
+            }
+        }
+        Rectangle r = paddle.getCollisionRectangle();
+        double target = r.getCenterX() + this.aim * r.getWidth() / 2;
+        double dx = lowest.getX() - target;
+        if (dx > DEAD_ZONE) {
+            press(RIGHT_KEY);
+        } else if (dx < -DEAD_ZONE) {
+            press(LEFT_KEY);
+        }
+    }
+}
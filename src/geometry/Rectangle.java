@@ -1,94 +1,364 @@
-package geometry;
-
-import java.util.ArrayList;
-import java.util.List;
-
-/**
- * Represents an axis-aligned rectangle, defined by upper-left point, width, and height.
- * Supports collision detection via intersection points with a line.
- */
-public class Rectangle {
-    private Point upperLeft;
-    private double width;
-    private double height;
-
-    /**
-     * Constructs a rectangle given the top-left point, width, and height.
-     *
-     * @param upperLeft the upper-left corner.
-     * @param width     the width.
-     * @param height    the height.
-     */
-    public Rectangle(Point upperLeft, double width, double height) {
-        this.upperLeft = upperLeft;
-        this.width = width;
-        this.height = height;
-    }
-
-    /**
-     * Returns a list of intersection points with a given line.
-     * May return 0–2 points depending on how the line intersects the rectangle.
-     *
-     * @param line the line to check.
-     * @return list of intersection points.
-     */
-    public List<Point> intersectionPoints(Line line) {
-        List<Point> intersections = new ArrayList<>();
-
-        // Define the four corners
-        Point upperRight = new Point(upperLeft.getX() + width, upperLeft.getY());
-        Point lowerLeft = new Point(upperLeft.getX(), upperLeft.getY() + height);
-        Point lowerRight = new Point(upperRight.getX(), lowerLeft.getY());
-
-        // Define the edges
-        Line top = new Line(upperLeft, upperRight);
-        Line bottom = new Line(lowerLeft, lowerRight);
-        Line left = new Line(upperLeft, lowerLeft);
-        Line right = new Line(upperRight, lowerRight);
-
-        // Check intersections
-        for (Line edge : new Line[]{top, bottom, left, right}) {
-            Point p = line.intersectionWith(edge);
-            if (p != null && !intersections.contains(p)) {
-                intersections.add(p);
-            }
-        }
-
-        return intersections;
-    }
-
-    /**
-     * @return the width.
-     */
-    public double getWidth() {
-        return width;
-    }
-
-    /**
-     * @return the height.
-     */
-    public double getHeight() {
-        return height;
-    }
-
-    /**
-     * @return the top-left point.
-     */
-    public Point getUpperLeft() {
-        return upperLeft;
-    }
-
-    /**
-     * @return the bottom-right point (optional utility).
-     */
-    public Point getBottomRight() {
-        return new Point(upperLeft.getX() + width, upperLeft.getY() + height);
-    }
-
-    /**
-     * @return the center of the rectangle (optional utility).
-     */
-    public Point getCenter() {
-        return new Point(upperLeft.getX() + width / 2, upperLeft.getY() + height / 2);
-    }
-}
+package geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents an axis-aligned rectangle, defined by upper-left point, width, and height.
+ * Supports collision detection via intersection points with a line.
+ * The edges can be read as plain doubles without creating points. A rectangle owned by a moving object
+ * (such as the paddle) can be moved in place with moveTo; rectangles shared with others are left unchanged.
+ */
+public class Rectangle {
+    private double x;
+    private double y;
+    private Point upperLeft;
+    private double width;
+    private double height;
+
+    /**
+     * Constructs a rectangle given the top-left point, width, and height.
+     *
+     * @param upperLeft the upper-left corner.
+     * @param width     the width.
+     * @param height    the height.
+     */
+    public Rectangle(Point upperLeft, double width, double height) {
+        this.x = upperLeft.getX();
+        this.y = upperLeft.getY();
+        this.upperLeft = upperLeft;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns a list of intersection points with a given line.
+     * May return 0–2 points depending on how the line intersects the rectangle.
+     *
+     * @param line the line to check.
+     * @return list of intersection points.
+     */
+    public List<Point> intersectionPoints(Line line) {
+        List<Point> intersections = new ArrayList<>();
+
+        // Define the four corners
+        Point upperLeft = getUpperLeft();
+        Point upperRight = new Point(upperLeft.getX() + width, upperLeft.getY());
+        Point lowerLeft = new Point(upperLeft.getX(), upperLeft.getY() + height);
+        Point lowerRight = new Point(upperRight.getX(), lowerLeft.getY());
+
+        // Define the edges
+        Line top = new Line(upperLeft, upperRight);
+        Line bottom = new Line(lowerLeft, lowerRight);
+        Line left = new Line(upperLeft, lowerLeft);
+        Line right = new Line(upperRight, lowerRight);
+
+        // Check intersections
+        for (Line edge : new Line[]{top, bottom, left, right}) {
+            Point p = line.intersectionWith(edge);
+            if (p != null && !intersections.contains(p)) {
+                intersections.add(p);
+            }
+        }
+
+        return intersections;
+    }
+
+    /**
+     * Intersects the segment (x0, y0) + t * (dx, dy), t in [0, 1], with this rectangle.
+     * See {@link #intersectSegment(double, double, double, double, double, double, double, double, SegmentHit)}.
+     *
+     * @param x0  x of the segment start.
+     * @param y0  y of the segment start.
+     * @param dx  x extent of the segment.
+     * @param dy  y extent of the segment.
+     * @param out receives the time of impact and the normal when there is a hit.
+     * @return true if the segment hits the rectangle.
+     */
+    public boolean intersectSegment(double x0, double y0, double dx, double dy, SegmentHit out) {
+        return intersectSegment(x0, y0, dx, dy, this.x, this.y, this.x + width, this.y + height, out);
+    }
+
+    /**
+     * Slab test of the segment (x0, y0) + t * (dx, dy), t in [0, 1], against an axis-aligned box.
+     * Works on plain doubles and creates no objects.
+     * A segment starting outside the box reports the face it enters through; a segment starting
+     * inside reports the face it leaves through, like {@link #intersectionPoints(Line)} does.
+     * When both faces of a corner are crossed at the same time, the normal points diagonally out of the corner.
+     *
+     * @param x0   x of the segment start.
+     * @param y0   y of the segment start.
+     * @param dx   x extent of the segment.
+     * @param dy   y extent of the segment.
+     * @param minX left edge of the box.
+     * @param minY top edge of the box.
+     * @param maxX right edge of the box.
+     * @param maxY bottom edge of the box.
+     * @param out  receives the time of impact and the unit normal when there is a hit.
+     * @return true if the segment hits the box.
+     */
+    public static boolean intersectSegment(double x0, double y0, double dx, double dy,
+                                           double minX, double minY, double maxX, double maxY,
+                                           SegmentHit out) {
+        double txEnter = Double.NEGATIVE_INFINITY;
+        double txExit = Double.POSITIVE_INFINITY;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return false;
+            }
+        } else {
+            double t1 = (minX - x0) / dx;
+            double t2 = (maxX - x0) / dx;
+            txEnter = Math.min(t1, t2);
+            txExit = Math.max(t1, t2);
+        }
+
+        double tyEnter = Double.NEGATIVE_INFINITY;
+        double tyExit = Double.POSITIVE_INFINITY;
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return false;
+            }
+        } else {
+            double t1 = (minY - y0) / dy;
+            double t2 = (maxY - y0) / dy;
+            tyEnter = Math.min(t1, t2);
+            tyExit = Math.max(t1, t2);
+        }
+
+        double tEnter = Math.max(txEnter, tyEnter);
+        double tExit = Math.min(txExit, tyExit);
+        if (tEnter > tExit || tExit < 0 || tEnter > 1) {
+            return false;
+        }
+
+        double stepX = dx > 0 ? 1 : -1;
+        double stepY = dy > 0 ? 1 : -1;
+        double reach = Math.max(Math.abs(dx), Math.abs(dy));
+        if (tEnter >= 0) {
+            if (Math.abs(txEnter - tyEnter) * reach < Point.EPSILON) {
+                out.set(tEnter, -stepX * Math.sqrt(0.5), -stepY * Math.sqrt(0.5));
+            } else if (txEnter > tyEnter) {
+                out.set(tEnter, -stepX, 0);
+            } else {
+                out.set(tEnter, 0, -stepY);
+            }
+            return true;
+        }
+
+        // Started inside the box: the hit is where the segment leaves it.
+        if (tExit > 1) {
+            return false;
+        }
+        if (Math.abs(txExit - tyExit) * reach < Point.EPSILON) {
+            out.set(tExit, stepX * Math.sqrt(0.5), stepY * Math.sqrt(0.5));
+        } else if (txExit < tyExit) {
+            out.set(tExit, stepX, 0);
+        } else {
+            out.set(tExit, 0, stepY);
+        }
+        return true;
+    }
+
+    /**
+     * Sweeps a circle of the given radius along the segment (x0, y0) + t * (dx, dy), t in [0, 1],
+     * and finds when it first touches the box. This is the same as intersecting the center's
+     * segment with the box grown by the radius on every side, with rounded corners
+     * (the Minkowski sum of the box and the circle).
+     * A circle that already overlaps the box at the start is reported at time 0 if it is moving
+     * further in, with the normal of the nearest face, and ignored if it is moving out.
+     * Works on plain doubles and creates no objects.
+     *
+     * @param x0     x of the circle center at the start.
+     * @param y0     y of the circle center at the start.
+     * @param dx     x extent of the sweep.
+     * @param dy     y extent of the sweep.
+     * @param radius the circle radius.
+     * @param minX   left edge of the box.
+     * @param minY   top edge of the box.
+     * @param maxX   right edge of the box.
+     * @param maxY   bottom edge of the box.
+     * @param out    receives the time of impact and the unit normal at the contact when there is a hit.
+     * @return true if the circle touches the box during the sweep.
+     */
+    public static boolean intersectSweptCircle(double x0, double y0, double dx, double dy, double radius,
+                                               double minX, double minY, double maxX, double maxY,
+                                               SegmentHit out) {
+        // Closest point of the box to the start, to detect a circle that already overlaps it.
+        double nearX = Math.max(minX, Math.min(x0, maxX));
+        double nearY = Math.max(minY, Math.min(y0, maxY));
+        double offX = x0 - nearX;
+        double offY = y0 - nearY;
+        if (offX * offX + offY * offY < radius * radius) {
+            return overlapAtStart(x0, y0, dx, dy, minX, minY, maxX, maxY, out);
+        }
+
+        double px = x0;
+        double py = y0;
+        boolean startsInCorner = x0 > minX - radius && x0 < maxX + radius
+                && y0 > minY - radius && y0 < maxY + radius;
+        if (!startsInCorner) {
+            if (!intersectSegment(x0, y0, dx, dy, minX - radius, minY - radius, maxX + radius, maxY + radius, out)) {
+                return false;
+            }
+            px = x0 + dx * out.getTime();
+            py = y0 + dy * out.getTime();
+        }
+        if (!startsInCorner && ((px >= minX && px <= maxX) || (py >= minY && py <= maxY))) {
+            // Entered through one of the straight faces; the slab normal is already right.
+            return true;
+        }
+
+        // Inside the square around a corner: the real surface there is the corner's circle.
+        double cx = px < minX ? minX : maxX;
+        double cy = py < minY ? minY : maxY;
+        double fx = x0 - cx;
+        double fy = y0 - cy;
+        double a = dx * dx + dy * dy;
+        double b = fx * dx + fy * dy;
+        double c = fx * fx + fy * fy - radius * radius;
+        double discriminant = b * b - a * c;
+        if (a == 0 || discriminant < 0) {
+            return false;
+        }
+        double tc = (-b - Math.sqrt(discriminant)) / a;
+        if (tc < 0 || tc > 1) {
+            return false;
+        }
+        double nx = (x0 + dx * tc - cx) / radius;
+        double ny = (y0 + dy * tc - cy) / radius;
+        out.set(tc, nx, ny);
+        return true;
+    }
+
+    /**
+     * Resolves a circle that overlaps the box before moving: reports a hit at time 0 with the normal
+     * of the face nearest to the center, unless the circle is already moving away from that face.
+     *
+     * @param x0   x of the circle center.
+     * @param y0   y of the circle center.
+     * @param dx   x extent of the sweep.
+     * @param dy   y extent of the sweep.
+     * @param minX left edge of the box.
+     * @param minY top edge of the box.
+     * @param maxX right edge of the box.
+     * @param maxY bottom edge of the box.
+     * @param out  receives the hit.
+     * @return true if the overlap should be treated as a collision.
+     */
+    private static boolean overlapAtStart(double x0, double y0, double dx, double dy,
+                                          double minX, double minY, double maxX, double maxY,
+                                          SegmentHit out) {
+        double toLeft = Math.abs(x0 - minX);
+        double toRight = Math.abs(maxX - x0);
+        double toTop = Math.abs(y0 - minY);
+        double toBottom = Math.abs(maxY - y0);
+        double nx = toLeft < toRight ? -1 : 1;
+        double ny = toTop < toBottom ? -1 : 1;
+        if (Math.min(toLeft, toRight) < Math.min(toTop, toBottom)) {
+            ny = 0;
+        } else {
+            nx = 0;
+        }
+        if (dx * nx + dy * ny >= 0) {
+            return false;
+        }
+        out.set(0, nx, ny);
+        return true;
+    }
+
+    /**
+     * @return the width.
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height.
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the top-left point.
+     */
+    public Point getUpperLeft() {
+        if (upperLeft == null) {
+            upperLeft = new Point(x, y);
+        }
+        return upperLeft;
+    }
+
+    /**
+     * @return the bottom-right point (optional utility).
+     */
+    public Point getBottomRight() {
+        return new Point(x + width, y + height);
+    }
+
+    /**
+     * @return the center of the rectangle (optional utility).
+     */
+    public Point getCenter() {
+        return new Point(x + width / 2, y + height / 2);
+    }
+
+    /**
+     * @return the x of the left edge.
+     */
+    public double getMinX() {
+        return x;
+    }
+
+    /**
+     * @return the y of the top edge.
+     */
+    public double getMinY() {
+        return y;
+    }
+
+    /**
+     * @return the x of the right edge.
+     */
+    public double getMaxX() {
+        return x + width;
+    }
+
+    /**
+     * @return the y of the bottom edge.
+     */
+    public double getMaxY() {
+        return y + height;
+    }
+
+    /**
+     * @return the x of the center.
+     */
+    public double getCenterX() {
+        return x + width / 2;
+    }
+
+    /**
+     * @return the y of the center.
+     */
+    public double getCenterY() {
+        return y + height / 2;
+    }
+
+    /**
+     * Moves the rectangle so its upper-left corner is at the given point, keeping its size.
+     * Only for rectangles owned by a single moving object; nothing is allocated.
+     *
+     * @param newX the new x of the left edge.
+     * @param newY the new y of the top edge.
+     */
+    public void moveTo(double newX, double newY) {
+        if (newX != x || newY != y) {
+            x = newX;
+            y = newY;
+            upperLeft = null;
+        }
+    }
+}
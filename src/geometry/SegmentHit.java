@@ -0,0 +1,46 @@
+package geometry;
+
+/**
+ * A reusable holder for the result of a segment intersection test:
+ * the parametric time of impact along the segment and the unit normal of the surface hit.
+ * Callers keep one instance around and pass it to the tests, so no objects are created per test.
+ */
+public class SegmentHit {
+    private double time;
+    private double normalX;
+    private double normalY;
+
+    /**
+     * Stores a hit.
+     *
+     * @param t  the parametric time of impact, 0 at the segment start and 1 at its end.
+     * @param nx x component of the surface normal.
+     * @param ny y component of the surface normal.
+     */
+    public void set(double t, double nx, double ny) {
+        this.time = t;
+        this.normalX = nx;
+        this.normalY = ny;
+    }
+
+    /**
+     * @return the parametric time of impact, 0 at the segment start and 1 at its end.
+     */
+    public double getTime() {
+        return this.time;
+    }
+
+    /**
+     * @return x component of the unit surface normal.
+     */
+    public double getNormalX() {
+        return this.normalX;
+    }
+
+    /**
+     * @return y component of the unit surface normal.
+     */
+    public double getNormalY() {
+        return this.normalY;
+    }
+}
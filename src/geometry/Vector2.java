@@ -0,0 +1,151 @@
+package geometry;
+
+/**
+ * A mutable 2D vector for the simulation core, which updates positions and velocities in place
+ * instead of creating a new Point or Velocity on every step.
+ * Point and Velocity stay immutable and are still what the rest of the game passes around;
+ * a Vector2 converts to and from them at those boundaries.
+ */
+public class Vector2 {
+    private double x;
+    private double y;
+
+    /**
+     * Constructs the zero vector.
+     */
+    public Vector2() {
+    }
+
+    /**
+     * Constructs a vector with the given components.
+     *
+     * @param x the x component.
+     * @param y the y component.
+     */
+    public Vector2(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * @return the x component.
+     */
+    public double getX() {
+        return this.x;
+    }
+
+    /**
+     * @return the y component.
+     */
+    public double getY() {
+        return this.y;
+    }
+
+    /**
+     * Sets both components.
+     *
+     * @param newX the new x component.
+     * @param newY the new y component.
+     * @return this vector.
+     */
+    public Vector2 set(double newX, double newY) {
+        this.x = newX;
+        this.y = newY;
+        return this;
+    }
+
+    /**
+     * Copies a point.
+     *
+     * @param p the point.
+     * @return this vector.
+     */
+    public Vector2 set(Point p) {
+        return set(p.getX(), p.getY());
+    }
+
+    /**
+     * Copies a velocity.
+     *
+     * @param v the velocity.
+     * @return this vector.
+     */
+    public Vector2 set(Velocity v) {
+        return set(v.getDx(), v.getDy());
+    }
+
+    /**
+     * Adds another vector scaled by a factor, in place: this += v * scale.
+     *
+     * @param v     the vector to add.
+     * @param scale the factor.
+     * @return this vector.
+     */
+    public Vector2 addScaled(Vector2 v, double scale) {
+        this.x += v.x * scale;
+        this.y += v.y * scale;
+        return this;
+    }
+
+    /**
+     * Adds the given amounts, in place.
+     *
+     * @param dx added to x.
+     * @param dy added to y.
+     * @return this vector.
+     */
+    public Vector2 add(double dx, double dy) {
+        this.x += dx;
+        this.y += dy;
+        return this;
+    }
+
+    /**
+     * Flips the x component.
+     *
+     * @return this vector.
+     */
+    public Vector2 negateX() {
+        this.x = -this.x;
+        return this;
+    }
+
+    /**
+     * Flips the y component.
+     *
+     * @return this vector.
+     */
+    public Vector2 negateY() {
+        this.y = -this.y;
+        return this;
+    }
+
+    /**
+     * Reflects the vector off a surface with the given unit normal, in place,
+     * the same way Velocity.reflect does.
+     *
+     * @param nx x of the unit normal.
+     * @param ny y of the unit normal.
+     * @return this vector.
+     */
+    public Vector2 reflect(double nx, double ny) {
+        double dot = this.x * nx + this.y * ny;
+        this.x -= 2 * dot * nx;
+        this.y -= 2 * dot * ny;
+        return this;
+    }
+
+    /**
+     * @return a new point at this vector.
+     */
+    public Point toPoint() {
+        return new Point(this.x, this.y);
+    }
+
+    /**
+     * @return a new velocity equal to this vector.
+     */
+    public Velocity toVelocity() {
+        return new Velocity(this.x, this.y);
+    }
+}
@@ -1,264 +1,771 @@
-package sprites;
-
-import biuoop.DrawSurface;
-import java.awt.Color;
-
-import geometry.Point;
-import geometry.Velocity;
-import geometry.Line;
-
-import collisions.CollisionInfo;
-import collisions.GameEnvironment;
-
-import game.GameLevel;
-
-/**
- * The Ball class represents a circle that can be drawn and animated.
- * It moves with velocity, can bounce inside a defined frame,
- * react to a forbidden area as a bouncing wall, and interact with Collidable objects.
- */
-public class Ball implements Sprite {
-    private Point center;
-    private int radius;
-    private Color color;
-    private Velocity velocity;
-
-    private int minX = 0, minY = 0, maxX = 800, maxY = 600;
-    private boolean hasForbiddenRect = false;
-    private int fx1, fy1, fx2, fy2;
-
-    private GameEnvironment environment;
-
-    /**
-     * Sets the game environment that the ball interacts with.
-     *
-     * @param env the GameEnvironment to use for collision detection.
-     */
-    public void setGameEnvironment(GameEnvironment env) {
-        this.environment = env;
-    }
-
-    /**
-     * Constructs a Ball with a center, radius, and color.
-     *
-     * @param center center point
-     * @param r      radius of the ball
-     * @param color  color of the ball
-     */
-    public Ball(Point center, int r, Color color) {
-        this.center = center;
-        this.radius = Math.max(1, r);
-        this.color = (color != null) ? color : Color.BLACK;
-    }
-
-    /**
-     * Constructs a Ball with center coordinates, radius, and color.
-     *
-     * @param x     x-coordinate
-     * @param y     y-coordinate
-     * @param r     radius
-     * @param color color
-     */
-    public Ball(int x, int y, int r, Color color) {
-        this(new Point(x, y), r, color);
-    }
-
-    /**
-     * Gets the x-coordinate of the center.
-     *
-     * @return x-coordinate
-     */
-    public int getX() {
-        return (int) this.center.getX();
-    }
-
-    /**
-     * Gets the y-coordinate of the center.
-     *
-     * @return y-coordinate
-     */
-    public int getY() {
-        return (int) this.center.getY();
-    }
-
-    /**
-     * Gets the radius of the ball.
-     *
-     * @return radius
-     */
-    public int getSize() {
-        return this.radius;
-    }
-
-    /**
-     * Gets the color of the ball.
-     *
-     * @return color
-     */
-    public Color getColor() {
-        return this.color;
-    }
-
-    /**
-     * Sets the color of the ball.
-     *
-     * @param color the new color to assign to the ball.
-     */
-    public void setColor(Color color) {
-        this.color = color;
-    }
-
-    /**
-     * Draws the ball on the provided surface.
-     *
-     * @param surface DrawSurface to draw on
-     */
-    public void drawOn(DrawSurface surface) {
-        if (surface != null) {
-            surface.setColor(this.color);
-            surface.fillCircle(getX(), getY(), this.radius);
-        }
-    }
-
-    /**
-     * Sets the ball's velocity.
-     *
-     * @param v velocity to assign
-     */
-    public void setVelocity(Velocity v) {
-        this.velocity = v;
-    }
-
-    /**
-     * Sets the velocity by dx and dy values.
-     *
-     * @param dx delta x
-     * @param dy delta y
-     */
-    public void setVelocity(double dx, double dy) {
-        this.velocity = new Velocity(dx, dy);
-    }
-
-    /**
-     * Gets the velocity.
-     *
-     * @return current velocity
-     */
-    public Velocity getVelocity() {
-        return this.velocity;
-    }
-
-    /**
-     * Defines the frame boundaries where the ball is allowed to move.
-     *
-     * @param minX left boundary
-     * @param minY top boundary
-     * @param maxX right boundary
-     * @param maxY bottom boundary
-     */
-    public void setFrame(int minX, int minY, int maxX, int maxY) {
-        this.minX = minX;
-        this.minY = minY;
-        this.maxX = maxX;
-        this.maxY = maxY;
-    }
-
-    /**
-     * Defines a forbidden area that the ball should bounce off.
-     *
-     * @param x1 top-left x
-     * @param y1 top-left y
-     * @param x2 bottom-right x
-     * @param y2 bottom-right y
-     */
-    public void setForbiddenArea(int x1, int y1, int x2, int y2) {
-        this.fx1 = x1;
-        this.fy1 = y1;
-        this.fx2 = x2;
-        this.fy2 = y2;
-        this.hasForbiddenRect = true;
-    }
-
-    /**
-     * Moves the ball one step forward.
-     * Considers collisions with walls, forbidden area, and GameEnvironment.
-     */
-    public void moveOneStep() {
-        if (this.velocity == null) {
-            return;
-        }
-
-        if (this.environment != null) {
-            Line trajectory = new Line(this.center, this.velocity.applyToPoint(this.center));
-            CollisionInfo info = this.environment.getClosestCollision(trajectory);
-
-            if (info != null) {
-                Point collisionPoint = info.collisionPoint();
-                double dx = velocity.getDx();
-                double dy = velocity.getDy();
-                double epsilon = 0.5;
-
-                this.center = new Point(
-                        collisionPoint.getX() - dx * epsilon,
-                        collisionPoint.getY() - dy * epsilon
-                );
-
-                this.velocity = info.collisionObject().hit(this, collisionPoint, this.velocity);
-                return;
-            }
-        }
-
-        Point next = this.velocity.applyToPoint(this.center);
-        double nx = next.getX();
-        double ny = next.getY();
-
-        if (nx - radius <= minX || nx + radius >= maxX) {
-            this.velocity = new Velocity(-this.velocity.getDx(), this.velocity.getDy());
-        }
-        if (ny - radius <= minY || ny + radius >= maxY) {
-            this.velocity = new Velocity(this.velocity.getDx(), -this.velocity.getDy());
-        }
-
-        next = this.velocity.applyToPoint(this.center);
-        nx = next.getX();
-        ny = next.getY();
-
-        if (hasForbiddenRect) {
-            boolean nextInside = nx + radius > fx1 && nx - radius < fx2
-                    && ny + radius > fy1 && ny - radius < fy2;
-            boolean currentlyOutside = center.getX() + radius <= fx1
-                    || center.getX() - radius >= fx2
-                    || center.getY() + radius <= fy1
-                    || center.getY() - radius >= fy2;
-
-            if (nextInside && currentlyOutside) {
-                if (nx + radius > fx1 && nx - radius < fx2) {
-                    this.velocity = new Velocity(-this.velocity.getDx(), this.velocity.getDy());
-                }
-                if (ny + radius > fy1 && ny - radius < fy2) {
-                    this.velocity = new Velocity(this.velocity.getDx(), -this.velocity.getDy());
-                }
-            }
-        }
-
-        this.center = this.velocity.applyToPoint(this.center);
-    }
-
-    /**
-     * Notifies the ball that time has passed.
-     * This method is part of the Sprite interface and is called once per frame.
-     */
-    @Override
-    public void timePassed() {
-        this.moveOneStep();
-    }
-
-    /**
-     * Adds the ball to the game (as a sprite).
-     *
-     * @param g the game to add this ball to.
-     */
-    public void addToGame(GameLevel g) {
-        g.addSprite(this);
-    }
-}
+package sprites;
+
+import biuoop.DrawSurface;
+import java.awt.Color;
+
+import geometry.Point;
+import geometry.Velocity;
+import geometry.Vector2;
+
+import collisions.CollisionInfo;
+import collisions.GameEnvironment;
+
+import game.GameLevel;
+
+/**
+ * The Ball class represents a circle that can be drawn and animated.
+ * It moves with velocity, can bounce inside a defined frame,
+ * react to a forbidden area as a bouncing wall, and interact with Collidable objects.
+ */
+public class Ball implements Sprite {
+    /** How many collisions a single step may resolve before the rest of the step is dropped. */
+    public static final int DEFAULT_MAX_CONTACTS_PER_STEP = 4;
+
+    /** How far off a surface the ball is left after a collision, so it does not start the next trace inside. */
+    static final double CONTACT_SKIN = 0.01;
+    /** How close, in steps, to the frame a ball must be for bounceOffFrame to turn it back. */
+    private static final double FRAME_SLACK = 1e-9;
+
+    private final Vector2 position = new Vector2();
+    private final Vector2 motion = new Vector2();
+    private final Vector2 previous = new Vector2();
+    private boolean moving;
+    private Point centerView;
+    private Velocity velocityView;
+    private int radius;
+    private Color color;
+
+    private int minX = 0, minY = 0, maxX = 800, maxY = 600;
+    private boolean hasForbiddenRect = false;
+    private int fx1, fy1, fx2, fy2;
+
+    private GameEnvironment environment;
+    private boolean sweptCollision;
+    private boolean eventDriven;
+    private int maxContactsPerStep = DEFAULT_MAX_CONTACTS_PER_STEP;
+    private int contactsLastStep;
+
+    private boolean hasPrefetch;
+    private CollisionInfo prefetched;
+    private final CollisionInfo collision = new CollisionInfo();
+    private double prefetchX;
+    private double prefetchY;
+    private double prefetchDx;
+    private double prefetchDy;
+    private long prefetchVersion;
+
+    private int drawnX;
+    private int drawnY;
+    private int drawnRadius = -1;
+    private Color drawnColor;
+
+    private BallSystem system;
+    private int slot;
+    private int gameIndex = -1;
+
+    /**
+     * Sets the game environment that the ball interacts with.
+     *
+     * @param env the GameEnvironment to use for collision detection.
+     */
+    public void setGameEnvironment(GameEnvironment env) {
+        this.environment = env;
+    }
+
+    /**
+     * Chooses how the ball looks for collisions. In swept mode the whole circle is swept along
+     * its path (continuous collision detection), so its radius is respected and a fast ball cannot
+     * tunnel through thin blocks; otherwise only the center's path is tested.
+     *
+     * @param swept true to sweep the full circle, false to cast the center only.
+     */
+    public void setSweptCollision(boolean swept) {
+        this.sweptCollision = swept;
+    }
+
+    /**
+     * Tells whether the ball sweeps its full circle when looking for collisions.
+     *
+     * @return true in swept mode.
+     */
+    public boolean isSweptCollision() {
+        return this.sweptCollision;
+    }
+
+    /**
+     * Hands the ball's motion over to an event-driven scheduler. While event driven,
+     * timePassed does not move the ball; the scheduler advances it and resolves its collisions.
+     *
+     * @param eventDriven true when a scheduler moves the ball.
+     */
+    public void setEventDriven(boolean eventDriven) {
+        this.eventDriven = eventDriven;
+    }
+
+    /**
+     * Limits how many collisions a single step may resolve. Once the limit is reached,
+     * whatever distance is left of the step is dropped.
+     *
+     * @param maxContacts the maximal number of contacts per step (at least 1).
+     */
+    public void setMaxContactsPerStep(int maxContacts) {
+        this.maxContactsPerStep = Math.max(1, maxContacts);
+    }
+
+    /**
+     * Returns how many collisions the last step resolved, for monitoring.
+     *
+     * @return the number of contacts during the last call to moveOneStep.
+     */
+    public int getContactsLastStep() {
+        return this.contactsLastStep;
+    }
+
+    /**
+     * Constructs a Ball with a center, radius, and color.
+     *
+     * @param center center point
+     * @param r      radius of the ball
+     * @param color  color of the ball
+     */
+    public Ball(Point center, int r, Color color) {
+        this.position.set(center);
+        this.previous.set(center);
+        this.centerView = center;
+        this.radius = Math.max(1, r);
+        this.color = (color != null) ? color : Color.BLACK;
+    }
+
+    /**
+     * Constructs a Ball with center coordinates, radius, and color.
+     *
+     * @param x     x-coordinate
+     * @param y     y-coordinate
+     * @param r     radius
+     * @param color color
+     */
+    public Ball(int x, int y, int r, Color color) {
+        this(new Point(x, y), r, color);
+    }
+
+    /**
+     * Gets the x-coordinate of the center.
+     *
+     * @return x-coordinate
+     */
+    public int getX() {
+        if (this.system != null) {
+            return (int) this.system.getX(this.slot);
+        }
+        return (int) this.position.getX();
+    }
+
+    /**
+     * Gets the y-coordinate of the center.
+     *
+     * @return y-coordinate
+     */
+    public int getY() {
+        if (this.system != null) {
+            return (int) this.system.getY(this.slot);
+        }
+        return (int) this.position.getY();
+    }
+
+    /**
+     * Gets the exact center of the ball. A new point is only created after the ball has moved.
+     *
+     * @return the center point
+     */
+    public Point getCenter() {
+        if (this.system != null) {
+            return new Point(this.system.getX(this.slot), this.system.getY(this.slot));
+        }
+        if (this.centerView == null) {
+            this.centerView = this.position.toPoint();
+        }
+        return this.centerView;
+    }
+
+    /**
+     * Puts the ball somewhere else at once, without moving it there (no collisions, no interpolation),
+     * for example when a saved game state is restored.
+     *
+     * @param x the x of the new center.
+     * @param y the y of the new center.
+     */
+    public void setCenter(double x, double y) {
+        if (this.system != null) {
+            this.system.setCenter(this.slot, x, y);
+            return;
+        }
+        this.position.set(x, y);
+        this.previous.set(x, y);
+        this.centerView = null;
+        this.hasPrefetch = false;
+    }
+
+    /**
+     * Gets the radius of the ball.
+     *
+     * @return radius
+     */
+    public int getSize() {
+        if (this.system != null) {
+            return this.system.getRadius(this.slot);
+        }
+        return this.radius;
+    }
+
+    /**
+     * Gets the color of the ball.
+     *
+     * @return color
+     */
+    public Color getColor() {
+        if (this.system != null) {
+            return this.system.getColor(this.slot);
+        }
+        return this.color;
+    }
+
+    /**
+     * Sets the color of the ball.
+     *
+     * @param color the new color to assign to the ball.
+     */
+    public void setColor(Color color) {
+        if (this.system != null) {
+            this.system.setColor(this.slot, color);
+            return;
+        }
+        this.color = color;
+    }
+
+    /**
+     * Draws the ball on the provided surface.
+     *
+     * @param surface DrawSurface to draw on
+     */
+    public void drawOn(DrawSurface surface) {
+        drawOn(surface, 1);
+    }
+
+    /**
+     * Draws the ball between where it was before the last timePassed() and where it is now.
+     *
+     * @param surface DrawSurface to draw on
+     * @param alpha   how far along, from 0 (the previous center) to 1 (the current center)
+     */
+    @Override
+    public void drawOn(DrawSurface surface, double alpha) {
+        if (surface != null) {
+            surface.setColor(getColor());
+            surface.fillCircle(screenX(alpha), screenY(alpha), getSize());
+        }
+    }
+
+    /**
+     * @param alpha how far between the previous and the current center.
+     * @return the x at which the ball is drawn.
+     */
+    private int screenX(double alpha) {
+        if (this.system != null) {
+            return getX();
+        }
+        return interpolate(this.previous.getX(), this.position.getX(), alpha);
+    }
+
+    /**
+     * @param alpha how far between the previous and the current center.
+     * @return the y at which the ball is drawn.
+     */
+    private int screenY(double alpha) {
+        if (this.system != null) {
+            return getY();
+        }
+        return interpolate(this.previous.getY(), this.position.getY(), alpha);
+    }
+
+    /**
+     * Finds the pixel coordinate part of the way between two coordinates.
+     * At 1 it is exactly the pixel of the second, as when drawing without interpolation.
+     *
+     * @param from  the coordinate at 0.
+     * @param to    the coordinate at 1.
+     * @param alpha how far along.
+     * @return the pixel coordinate.
+     */
+    static int interpolate(double from, double to, double alpha) {
+        return (int) (alpha >= 1 ? to : from + (to - from) * alpha);
+    }
+
+    /**
+     * Marks the square around the ball, both where it was last reported and where it is now.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addBounds(DirtyRegions regions) {
+        if (this.drawnRadius >= 0) {
+            addCircle(regions, this.drawnX, this.drawnY, this.drawnRadius);
+        }
+        addCircle(regions, getX(), getY(), this.radius);
+    }
+
+    /**
+     * Marks the ball's old and new squares if it moved or changed since the previous frame.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addDamage(DirtyRegions regions) {
+        addDamage(regions, 1);
+    }
+
+    /**
+     * Marks the ball's old and new squares if it is drawn elsewhere or differently than in the previous frame.
+     *
+     * @param regions the regions to add to.
+     * @param alpha   how far between the previous and the current center the ball is drawn.
+     */
+    @Override
+    public void addDamage(DirtyRegions regions, double alpha) {
+        int x = screenX(alpha);
+        int y = screenY(alpha);
+        if (x == this.drawnX && y == this.drawnY && this.radius == this.drawnRadius && this.color == this.drawnColor) {
+            return;
+        }
+        if (this.drawnRadius >= 0) {
+            addCircle(regions, this.drawnX, this.drawnY, this.drawnRadius);
+        }
+        addCircle(regions, x, y, this.radius);
+        this.drawnX = x;
+        this.drawnY = y;
+        this.drawnRadius = this.radius;
+        this.drawnColor = this.color;
+    }
+
+    /**
+     * Marks the square covering a circle, with a pixel to spare for rounding.
+     *
+     * @param regions the regions to add to.
+     * @param x       the x of the center.
+     * @param y       the y of the center.
+     * @param r       the radius.
+     */
+    static void addCircle(DirtyRegions regions, int x, int y, int r) {
+        regions.add(x - r - 1, y - r - 1, 2 * r + 3, 2 * r + 3);
+    }
+
+    /**
+     * Sets the ball's velocity.
+     *
+     * @param v velocity to assign
+     */
+    public void setVelocity(Velocity v) {
+        if (this.system != null) {
+            this.system.setVelocity(this.slot, v);
+            return;
+        }
+        this.moving = v != null;
+        if (v != null) {
+            this.motion.set(v);
+        }
+        this.velocityView = v;
+    }
+
+    /**
+     * Sets the velocity by dx and dy values.
+     *
+     * @param dx delta x
+     * @param dy delta y
+     */
+    public void setVelocity(double dx, double dy) {
+        if (this.system != null) {
+            this.system.setVelocity(this.slot, new Velocity(dx, dy));
+            return;
+        }
+        this.moving = true;
+        this.motion.set(dx, dy);
+        this.velocityView = null;
+    }
+
+    /**
+     * Gets the velocity. A new velocity is only created after the ball's velocity has changed.
+     *
+     * @return current velocity
+     */
+    public Velocity getVelocity() {
+        if (this.system != null) {
+            return this.system.getVelocity(this.slot);
+        }
+        if (!this.moving) {
+            return null;
+        }
+        if (this.velocityView == null) {
+            this.velocityView = this.motion.toVelocity();
+        }
+        return this.velocityView;
+    }
+
+    /**
+     * Defines the frame boundaries where the ball is allowed to move.
+     *
+     * @param minX left boundary
+     * @param minY top boundary
+     * @param maxX right boundary
+     * @param maxY bottom boundary
+     */
+    public void setFrame(int minX, int minY, int maxX, int maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Defines a forbidden area that the ball should bounce off.
+     *
+     * @param x1 top-left x
+     * @param y1 top-left y
+     * @param x2 bottom-right x
+     * @param y2 bottom-right y
+     */
+    public void setForbiddenArea(int x1, int y1, int x2, int y2) {
+        this.fx1 = x1;
+        this.fy1 = y1;
+        this.fx2 = x2;
+        this.fy2 = y2;
+        this.hasForbiddenRect = true;
+    }
+
+    /**
+     * Moves the ball one step forward.
+     * Considers collisions with walls, forbidden area, and GameEnvironment.
+     * After a collision the ball keeps going with its new velocity for the rest of the step,
+     * bouncing up to the configured number of contacts, so it always covers its full speed.
+     */
+    public void moveOneStep() {
+        if (this.system != null) {
+            this.system.step(this.slot);
+            return;
+        }
+        if (!this.moving) {
+            return;
+        }
+
+        this.contactsLastStep = 0;
+        double remaining = 1;
+        if (this.environment != null) {
+            while (remaining > 0) {
+                CollisionInfo info;
+                if (remaining == 1 && prefetchIsValid()) {
+                    info = this.prefetched;
+                } else {
+                    double x0 = this.position.getX();
+                    double y0 = this.position.getY();
+                    info = this.environment.findClosestCollision(x0, y0,
+                            x0 + this.motion.getX() * remaining, y0 + this.motion.getY() * remaining,
+                            getCollisionRadius(), this.collision) ? this.collision : null;
+                }
+                this.hasPrefetch = false;
+                if (info == null) {
+                    break;
+                }
+
+                // Move to the impact and spend that part of the step.
+                double t = info.collisionTime();
+                moveBy(remaining * t);
+                remaining *= 1 - t;
+
+                collide(info);
+                this.contactsLastStep++;
+                if (this.contactsLastStep >= this.maxContactsPerStep) {
+                    return;
+                }
+            }
+        }
+
+        double nx = this.position.getX() + this.motion.getX() * remaining;
+        double ny = this.position.getY() + this.motion.getY() * remaining;
+
+        if (nx - radius <= minX || nx + radius >= maxX) {
+            flipX();
+        }
+        if (ny - radius <= minY || ny + radius >= maxY) {
+            flipY();
+        }
+
+        nx = this.position.getX() + this.motion.getX() * remaining;
+        ny = this.position.getY() + this.motion.getY() * remaining;
+
+        if (hasForbiddenRect) {
+            boolean nextInside = nx + radius > fx1 && nx - radius < fx2
+                    && ny + radius > fy1 && ny - radius < fy2;
+            boolean currentlyOutside = position.getX() + radius <= fx1
+                    || position.getX() - radius >= fx2
+                    || position.getY() + radius <= fy1
+                    || position.getY() - radius >= fy2;
+
+            if (nextInside && currentlyOutside) {
+                if (nx + radius > fx1 && nx - radius < fx2) {
+                    flipX();
+                }
+                if (ny + radius > fy1 && ny - radius < fy2) {
+                    flipY();
+                }
+            }
+        }
+
+        moveBy(remaining);
+    }
+
+    /**
+     * Moves the center along the velocity for part of a step, in place.
+     *
+     * @param fraction the part of a full step to move.
+     */
+    private void moveBy(double fraction) {
+        if (fraction != 0) {
+            this.position.addScaled(this.motion, fraction);
+            this.centerView = null;
+        }
+    }
+
+    /**
+     * Reverses the horizontal direction, in place.
+     */
+    private void flipX() {
+        this.motion.negateX();
+        this.velocityView = null;
+    }
+
+    /**
+     * Reverses the vertical direction, in place.
+     */
+    private void flipY() {
+        this.motion.negateY();
+        this.velocityView = null;
+    }
+
+    /**
+     * Writes the path the ball would follow during its next step if nothing were in the way
+     * into entry i of the given arrays. A ball with no velocity gets a path of length 0 at its center.
+     *
+     * @param x0 receives the x of the start.
+     * @param y0 receives the y of the start.
+     * @param x1 receives the x of the end.
+     * @param y1 receives the y of the end.
+     * @param i  the entry to write.
+     */
+    public void nextTrajectory(double[] x0, double[] y0, double[] x1, double[] y1, int i) {
+        x0[i] = this.position.getX();
+        y0[i] = this.position.getY();
+        x1[i] = this.moving ? x0[i] + this.motion.getX() : x0[i];
+        y1[i] = this.moving ? y0[i] + this.motion.getY() : y0[i];
+    }
+
+    /**
+     * Returns the radius the ball uses when looking for collisions.
+     *
+     * @return the ball radius in swept mode, 0 when only the center is cast.
+     */
+    public double getCollisionRadius() {
+        if (this.system != null) {
+            return this.system.isSweptCollision() ? getSize() : 0;
+        }
+        return this.sweptCollision ? this.radius : 0;
+    }
+
+    /**
+     * Hands the ball the collision of its next trajectory, computed ahead of time
+     * (for example in a batched query over all balls). The next step uses it instead of querying
+     * the environment, unless the ball or the environment changed in the meantime.
+     *
+     * The ball keeps the given object rather than a copy, so it must not change before the ball's next step.
+     *
+     * @param info the closest collision on nextTrajectory(), or null if there is none.
+     */
+    public void prefetchCollision(CollisionInfo info) {
+        if (this.environment == null) {
+            return;
+        }
+        this.hasPrefetch = true;
+        this.prefetched = info;
+        this.prefetchX = this.position.getX();
+        this.prefetchY = this.position.getY();
+        this.prefetchDx = this.motion.getX();
+        this.prefetchDy = this.motion.getY();
+        this.prefetchVersion = this.environment.getModificationCount();
+    }
+
+    /**
+     * @return true if the prefetched collision still describes the ball's next step.
+     */
+    private boolean prefetchIsValid() {
+        return this.hasPrefetch
+                && this.prefetchX == this.position.getX()
+                && this.prefetchY == this.position.getY()
+                && this.prefetchDx == this.motion.getX()
+                && this.prefetchDy == this.motion.getY()
+                && this.prefetchVersion == this.environment.getModificationCount();
+    }
+
+    /**
+     * Resolves a collision the ball is at right now: leaves the ball just off the surface it touches
+     * and lets the object that was hit decide the new velocity.
+     *
+     * @param info the collision, as found for the ball's current position.
+     */
+    public void collide(CollisionInfo info) {
+        this.position.add(info.normalX() * CONTACT_SKIN, info.normalY() * CONTACT_SKIN);
+        this.centerView = null;
+        info.collisionObject().hit(this, info, this.motion);
+        this.velocityView = null;
+    }
+
+    /**
+     * Moves the ball along its velocity for the given number of steps, ignoring collisions.
+     * Used when collisions are scheduled ahead of time, so the path is known to be free.
+     *
+     * @param steps how many steps (may be fractional) to move.
+     */
+    public void advanceBy(double steps) {
+        if (this.moving) {
+            moveBy(steps);
+        }
+    }
+
+    /**
+     * Returns how many steps the standalone ball can move along its velocity before its edge reaches
+     * the frame set by setFrame, where moveOneStep would turn it back.
+     *
+     * @return the number of steps, 0 if it is already there, or infinity if it never gets there.
+     */
+    public double stepsToFrame() {
+        if (!this.moving) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.min(stepsToEdge(this.position.getX(), this.motion.getX(), this.minX, this.maxX),
+                stepsToEdge(this.position.getY(), this.motion.getY(), this.minY, this.maxY));
+    }
+
+    /**
+     * @param at  the coordinate of the center.
+     * @param d   the velocity along the axis.
+     * @param min the low edge of the frame on the axis.
+     * @param max the high edge of the frame on the axis.
+     * @return how many steps until the ball's edge reaches the frame edge it moves toward.
+     */
+    private double stepsToEdge(double at, double d, int min, int max) {
+        if (d < 0) {
+            return Math.max(0, (min + this.radius - at) / d);
+        }
+        if (d > 0) {
+            return Math.max(0, (max - this.radius - at) / d);
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Turns the standalone ball back on each axis where its edge is at the frame and it moves outward,
+     * as moveOneStep does when the ball reaches the frame.
+     */
+    public void bounceOffFrame() {
+        if (stepsToEdge(this.position.getX(), this.motion.getX(), this.minX, this.maxX) < FRAME_SLACK) {
+            flipX();
+        }
+        if (stepsToEdge(this.position.getY(), this.motion.getY(), this.minY, this.maxY) < FRAME_SLACK) {
+            flipY();
+        }
+    }
+
+    /**
+     * @return true if a forbidden area was set with setForbiddenArea.
+     */
+    public boolean hasForbiddenArea() {
+        return this.hasForbiddenRect;
+    }
+
+    /**
+     * Notifies the ball that time has passed.
+     * This method is part of the Sprite interface and is called once per frame.
+     * Event-driven balls are moved by their scheduler instead.
+     */
+    @Override
+    public void timePassed() {
+        if (this.system == null) {
+            this.previous.set(this.position.getX(), this.position.getY());
+        }
+        if (!this.eventDriven && this.system == null) {
+            this.moveOneStep();
+        }
+    }
+
+    /**
+     * @return the system holding this ball, or null if it is standalone.
+     */
+    public BallSystem getSystem() {
+        return this.system;
+    }
+
+    /**
+     * Gives the ball its place among all balls of its game, so the game can find it without searching.
+     *
+     * @param index the place, or -1 for none.
+     */
+    public void setGameIndex(int index) {
+        this.gameIndex = index;
+    }
+
+    /**
+     * @return the ball's place among all balls of its game, or -1 if the game gave it none.
+     */
+    public int getGameIndex() {
+        return this.gameIndex;
+    }
+
+    /**
+     * @return the ball's slot in its system.
+     */
+    int getSlot() {
+        return this.slot;
+    }
+
+    /**
+     * Turns the ball into a handle on a slot of a system.
+     *
+     * @param owner the system.
+     * @param index the slot.
+     */
+    void attach(BallSystem owner, int index) {
+        this.system = owner;
+        this.slot = index;
+    }
+
+    /**
+     * Makes the ball standalone again.
+     *
+     * @param c the ball's center when it left the system.
+     * @param v its velocity, or null.
+     * @param col its colour.
+     */
+    void detach(Point c, Velocity v, Color col) {
+        this.system = null;
+        this.position.set(c);
+        this.previous.set(c);
+        this.centerView = c;
+        setVelocity(v);
+        this.color = col;
+    }
+
+    /**
+     * Adds the ball to the game (as a sprite).
+     *
+     * @param g the game to add this ball to.
+     */
+    public void addToGame(GameLevel g) {
+        g.addSprite(this);
+    }
+}
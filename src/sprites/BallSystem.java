@@ -0,0 +1,587 @@
+package sprites;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import collisions.CollisionInfo;
+import collisions.GameEnvironment;
+import geometry.Point;
+import geometry.Vector2;
+import geometry.Velocity;
+
+/**
+ * A BallSystem moves and draws many balls at once. Positions, velocities, radii and colours are kept
+ * in primitive arrays (one slot per ball), all balls are moved in one loop and drawn in one pass
+ * grouped by colour, and a step without a collision allocates nothing.
+ * The system is a single sprite. Each ball in it stays reachable through its Ball object, which becomes a
+ * handle on its slot, so hit listeners and collidables keep working with Ball as before.
+ * Balls in a system are moved by the system; event-driven scheduling and prefetched collisions
+ * work on standalone balls only. Balls move in the order they were added; with setKeepRemovedOrder(true),
+ * a ball added again after it was removed goes back to its old place.
+ */
+public class BallSystem implements Sprite {
+    private static final int MAX_COLORS = 256;
+
+    private double[] x;
+    private double[] y;
+    private double[] dx;
+    private double[] dy;
+    private double[] previousX;
+    private double[] previousY;
+    private boolean[] moving;
+    private int[] radius;
+    private byte[] colorIndex;
+    private boolean[] removed;
+    private int[] drawnX;
+    private int[] drawnY;
+    private int[] drawnRadius;
+    private byte[] drawnColor;
+    private Ball[] handles;
+    private long[] order;
+    private int count;
+    private long nextOrder;
+    private Map<Ball, Long> retired;
+    private final List<Color> palette;
+
+    private GameEnvironment environment;
+    private final CollisionInfo collision = new CollisionInfo();
+    private final Vector2 hitVelocity = new Vector2();
+    private int contactsLastStep;
+    private boolean sweptCollision;
+    private int maxContactsPerStep = Ball.DEFAULT_MAX_CONTACTS_PER_STEP;
+    private int minX = 0;
+    private int minY = 0;
+    private int maxX = 800;
+    private int maxY = 600;
+
+    private boolean updating;
+    private boolean trackingDamage;
+    private int[] goneSquares;
+    private int goneCount;
+    private int[] colorStart;
+    private int[] drawOrder;
+
+    /**
+     * Constructs an empty system.
+     */
+    public BallSystem() {
+        this.palette = new ArrayList<>();
+        this.goneSquares = new int[48];
+        resize(16);
+    }
+
+    /**
+     * @param capacity the new length of the per-ball arrays.
+     */
+    private void resize(int capacity) {
+        this.x = Arrays.copyOf(this.x == null ? new double[0] : this.x, capacity);
+        this.y = Arrays.copyOf(this.y == null ? new double[0] : this.y, capacity);
+        this.dx = Arrays.copyOf(this.dx == null ? new double[0] : this.dx, capacity);
+        this.dy = Arrays.copyOf(this.dy == null ? new double[0] : this.dy, capacity);
+        this.previousX = Arrays.copyOf(this.previousX == null ? new double[0] : this.previousX, capacity);
+        this.previousY = Arrays.copyOf(this.previousY == null ? new double[0] : this.previousY, capacity);
+        this.moving = Arrays.copyOf(this.moving == null ? new boolean[0] : this.moving, capacity);
+        this.radius = Arrays.copyOf(this.radius == null ? new int[0] : this.radius, capacity);
+        this.colorIndex = Arrays.copyOf(this.colorIndex == null ? new byte[0] : this.colorIndex, capacity);
+        this.removed = Arrays.copyOf(this.removed == null ? new boolean[0] : this.removed, capacity);
+        this.drawnX = Arrays.copyOf(this.drawnX == null ? new int[0] : this.drawnX, capacity);
+        this.drawnY = Arrays.copyOf(this.drawnY == null ? new int[0] : this.drawnY, capacity);
+        this.drawnRadius = Arrays.copyOf(this.drawnRadius == null ? new int[0] : this.drawnRadius, capacity);
+        this.drawnColor = Arrays.copyOf(this.drawnColor == null ? new byte[0] : this.drawnColor, capacity);
+        this.handles = Arrays.copyOf(this.handles == null ? new Ball[0] : this.handles, capacity);
+        this.order = Arrays.copyOf(this.order == null ? new long[0] : this.order, capacity);
+        this.drawOrder = new int[capacity];
+    }
+
+    /**
+     * Sets the game environment that all balls collide with.
+     *
+     * @param env the environment, or null for none.
+     */
+    public void setGameEnvironment(GameEnvironment env) {
+        this.environment = env;
+    }
+
+    /**
+     * Chooses whether the balls sweep their full circle or only cast their centers when looking for collisions.
+     *
+     * @param swept true to sweep the full circle.
+     */
+    public void setSweptCollision(boolean swept) {
+        this.sweptCollision = swept;
+    }
+
+    /**
+     * @return true if the balls sweep their full circle.
+     */
+    public boolean isSweptCollision() {
+        return this.sweptCollision;
+    }
+
+    /**
+     * Limits how many collisions a single step of one ball may resolve.
+     *
+     * @param maxContacts the maximum, at least 1.
+     */
+    public void setMaxContactsPerStep(int maxContacts) {
+        this.maxContactsPerStep = Math.max(1, maxContacts);
+    }
+
+    /**
+     * Defines the frame the balls bounce inside.
+     *
+     * @param left   left boundary.
+     * @param top    top boundary.
+     * @param right  right boundary.
+     * @param bottom bottom boundary.
+     */
+    public void setFrame(int left, int top, int right, int bottom) {
+        this.minX = left;
+        this.minY = top;
+        this.maxX = right;
+        this.maxY = bottom;
+    }
+
+    /**
+     * @return how many collisions all the balls together resolved during the last pass.
+     */
+    public int getContactsLastStep() {
+        return this.contactsLastStep;
+    }
+
+    /**
+     * @return the number of balls in the system.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Sets whether removed balls remember their place, so that adding one again puts it back there.
+     * Off by default, since only a game that goes back to earlier states needs it.
+     *
+     * @param keep true to remember the places of balls removed from now on.
+     */
+    public void setKeepRemovedOrder(boolean keep) {
+        if (!keep) {
+            this.retired = null;
+        } else if (this.retired == null) {
+            this.retired = new IdentityHashMap<>();
+        }
+    }
+
+    /**
+     * Moves a ball into the system. From now on its Ball object reads and writes the system's arrays.
+     *
+     * @param ball a standalone ball.
+     */
+    public void add(Ball ball) {
+        if (ball.getSystem() != null) {
+            return;
+        }
+        if (this.count == this.x.length) {
+            resize(this.count * 2);
+        }
+        Long oldOrder = this.retired != null ? this.retired.remove(ball) : null;
+        long ballOrder = oldOrder != null ? oldOrder : this.nextOrder++;
+        int i = this.count++;
+        while (i > 0 && this.order[i - 1] > ballOrder) {
+            moveSlot(i - 1, i);
+            i--;
+        }
+        this.order[i] = ballOrder;
+        Point center = ball.getCenter();
+        Velocity v = ball.getVelocity();
+        this.x[i] = center.getX();
+        this.y[i] = center.getY();
+        this.previousX[i] = this.x[i];
+        this.previousY[i] = this.y[i];
+        this.moving[i] = v != null;
+        this.dx[i] = v != null ? v.getDx() : 0;
+        this.dy[i] = v != null ? v.getDy() : 0;
+        this.radius[i] = ball.getSize();
+        this.colorIndex[i] = indexOf(ball.getColor());
+        this.removed[i] = false;
+        this.drawnRadius[i] = -1;
+        this.handles[i] = ball;
+        ball.attach(this, i);
+    }
+
+    /**
+     * Takes a ball out of the system; its Ball object becomes standalone again with the ball's last state.
+     * While the balls are being moved, the slot is only marked and freed once the pass is over.
+     *
+     * @param ball a ball in this system.
+     */
+    public void remove(Ball ball) {
+        if (ball.getSystem() != this) {
+            return;
+        }
+        int i = ball.getSlot();
+        if (this.removed[i]) {
+            return;
+        }
+        this.removed[i] = true;
+        if (!this.updating) {
+            detachSlot(i);
+            compact();
+        }
+    }
+
+    /**
+     * Gives the ball of a removed slot back its own state, and remembers where it was drawn.
+     *
+     * @param i the slot.
+     */
+    private void detachSlot(int i) {
+        Ball ball = this.handles[i];
+        if (this.retired != null) {
+            this.retired.put(ball, this.order[i]);
+        }
+        ball.detach(new Point(this.x[i], this.y[i]),
+                this.moving[i] ? new Velocity(this.dx[i], this.dy[i]) : null, this.palette.get(this.colorIndex[i] & 0xFF));
+        if (this.trackingDamage && this.drawnRadius[i] >= 0) {
+            if (this.goneCount * 3 == this.goneSquares.length) {
+                this.goneSquares = Arrays.copyOf(this.goneSquares, this.goneSquares.length * 2);
+            }
+            this.goneSquares[this.goneCount * 3] = this.drawnX[i];
+            this.goneSquares[this.goneCount * 3 + 1] = this.drawnY[i];
+            this.goneSquares[this.goneCount * 3 + 2] = this.drawnRadius[i];
+            this.goneCount++;
+        }
+    }
+
+    /**
+     * Closes the gaps left by removed slots, keeping the remaining balls in order,
+     * so the balls always move in the order they were added whatever order others left in.
+     */
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < this.count; i++) {
+            if (this.removed[i]) {
+                continue;
+            }
+            if (i != kept) {
+                moveSlot(i, kept);
+            }
+            kept++;
+        }
+        Arrays.fill(this.handles, kept, this.count, null);
+        this.count = kept;
+    }
+
+    /**
+     * Copies a ball to another slot, and points its handle there.
+     *
+     * @param from the slot the ball is in.
+     * @param to   the slot to move it to.
+     */
+    private void moveSlot(int from, int to) {
+        this.x[to] = this.x[from];
+        this.y[to] = this.y[from];
+        this.dx[to] = this.dx[from];
+        this.dy[to] = this.dy[from];
+        this.previousX[to] = this.previousX[from];
+        this.previousY[to] = this.previousY[from];
+        this.moving[to] = this.moving[from];
+        this.radius[to] = this.radius[from];
+        this.colorIndex[to] = this.colorIndex[from];
+        this.removed[to] = this.removed[from];
+        this.drawnX[to] = this.drawnX[from];
+        this.drawnY[to] = this.drawnY[from];
+        this.drawnRadius[to] = this.drawnRadius[from];
+        this.drawnColor[to] = this.drawnColor[from];
+        this.order[to] = this.order[from];
+        this.handles[to] = this.handles[from];
+        this.handles[to].attach(this, to);
+    }
+
+    /**
+     * @param color a colour.
+     * @return its index in the palette, added if new.
+     */
+    private byte indexOf(Color color) {
+        int index = this.palette.indexOf(color);
+        if (index < 0) {
+            if (this.palette.size() == MAX_COLORS) {
+                throw new IllegalStateException("A ball system supports at most " + MAX_COLORS + " colours");
+            }
+            index = this.palette.size();
+            this.palette.add(color);
+        }
+        return (byte) index;
+    }
+
+    /**
+     * @param i a slot.
+     * @return the x of its ball's center.
+     */
+    double getX(int i) {
+        return this.x[i];
+    }
+
+    /**
+     * @param i a slot.
+     * @return the y of its ball's center.
+     */
+    double getY(int i) {
+        return this.y[i];
+    }
+
+    /**
+     * Puts a ball somewhere else at once, without moving it there.
+     *
+     * @param i     a slot.
+     * @param newX  the x of the new center.
+     * @param newY  the y of the new center.
+     */
+    void setCenter(int i, double newX, double newY) {
+        this.x[i] = newX;
+        this.y[i] = newY;
+        this.previousX[i] = newX;
+        this.previousY[i] = newY;
+    }
+
+    /**
+     * @param i a slot.
+     * @return its ball's radius.
+     */
+    int getRadius(int i) {
+        return this.radius[i];
+    }
+
+    /**
+     * @param i a slot.
+     * @return its ball's colour.
+     */
+    Color getColor(int i) {
+        return this.palette.get(this.colorIndex[i] & 0xFF);
+    }
+
+    /**
+     * @param i     a slot.
+     * @param color the new colour of its ball.
+     */
+    void setColor(int i, Color color) {
+        this.colorIndex[i] = indexOf(color);
+    }
+
+    /**
+     * @param i a slot.
+     * @return its ball's velocity, or null if it has none.
+     */
+    Velocity getVelocity(int i) {
+        return this.moving[i] ? new Velocity(this.dx[i], this.dy[i]) : null;
+    }
+
+    /**
+     * @param i a slot.
+     * @param v the new velocity of its ball, or null to stop it.
+     */
+    void setVelocity(int i, Velocity v) {
+        this.moving[i] = v != null;
+        this.dx[i] = v != null ? v.getDx() : 0;
+        this.dy[i] = v != null ? v.getDy() : 0;
+    }
+
+    /**
+     * Moves one ball a full step, the same way Ball.moveOneStep moves a standalone ball:
+     * up to the configured number of collisions, then a bounce off the frame.
+     *
+     * @param i the slot of the ball.
+     */
+    void step(int i) {
+        if (!this.moving[i]) {
+            return;
+        }
+        double remaining = 1;
+        if (this.environment != null) {
+            double r = this.sweptCollision ? this.radius[i] : 0;
+            int contacts = 0;
+            while (remaining > 0) {
+                double cx = this.x[i];
+                double cy = this.y[i];
+                CollisionInfo info = this.collision;
+                if (!this.environment.findClosestCollision(cx, cy,
+                        cx + this.dx[i] * remaining, cy + this.dy[i] * remaining, r, info)) {
+                    break;
+                }
+
+                // Move to the impact and spend that part of the step.
+                double t = info.collisionTime();
+                this.x[i] = cx + this.dx[i] * remaining * t;
+                this.y[i] = cy + this.dy[i] * remaining * t;
+                remaining *= 1 - t;
+
+                this.x[i] += info.normalX() * Ball.CONTACT_SKIN;
+                this.y[i] += info.normalY() * Ball.CONTACT_SKIN;
+                Vector2 v = this.hitVelocity.set(this.dx[i], this.dy[i]);
+                info.collisionObject().hit(this.handles[i], info, v);
+                this.dx[i] = v.getX();
+                this.dy[i] = v.getY();
+                contacts++;
+                this.contactsLastStep++;
+                if (this.removed[i] || !this.moving[i] || contacts >= this.maxContactsPerStep) {
+                    return;
+                }
+            }
+        }
+
+        int r = this.radius[i];
+        double nx = this.x[i] + this.dx[i] * remaining;
+        double ny = this.y[i] + this.dy[i] * remaining;
+        if (nx - r <= this.minX || nx + r >= this.maxX) {
+            this.dx[i] = -this.dx[i];
+        }
+        if (ny - r <= this.minY || ny + r >= this.maxY) {
+            this.dy[i] = -this.dy[i];
+        }
+        this.x[i] += this.dx[i] * remaining;
+        this.y[i] += this.dy[i] * remaining;
+    }
+
+    /**
+     * Moves every ball one step, then frees the slots of balls removed meanwhile.
+     * Balls added during the pass first move on the next one.
+     * The centers before the step are kept for drawing in between.
+     */
+    @Override
+    public void timePassed() {
+        int n = this.count;
+        System.arraycopy(this.x, 0, this.previousX, 0, n);
+        System.arraycopy(this.y, 0, this.previousY, 0, n);
+        this.contactsLastStep = 0;
+        this.updating = true;
+        try {
+            for (int i = 0; i < n; i++) {
+                if (!this.removed[i]) {
+                    step(i);
+                }
+            }
+        } finally {
+            this.updating = false;
+        }
+        boolean anyRemoved = false;
+        for (int i = 0; i < this.count; i++) {
+            if (this.removed[i]) {
+                detachSlot(i);
+                anyRemoved = true;
+            }
+        }
+        if (anyRemoved) {
+            compact();
+        }
+    }
+
+    /**
+     * Draws every ball, setting each colour once.
+     *
+     * @param d the surface to draw on.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        drawOn(d, 1);
+    }
+
+    /**
+     * Draws every ball between its center before the last step and its center now, setting each colour once.
+     *
+     * @param d     the surface to draw on.
+     * @param alpha how far along, from 0 (the previous centers) to 1 (the current centers).
+     */
+    @Override
+    public void drawOn(DrawSurface d, double alpha) {
+        int colors = this.palette.size();
+        if (this.colorStart == null || this.colorStart.length < colors + 1) {
+            this.colorStart = new int[MAX_COLORS + 1];
+        }
+        // Counting sort of the slots by colour.
+        Arrays.fill(this.colorStart, 0, colors + 1, 0);
+        for (int i = 0; i < this.count; i++) {
+            this.colorStart[(this.colorIndex[i] & 0xFF) + 1]++;
+        }
+        for (int k = 0; k < colors; k++) {
+            this.colorStart[k + 1] += this.colorStart[k];
+        }
+        for (int i = 0; i < this.count; i++) {
+            this.drawOrder[this.colorStart[this.colorIndex[i] & 0xFF]++] = i;
+        }
+        // Each start now points at the end of its colour's run.
+        int from = 0;
+        for (int k = 0; k < colors; k++) {
+            int to = this.colorStart[k];
+            if (to > from) {
+                d.setColor(this.palette.get(k));
+                for (int j = from; j < to; j++) {
+                    int i = this.drawOrder[j];
+                    d.fillCircle(Ball.interpolate(this.previousX[i], this.x[i], alpha),
+                            Ball.interpolate(this.previousY[i], this.y[i], alpha), this.radius[i]);
+                }
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Marks the squares of every ball, where it was last reported and where it is now.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addBounds(DirtyRegions regions) {
+        for (int i = 0; i < this.count; i++) {
+            if (this.drawnRadius[i] >= 0) {
+                Ball.addCircle(regions, this.drawnX[i], this.drawnY[i], this.drawnRadius[i]);
+            }
+            Ball.addCircle(regions, (int) this.x[i], (int) this.y[i], this.radius[i]);
+        }
+    }
+
+    /**
+     * Marks the old and new squares of balls that moved or changed, and the last squares of balls that left.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addDamage(DirtyRegions regions) {
+        addDamage(regions, 1);
+    }
+
+    /**
+     * Marks the old and new squares of balls drawn elsewhere or differently than in the previous frame,
+     * and the last squares of balls that left.
+     *
+     * @param regions the regions to add to.
+     * @param alpha   how far between the previous and the current centers the balls are drawn.
+     */
+    @Override
+    public void addDamage(DirtyRegions regions, double alpha) {
+        this.trackingDamage = true;
+        for (int k = 0; k < this.goneCount; k++) {
+            Ball.addCircle(regions, this.goneSquares[k * 3], this.goneSquares[k * 3 + 1], this.goneSquares[k * 3 + 2]);
+        }
+        this.goneCount = 0;
+        for (int i = 0; i < this.count; i++) {
+            int px = Ball.interpolate(this.previousX[i], this.x[i], alpha);
+            int py = Ball.interpolate(this.previousY[i], this.y[i], alpha);
+            if (px == this.drawnX[i] && py == this.drawnY[i] && this.radius[i] == this.drawnRadius[i]
+                    && this.colorIndex[i] == this.drawnColor[i]) {
+                continue;
+            }
+            if (this.drawnRadius[i] >= 0) {
+                Ball.addCircle(regions, this.drawnX[i], this.drawnY[i], this.drawnRadius[i]);
+            }
+            Ball.addCircle(regions, px, py, this.radius[i]);
+            this.drawnX[i] = px;
+            this.drawnY[i] = py;
+            this.drawnRadius[i] = this.radius[i];
+            this.drawnColor[i] = this.colorIndex[i];
+        }
+    }
+}
@@ -0,0 +1,583 @@
+package sprites;
+
+import biuoop.AlphaChannelNotSupportedException;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A BatchingDrawSurface wraps another surface and cuts down its colour changes.
+ * Filled and outlined rectangles are held back and issued grouped by colour: first all fills,
+ * one colour at a time, then all outlines. Any other drawing call (circles, text, images and so on)
+ * first issues everything held back, so layering between sprites is kept: the background is still
+ * drawn first and the HUD last.
+ * Reordering is only safe where the rectangles do not overlap. A fill followed by an outline of the same
+ * rectangle is treated as one box, and neighbouring boxes may share their outline pixels, since those end
+ * up in the outline colour in either order. A rectangle that overlaps a held-back one in any other way
+ * makes the surface issue what it holds first.
+ * The surface counts the calls and colour changes it passes on, so the savings can be measured.
+ */
+public class BatchingDrawSurface implements DrawSurface {
+    private static final int CELL_SIZE = 32;
+
+    /**
+     * A held-back rectangle. The footprint is every pixel it paints; the interior is the part that is
+     * not covered by its outline, which is the whole footprint for a plain fill.
+     */
+    private static class Op {
+        private int x;
+        private int y;
+        private int w;
+        private int h;
+        private int fx0;
+        private int fy0;
+        private int fx1;
+        private int fy1;
+        private int ix0;
+        private int iy0;
+        private int ix1;
+        private int iy1;
+        private Color fill;
+        private Color outline;
+        private int seen;
+    }
+
+    private DrawSurface target;
+    private boolean batching = true;
+    private Color current;
+    private Color forwarded;
+    private final List<Op> ops;
+    private int opCount;
+    private Op open;
+    private int columns;
+    private int rows;
+    private int[] cellHead;
+    private int[] cellStamp;
+    private int[] entryNext;
+    private int[] entryOp;
+    private int entryCount;
+    private int batchId;
+    private int checkId;
+    private final List<Color> colors;
+    private long drawCalls;
+    private long colorSwitches;
+
+    /**
+     * Constructs a batching surface. Call begin() with the surface to draw on before drawing.
+     */
+    public BatchingDrawSurface() {
+        this.ops = new ArrayList<>();
+        this.colors = new ArrayList<>();
+        this.entryNext = new int[256];
+        this.entryOp = new int[256];
+    }
+
+    /**
+     * Turns batching on or off; when off, every call is passed on as it comes, but still counted.
+     *
+     * @param batching true to batch.
+     */
+    public void setBatching(boolean batching) {
+        this.batching = batching;
+    }
+
+    /**
+     * Starts drawing on a new surface. The counters are not reset.
+     *
+     * @param surface the surface to draw on.
+     */
+    public void begin(DrawSurface surface) {
+        this.target = surface;
+        this.current = null;
+        this.forwarded = null;
+        int cols = (surface.getWidth() + CELL_SIZE) / CELL_SIZE + 1;
+        int rowCount = (surface.getHeight() + CELL_SIZE) / CELL_SIZE + 1;
+        if (this.cellHead == null || cols != this.columns || rowCount != this.rows) {
+            this.columns = cols;
+            this.rows = rowCount;
+            this.cellHead = new int[cols * rowCount];
+            this.cellStamp = new int[cols * rowCount];
+            this.batchId = 0;
+        }
+    }
+
+    /**
+     * Issues everything held back. Call at the end of a frame, and before changing the target's
+     * state behind this surface's back (for example its clip).
+     */
+    public void flush() {
+        closeOpen();
+        issuePending();
+    }
+
+    /**
+     * Sets the call and colour-change counters back to zero.
+     */
+    public void resetCounters() {
+        this.drawCalls = 0;
+        this.colorSwitches = 0;
+    }
+
+    /**
+     * @return the number of drawing calls passed on since the counters were reset.
+     */
+    public long getDrawCalls() {
+        return this.drawCalls;
+    }
+
+    /**
+     * @return the number of colour changes passed on since the counters were reset.
+     */
+    public long getColorSwitches() {
+        return this.colorSwitches;
+    }
+
+    /**
+     * @return the width of the target surface.
+     */
+    @Override
+    public int getWidth() {
+        return this.target.getWidth();
+    }
+
+    /**
+     * @return the height of the target surface.
+     */
+    @Override
+    public int getHeight() {
+        return this.target.getHeight();
+    }
+
+    /**
+     * Sets the colour of the following calls. It is only passed on when something is drawn with it.
+     *
+     * @param color the colour.
+     */
+    @Override
+    public void setColor(Color color) {
+        if (color.getAlpha() != 255) {
+            throw new AlphaChannelNotSupportedException(
+                    "Alpha may not be used, the color provided had an alpha value of " + color.getAlpha());
+        }
+        this.current = color;
+        if (!this.batching) {
+            this.target.setColor(color);
+            this.forwarded = color;
+            this.colorSwitches++;
+        }
+    }
+
+    /**
+     * Fills a rectangle, holding it back if batching.
+     *
+     * @param x      the left edge.
+     * @param y      the top edge.
+     * @param width  the width.
+     * @param height the height.
+     */
+    @Override
+    public void fillRectangle(int x, int y, int width, int height) {
+        if (!this.batching) {
+            this.drawCalls++;
+            this.target.fillRectangle(x, y, width, height);
+            return;
+        }
+        closeOpen();
+        Op op = nextOp();
+        op.x = x;
+        op.y = y;
+        op.w = width;
+        op.h = height;
+        op.fill = this.current;
+        op.outline = null;
+        op.fx0 = x;
+        op.fy0 = y;
+        op.fx1 = x + width;
+        op.fy1 = y + height;
+        op.ix0 = op.fx0;
+        op.iy0 = op.fy0;
+        op.ix1 = op.fx1;
+        op.iy1 = op.fy1;
+        // Kept open, since an outline of the same rectangle may follow and turn it into a box.
+        this.open = op;
+    }
+
+    /**
+     * Draws the outline of a rectangle, holding it back if batching.
+     *
+     * @param x      the left edge.
+     * @param y      the top edge.
+     * @param width  the width.
+     * @param height the height.
+     */
+    @Override
+    public void drawRectangle(int x, int y, int width, int height) {
+        if (!this.batching) {
+            this.drawCalls++;
+            this.target.drawRectangle(x, y, width, height);
+            return;
+        }
+        Op op = this.open;
+        if (op == null || op.x != x || op.y != y || op.w != width || op.h != height) {
+            closeOpen();
+            op = nextOp();
+            op.x = x;
+            op.y = y;
+            op.w = width;
+            op.h = height;
+            op.fill = null;
+            // An outline alone paints nothing inside.
+            op.ix0 = 0;
+            op.iy0 = 0;
+            op.ix1 = 0;
+            op.iy1 = 0;
+        } else {
+            op.ix0 = x + 1;
+            op.iy0 = y + 1;
+            op.ix1 = x + width;
+            op.iy1 = y + height;
+        }
+        op.outline = this.current;
+        op.fx0 = x;
+        op.fy0 = y;
+        op.fx1 = x + width + 1;
+        op.fy1 = y + height + 1;
+        this.open = op;
+        closeOpen();
+    }
+
+    /**
+     * @return a held-back rectangle to fill in, reused from earlier frames when possible.
+     */
+    private Op nextOp() {
+        if (this.opCount == this.ops.size()) {
+            this.ops.add(new Op());
+        }
+        return this.ops.get(this.opCount++);
+    }
+
+    /**
+     * Adds the open rectangle to the batch, issuing the batch first if the rectangle cannot be moved past it.
+     */
+    private void closeOpen() {
+        Op op = this.open;
+        if (op == null) {
+            return;
+        }
+        this.open = null;
+        int index = this.opCount - 1;
+        if (conflicts(op)) {
+            // Issue everything before this rectangle, then start a new batch with it.
+            this.opCount--;
+            issuePending();
+            this.ops.set(index, this.ops.get(0));
+            this.ops.set(0, op);
+            this.opCount = 1;
+            index = 0;
+        }
+        insert(op, index);
+    }
+
+    /**
+     * @param op a rectangle about to join the batch.
+     * @return true if moving it past a rectangle already in the batch could change what is drawn.
+     */
+    private boolean conflicts(Op op) {
+        this.checkId++;
+        int c0 = cellOf(op.fx0, this.columns);
+        int c1 = cellOf(op.fx1 - 1, this.columns);
+        int r0 = cellOf(op.fy0, this.rows);
+        int r1 = cellOf(op.fy1 - 1, this.rows);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * this.columns + c;
+                if (this.cellStamp[cell] != this.batchId) {
+                    continue;
+                }
+                for (int e = this.cellHead[cell]; e >= 0; e = this.entryNext[e]) {
+                    Op other = this.ops.get(this.entryOp[e]);
+                    if (other.seen != this.checkId) {
+                        other.seen = this.checkId;
+                        if (conflict(op, other)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param a a rectangle.
+     * @param b another rectangle.
+     * @return true if drawing them in either order may give different pixels.
+     */
+    private static boolean conflict(Op a, Op b) {
+        if (!overlaps(a.fx0, a.fy0, a.fx1, a.fy1, b.fx0, b.fy0, b.fx1, b.fy1)) {
+            return false;
+        }
+        if (a.outline == null && b.outline == null && Objects.equals(a.fill, b.fill)) {
+            return false;
+        }
+        if (a.outline == null || b.outline == null || !a.outline.equals(b.outline)) {
+            return true;
+        }
+        // Two outlines of the same colour may share pixels, but neither may reach into the other's inside.
+        return overlaps(a.fx0, a.fy0, a.fx1, a.fy1, b.ix0, b.iy0, b.ix1, b.iy1)
+                || overlaps(a.ix0, a.iy0, a.ix1, a.iy1, b.fx0, b.fy0, b.fx1, b.fy1);
+    }
+
+    /**
+     * Tells whether two half-open rectangles share a pixel; an empty rectangle shares none.
+     *
+     * @param ax0 the left edge of the first.
+     * @param ay0 the top edge of the first.
+     * @param ax1 the right edge of the first, exclusive.
+     * @param ay1 the bottom edge of the first, exclusive.
+     * @param bx0 the left edge of the second.
+     * @param by0 the top edge of the second.
+     * @param bx1 the right edge of the second, exclusive.
+     * @param by1 the bottom edge of the second, exclusive.
+     * @return true if they overlap.
+     */
+    private static boolean overlaps(int ax0, int ay0, int ax1, int ay1, int bx0, int by0, int bx1, int by1) {
+        return ax0 < bx1 && bx0 < ax1 && ay0 < by1 && by0 < ay1 && ax0 < ax1 && ay0 < ay1 && bx0 < bx1 && by0 < by1;
+    }
+
+    /**
+     * @param v     a coordinate.
+     * @param count the number of cells along that axis.
+     * @return the cell holding it, clamped to the grid.
+     */
+    private static int cellOf(int v, int count) {
+        return Math.max(0, Math.min(count - 1, Math.floorDiv(v, CELL_SIZE)));
+    }
+
+    /**
+     * Records a batched rectangle in every cell its footprint touches.
+     *
+     * @param op    the rectangle.
+     * @param index its index in the batch.
+     */
+    private void insert(Op op, int index) {
+        int c0 = cellOf(op.fx0, this.columns);
+        int c1 = cellOf(op.fx1 - 1, this.columns);
+        int r0 = cellOf(op.fy0, this.rows);
+        int r1 = cellOf(op.fy1 - 1, this.rows);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * this.columns + c;
+                if (this.cellStamp[cell] != this.batchId) {
+                    this.cellStamp[cell] = this.batchId;
+                    this.cellHead[cell] = -1;
+                }
+                if (this.entryCount == this.entryNext.length) {
+                    this.entryNext = Arrays.copyOf(this.entryNext, this.entryCount * 2);
+                    this.entryOp = Arrays.copyOf(this.entryOp, this.entryCount * 2);
+                }
+                this.entryNext[this.entryCount] = this.cellHead[cell];
+                this.entryOp[this.entryCount] = index;
+                this.cellHead[cell] = this.entryCount++;
+            }
+        }
+    }
+
+    /**
+     * Issues the batch: every fill grouped by colour, then every outline grouped by colour.
+     */
+    private void issuePending() {
+        if (this.opCount > 0) {
+            this.colors.clear();
+            for (int i = 0; i < this.opCount; i++) {
+                Color fill = this.ops.get(i).fill;
+                if (fill != null && !this.colors.contains(fill)) {
+                    this.colors.add(fill);
+                }
+            }
+            for (int k = 0; k < this.colors.size(); k++) {
+                Color color = this.colors.get(k);
+                useColor(color);
+                for (int i = 0; i < this.opCount; i++) {
+                    Op op = this.ops.get(i);
+                    if (color.equals(op.fill)) {
+                        this.drawCalls++;
+                        this.target.fillRectangle(op.x, op.y, op.w, op.h);
+                    }
+                }
+            }
+            this.colors.clear();
+            for (int i = 0; i < this.opCount; i++) {
+                Color outline = this.ops.get(i).outline;
+                if (outline != null && !this.colors.contains(outline)) {
+                    this.colors.add(outline);
+                }
+            }
+            for (int k = 0; k < this.colors.size(); k++) {
+                Color color = this.colors.get(k);
+                useColor(color);
+                for (int i = 0; i < this.opCount; i++) {
+                    Op op = this.ops.get(i);
+                    if (color.equals(op.outline)) {
+                        this.drawCalls++;
+                        this.target.drawRectangle(op.x, op.y, op.w, op.h);
+                    }
+                }
+            }
+            for (int i = 0; i < this.opCount; i++) {
+                Op op = this.ops.get(i);
+                op.fill = null;
+                op.outline = null;
+            }
+        }
+        this.opCount = 0;
+        this.entryCount = 0;
+        this.batchId++;
+    }
+
+    /**
+     * Sets the target's colour, unless it is already set to it.
+     *
+     * @param color the colour.
+     */
+    private void useColor(Color color) {
+        if (color != null && !color.equals(this.forwarded)) {
+            this.target.setColor(color);
+            this.forwarded = color;
+            this.colorSwitches++;
+        }
+    }
+
+    /**
+     * Issues the batch and sets the colour, ahead of a call that must keep its place.
+     */
+    private void passThrough() {
+        flush();
+        useColor(this.current);
+        this.drawCalls++;
+    }
+
+    /**
+     * Draws a line.
+     *
+     * @param x1 the x of the first end.
+     * @param y1 the y of the first end.
+     * @param x2 the x of the second end.
+     * @param y2 the y of the second end.
+     */
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        passThrough();
+        this.target.drawLine(x1, y1, x2, y2);
+    }
+
+    /**
+     * Draws the outline of an oval.
+     *
+     * @param x      the left of the bounding box.
+     * @param y      the top of the bounding box.
+     * @param width  the width of the bounding box.
+     * @param height the height of the bounding box.
+     */
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        passThrough();
+        this.target.drawOval(x, y, width, height);
+    }
+
+    /**
+     * Fills an oval.
+     *
+     * @param x      the left of the bounding box.
+     * @param y      the top of the bounding box.
+     * @param width  the width of the bounding box.
+     * @param height the height of the bounding box.
+     */
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        passThrough();
+        this.target.fillOval(x, y, width, height);
+    }
+
+    /**
+     * Draws an image with its top-left corner at the given point.
+     *
+     * @param x   the left edge.
+     * @param y   the top edge.
+     * @param img the image.
+     */
+    @Override
+    public void drawImage(int x, int y, Image img) {
+        flush();
+        this.drawCalls++;
+        this.target.drawImage(x, y, img);
+    }
+
+    /**
+     * Draws the outline of a circle.
+     *
+     * @param x      the x of the center.
+     * @param y      the y of the center.
+     * @param radius the radius.
+     */
+    @Override
+    public void drawCircle(int x, int y, int radius) {
+        passThrough();
+        this.target.drawCircle(x, y, radius);
+    }
+
+    /**
+     * Fills a circle.
+     *
+     * @param x      the x of the center.
+     * @param y      the y of the center.
+     * @param radius the radius.
+     */
+    @Override
+    public void fillCircle(int x, int y, int radius) {
+        passThrough();
+        this.target.fillCircle(x, y, radius);
+    }
+
+    /**
+     * Draws text.
+     *
+     * @param x        the left of the baseline.
+     * @param y        the y of the baseline.
+     * @param text     the text.
+     * @param fontSize the font size.
+     */
+    @Override
+    public void drawText(int x, int y, String text, int fontSize) {
+        passThrough();
+        this.target.drawText(x, y, text, fontSize);
+    }
+
+    /**
+     * Draws the outline of a polygon.
+     *
+     * @param p the polygon.
+     */
+    @Override
+    public void drawPolygon(Polygon p) {
+        passThrough();
+        this.target.drawPolygon(p);
+    }
+
+    /**
+     * Fills a polygon.
+     *
+     * @param p the polygon.
+     */
+    @Override
+    public void fillPolygon(Polygon p) {
+        passThrough();
+        this.target.fillPolygon(p);
+    }
+}
@@ -0,0 +1,95 @@
+package sprites;
+
+import biuoop.DrawSurface;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A CachedBackground draws a static background layer once into an offscreen image
+ * and blits that image on every frame instead of repeating all of the layer's drawing calls.
+ * The image is redrawn only after invalidate() is called or when the surface size changes.
+ * The layer must paint every pixel it covers, since the image has no transparency.
+ */
+public class CachedBackground implements Sprite {
+    private final Sprite layer;
+    private BufferedImage image;
+    private boolean valid;
+    private long renders;
+
+    /**
+     * Constructs a cache around the given layer.
+     *
+     * @param layer the background to cache; its drawing must only change when invalidate() is called.
+     */
+    public CachedBackground(Sprite layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * Marks the cached image as stale, so the layer is drawn again on the next frame.
+     */
+    public void invalidate() {
+        this.valid = false;
+    }
+
+    /**
+     * @return how many times the layer has been drawn into the image.
+     */
+    public long getRenderCount() {
+        return this.renders;
+    }
+
+    /**
+     * Blits the cached image, drawing the layer into it first if needed.
+     *
+     * @param d the surface to draw on.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        int width = d.getWidth();
+        int height = d.getHeight();
+        if (this.image == null || this.image.getWidth() != width || this.image.getHeight() != height) {
+            this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            this.valid = false;
+        }
+        if (!this.valid) {
+            ImageDrawSurface surface = new ImageDrawSurface(this.image);
+            try {
+                this.layer.drawOn(surface);
+            } finally {
+                surface.dispose();
+            }
+            this.valid = true;
+            this.renders++;
+        }
+        d.drawImage(0, 0, this.image);
+    }
+
+    /**
+     * Marks the whole screen if the cached image is going to be redrawn.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addDamage(DirtyRegions regions) {
+        if (!this.valid) {
+            regions.addAll();
+        }
+    }
+
+    /**
+     * Passes the tick on to the layer.
+     */
+    @Override
+    public void timePassed() {
+        this.layer.timePassed();
+    }
+
+    /**
+     * @return whether the layer is passive.
+     */
+    @Override
+    public boolean isPassive() {
+        return this.layer.isPassive();
+    }
+}
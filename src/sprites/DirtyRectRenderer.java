@@ -0,0 +1,99 @@
+package sprites;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+
+/**
+ * A DirtyRectRenderer keeps the last composed frame in an offscreen image and,
+ * on every frame, recomposes only the regions the sprites report as changed.
+ * The cost of composing a frame therefore follows how much moved, not the size of the screen.
+ */
+public class DirtyRectRenderer {
+    private final BufferedImage frame;
+    private final ImageDrawSurface surface;
+    private final DirtyRegions regions;
+    private BatchingDrawSurface batcher;
+    private boolean composed;
+    private long pixelsRedrawn;
+
+    /**
+     * Constructs a renderer for a screen of the given size.
+     *
+     * @param width  the screen width.
+     * @param height the screen height.
+     */
+    public DirtyRectRenderer(int width, int height) {
+        this.frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.surface = new ImageDrawSurface(this.frame);
+        this.regions = new DirtyRegions(width, height);
+    }
+
+    /**
+     * Routes the drawing of every region through a batching surface, or draws directly if null.
+     *
+     * @param batcher the batching surface, or null.
+     */
+    public void setBatcher(BatchingDrawSurface batcher) {
+        this.batcher = batcher;
+    }
+
+    /**
+     * Brings the frame up to date with the sprites.
+     *
+     * @param sprites the sprites to draw.
+     */
+    public void render(SpriteCollection sprites) {
+        render(sprites, 1);
+    }
+
+    /**
+     * Brings the frame up to date with the sprites, drawn part of the way between their previous
+     * and current states.
+     *
+     * @param sprites the sprites to draw.
+     * @param alpha   how far along, from 0 (the previous states) to 1 (the current states).
+     */
+    public void render(SpriteCollection sprites, double alpha) {
+        this.regions.clear();
+        sprites.addDamage(this.regions, alpha);
+        if (!this.composed) {
+            this.regions.addAll();
+            this.composed = true;
+        }
+        for (int i = 0; i < this.regions.size(); i++) {
+            this.surface.setClip(this.regions.getX(i), this.regions.getY(i),
+                    this.regions.getWidth(i), this.regions.getHeight(i));
+            if (this.batcher != null) {
+                this.batcher.begin(this.surface);
+                sprites.drawAllOn(this.batcher, alpha);
+                this.batcher.flush();
+            } else {
+                sprites.drawAllOn(this.surface, alpha);
+            }
+        }
+        this.surface.clearClip();
+        this.pixelsRedrawn = this.regions.area();
+    }
+
+    /**
+     * Makes the next render() recompose the whole frame, for when the sprites changed in ways
+     * they do not report, such as a restored game state.
+     */
+    public void invalidate() {
+        this.composed = false;
+    }
+
+    /**
+     * @return the composed frame.
+     */
+    public Image getFrame() {
+        return this.frame;
+    }
+
+    /**
+     * @return how many pixels the last call to render() redrew.
+     */
+    public long getPixelsRedrawn() {
+        return this.pixelsRedrawn;
+    }
+}
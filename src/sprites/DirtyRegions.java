@@ -0,0 +1,156 @@
+package sprites;
+
+/**
+ * DirtyRegions collects the rectangles of the screen that must be redrawn this frame.
+ * Rectangles are clipped to the screen, and overlapping ones are merged as they are added,
+ * so no pixel is redrawn twice. When there are too many separate rectangles, they collapse
+ * into their bounding box, which keeps the number of redraw passes small.
+ */
+public class DirtyRegions {
+    private static final int MAX_REGIONS = 16;
+
+    private final int width;
+    private final int height;
+    private final int[] x0;
+    private final int[] y0;
+    private final int[] x1;
+    private final int[] y1;
+    private int count;
+
+    /**
+     * Constructs an empty set of regions for a screen of the given size.
+     *
+     * @param width  the screen width.
+     * @param height the screen height.
+     */
+    public DirtyRegions(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.x0 = new int[MAX_REGIONS];
+        this.y0 = new int[MAX_REGIONS];
+        this.x1 = new int[MAX_REGIONS];
+        this.y1 = new int[MAX_REGIONS];
+    }
+
+    /**
+     * Marks a rectangle as dirty.
+     *
+     * @param x the left edge.
+     * @param y the top edge.
+     * @param w the width.
+     * @param h the height.
+     */
+    public void add(int x, int y, int w, int h) {
+        int left = Math.max(x, 0);
+        int top = Math.max(y, 0);
+        int right = Math.min(x + w, this.width);
+        int bottom = Math.min(y + h, this.height);
+        if (left >= right || top >= bottom) {
+            return;
+        }
+        // Absorb every region the new one overlaps; the union may reach further ones, so start over.
+        int i = 0;
+        while (i < this.count) {
+            if (left < this.x1[i] && this.x0[i] < right && top < this.y1[i] && this.y0[i] < bottom) {
+                left = Math.min(left, this.x0[i]);
+                top = Math.min(top, this.y0[i]);
+                right = Math.max(right, this.x1[i]);
+                bottom = Math.max(bottom, this.y1[i]);
+                removeAt(i);
+                i = 0;
+            } else {
+                i++;
+            }
+        }
+        if (this.count == MAX_REGIONS) {
+            for (int j = 0; j < this.count; j++) {
+                left = Math.min(left, this.x0[j]);
+                top = Math.min(top, this.y0[j]);
+                right = Math.max(right, this.x1[j]);
+                bottom = Math.max(bottom, this.y1[j]);
+            }
+            this.count = 0;
+        }
+        this.x0[this.count] = left;
+        this.y0[this.count] = top;
+        this.x1[this.count] = right;
+        this.y1[this.count] = bottom;
+        this.count++;
+    }
+
+    /**
+     * Marks the whole screen as dirty.
+     */
+    public void addAll() {
+        this.count = 0;
+        add(0, 0, this.width, this.height);
+    }
+
+    /**
+     * @param i the index of a region to drop; the last region takes its place.
+     */
+    private void removeAt(int i) {
+        this.count--;
+        this.x0[i] = this.x0[this.count];
+        this.y0[i] = this.y0[this.count];
+        this.x1[i] = this.x1[this.count];
+        this.y1[i] = this.y1[this.count];
+    }
+
+    /**
+     * Forgets all regions.
+     */
+    public void clear() {
+        this.count = 0;
+    }
+
+    /**
+     * @return the number of separate regions.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * @param i the index of a region.
+     * @return its left edge.
+     */
+    public int getX(int i) {
+        return this.x0[i];
+    }
+
+    /**
+     * @param i the index of a region.
+     * @return its top edge.
+     */
+    public int getY(int i) {
+        return this.y0[i];
+    }
+
+    /**
+     * @param i the index of a region.
+     * @return its width.
+     */
+    public int getWidth(int i) {
+        return this.x1[i] - this.x0[i];
+    }
+
+    /**
+     * @param i the index of a region.
+     * @return its height.
+     */
+    public int getHeight(int i) {
+        return this.y1[i] - this.y0[i];
+    }
+
+    /**
+     * @return the number of pixels the regions cover.
+     */
+    public long area() {
+        long total = 0;
+        for (int i = 0; i < this.count; i++) {
+            total += (long) (this.x1[i] - this.x0[i]) * (this.y1[i] - this.y0[i]);
+        }
+        return total;
+    }
+}
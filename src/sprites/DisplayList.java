@@ -0,0 +1,333 @@
+package sprites;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.util.Arrays;
+
+/**
+ * A DisplayList is a DrawSurface that records the drawing calls made on it instead of drawing,
+ * and plays them back on another surface later, possibly on another thread.
+ * Sprites draw on it with their usual drawOn(), so the recorded list is a snapshot of how they looked
+ * at that moment; it holds only numbers and immutable objects (colours, images, strings, copied polygons).
+ * The list's arrays are kept when it is cleared, so recording a frame of the same size again allocates nothing.
+ */
+public class DisplayList implements DrawSurface {
+    private static final byte SET_COLOR = 0;
+    private static final byte DRAW_LINE = 1;
+    private static final byte DRAW_OVAL = 2;
+    private static final byte FILL_OVAL = 3;
+    private static final byte DRAW_RECTANGLE = 4;
+    private static final byte FILL_RECTANGLE = 5;
+    private static final byte DRAW_IMAGE = 6;
+    private static final byte DRAW_CIRCLE = 7;
+    private static final byte FILL_CIRCLE = 8;
+    private static final byte DRAW_TEXT = 9;
+    private static final byte DRAW_POLYGON = 10;
+    private static final byte FILL_POLYGON = 11;
+
+    private final int width;
+    private final int height;
+    private byte[] ops;
+    private int opCount;
+    private int[] args;
+    private int argCount;
+    private Object[] refs;
+    private int refCount;
+
+    /**
+     * Constructs an empty display list for a screen of the given size.
+     *
+     * @param width  the screen width.
+     * @param height the screen height.
+     */
+    public DisplayList(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.ops = new byte[256];
+        this.args = new int[1024];
+        this.refs = new Object[256];
+    }
+
+    /**
+     * Forgets every recorded call.
+     */
+    public void clear() {
+        Arrays.fill(this.refs, 0, this.refCount, null);
+        this.opCount = 0;
+        this.argCount = 0;
+        this.refCount = 0;
+    }
+
+    /**
+     * @return the number of recorded calls.
+     */
+    public int size() {
+        return this.opCount;
+    }
+
+    /**
+     * Plays the recorded calls back, in order, on another surface.
+     *
+     * @param d the surface to draw on.
+     */
+    public void replay(DrawSurface d) {
+        int a = 0;
+        int r = 0;
+        for (int i = 0; i < this.opCount; i++) {
+            switch (this.ops[i]) {
+                case SET_COLOR:
+                    d.setColor((Color) this.refs[r++]);
+                    break;
+                case DRAW_LINE:
+                    d.drawLine(this.args[a], this.args[a + 1], this.args[a + 2], this.args[a + 3]);
+                    a += 4;
+                    break;
+                case DRAW_OVAL:
+                    d.drawOval(this.args[a], this.args[a + 1], this.args[a + 2], this.args[a + 3]);
+                    a += 4;
+                    break;
+                case FILL_OVAL:
+                    d.fillOval(this.args[a], this.args[a + 1], this.args[a + 2], this.args[a + 3]);
+                    a += 4;
+                    break;
+                case DRAW_RECTANGLE:
+                    d.drawRectangle(this.args[a], this.args[a + 1], this.args[a + 2], this.args[a + 3]);
+                    a += 4;
+                    break;
+                case FILL_RECTANGLE:
+                    d.fillRectangle(this.args[a], this.args[a + 1], this.args[a + 2], this.args[a + 3]);
+                    a += 4;
+                    break;
+                case DRAW_IMAGE:
+                    d.drawImage(this.args[a], this.args[a + 1], (Image) this.refs[r++]);
+                    a += 2;
+                    break;
+                case DRAW_CIRCLE:
+                    d.drawCircle(this.args[a], this.args[a + 1], this.args[a + 2]);
+                    a += 3;
+                    break;
+                case FILL_CIRCLE:
+                    d.fillCircle(this.args[a], this.args[a + 1], this.args[a + 2]);
+                    a += 3;
+                    break;
+                case DRAW_TEXT:
+                    d.drawText(this.args[a], this.args[a + 1], (String) this.refs[r++], this.args[a + 2]);
+                    a += 3;
+                    break;
+                case DRAW_POLYGON:
+                    d.drawPolygon((Polygon) this.refs[r++]);
+                    break;
+                case FILL_POLYGON:
+                    d.fillPolygon((Polygon) this.refs[r++]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown display list operation " + this.ops[i]);
+            }
+        }
+    }
+
+    /**
+     * Records an operation with up to four integer arguments.
+     *
+     * @param op    the operation.
+     * @param count how many of the arguments are used.
+     * @param a0    the first argument.
+     * @param a1    the second argument.
+     * @param a2    the third argument.
+     * @param a3    the fourth argument.
+     */
+    private void add(byte op, int count, int a0, int a1, int a2, int a3) {
+        if (this.opCount == this.ops.length) {
+            this.ops = Arrays.copyOf(this.ops, this.ops.length * 2);
+        }
+        if (this.argCount + 4 > this.args.length) {
+            this.args = Arrays.copyOf(this.args, this.args.length * 2);
+        }
+        this.ops[this.opCount++] = op;
+        this.args[this.argCount] = a0;
+        this.args[this.argCount + 1] = a1;
+        this.args[this.argCount + 2] = a2;
+        this.args[this.argCount + 3] = a3;
+        this.argCount += count;
+    }
+
+    /**
+     * Records an object the last operation refers to.
+     *
+     * @param ref the object.
+     */
+    private void addRef(Object ref) {
+        if (this.refCount == this.refs.length) {
+            this.refs = Arrays.copyOf(this.refs, this.refs.length * 2);
+        }
+        this.refs[this.refCount++] = ref;
+    }
+
+    /**
+     * @return the width of the screen the list is recorded for.
+     */
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * @return the height of the screen the list is recorded for.
+     */
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Records a colour change.
+     *
+     * @param color the color.
+     */
+    @Override
+    public void setColor(Color color) {
+        add(SET_COLOR, 0, 0, 0, 0, 0);
+        addRef(color);
+    }
+
+    /**
+     * Records a line.
+     *
+     * @param x1 the x of the first end.
+     * @param y1 the y of the first end.
+     * @param x2 the x of the second end.
+     * @param y2 the y of the second end.
+     */
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        add(DRAW_LINE, 4, x1, y1, x2, y2);
+    }
+
+    /**
+     * Records the outline of an oval.
+     *
+     * @param x      the left of the bounding box.
+     * @param y      the top of the bounding box.
+     * @param width  the width of the bounding box.
+     * @param height the height of the bounding box.
+     */
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        add(DRAW_OVAL, 4, x, y, width, height);
+    }
+
+    /**
+     * Records a filled oval.
+     *
+     * @param x      the left of the bounding box.
+     * @param y      the top of the bounding box.
+     * @param width  the width of the bounding box.
+     * @param height the height of the bounding box.
+     */
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        add(FILL_OVAL, 4, x, y, width, height);
+    }
+
+    /**
+     * Records the outline of a rectangle.
+     *
+     * @param x      the left edge.
+     * @param y      the top edge.
+     * @param width  the width.
+     * @param height the height.
+     */
+    @Override
+    public void drawRectangle(int x, int y, int width, int height) {
+        add(DRAW_RECTANGLE, 4, x, y, width, height);
+    }
+
+    /**
+     * Records a filled rectangle.
+     *
+     * @param x      the left edge.
+     * @param y      the top edge.
+     * @param width  the width.
+     * @param height the height.
+     */
+    @Override
+    public void fillRectangle(int x, int y, int width, int height) {
+        add(FILL_RECTANGLE, 4, x, y, width, height);
+    }
+
+    /**
+     * Records an image. The image itself is not copied, so it must not change afterwards.
+     *
+     * @param x   the left edge.
+     * @param y   the top edge.
+     * @param img the image.
+     */
+    @Override
+    public void drawImage(int x, int y, Image img) {
+        add(DRAW_IMAGE, 2, x, y, 0, 0);
+        addRef(img);
+    }
+
+    /**
+     * Records the outline of a circle.
+     *
+     * @param x      the x of the center.
+     * @param y      the y of the center.
+     * @param radius the radius.
+     */
+    @Override
+    public void drawCircle(int x, int y, int radius) {
+        add(DRAW_CIRCLE, 3, x, y, radius, 0);
+    }
+
+    /**
+     * Records a filled circle.
+     *
+     * @param x      the x of the center.
+     * @param y      the y of the center.
+     * @param radius the radius.
+     */
+    @Override
+    public void fillCircle(int x, int y, int radius) {
+        add(FILL_CIRCLE, 3, x, y, radius, 0);
+    }
+
+    /**
+     * Records a line of text.
+     *
+     * @param x        the left of the baseline.
+     * @param y        the y of the baseline.
+     * @param text     the text.
+     * @param fontSize the font size.
+     */
+    @Override
+    public void drawText(int x, int y, String text, int fontSize) {
+        add(DRAW_TEXT, 3, x, y, fontSize, 0);
+        addRef(text);
+    }
+
+    /**
+     * Records the outline of a polygon, copying it since polygons can change.
+     *
+     * @param p the polygon.
+     */
+    @Override
+    public void drawPolygon(Polygon p) {
+        add(DRAW_POLYGON, 0, 0, 0, 0, 0);
+        addRef(new Polygon(p.xpoints, p.ypoints, p.npoints));
+    }
+
+    /**
+     * Records a filled polygon, copying it since polygons can change.
+     *
+     * @param p the polygon.
+     */
+    @Override
+    public void fillPolygon(Polygon p) {
+        add(FILL_POLYGON, 0, 0, 0, 0, 0);
+        addRef(new Polygon(p.xpoints, p.ypoints, p.npoints));
+    }
+}
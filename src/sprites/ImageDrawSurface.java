@@ -0,0 +1,224 @@
+package sprites;
+
+import biuoop.AlphaChannelNotSupportedException;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+
+/**
+ * A DrawSurface that paints straight into an offscreen image.
+ * Shapes are drawn the same way the GUI's surface draws them, so a sprite looks the same
+ * whether it is drawn on screen or into an image that is later blitted to the screen.
+ */
+public class ImageDrawSurface implements DrawSurface {
+    private final BufferedImage image;
+    private final Graphics2D g;
+
+    /**
+     * Constructs a surface that draws on the given image.
+     * Call dispose() once drawing is done.
+     *
+     * @param image the image to draw on.
+     */
+    public ImageDrawSurface(BufferedImage image) {
+        this.image = image;
+        this.g = image.createGraphics();
+    }
+
+    /**
+     * Releases the graphics context used for drawing.
+     */
+    public void dispose() {
+        this.g.dispose();
+    }
+
+    /**
+     * Limits the following drawing calls to a rectangle; nothing outside it is touched.
+     *
+     * @param x the left edge.
+     * @param y the top edge.
+     * @param w the width.
+     * @param h the height.
+     */
+    public void setClip(int x, int y, int w, int h) {
+        this.g.setClip(x, y, w, h);
+    }
+
+    /**
+     * Lets the following drawing calls touch the whole image again.
+     */
+    public void clearClip() {
+        this.g.setClip(null);
+    }
+
+    /**
+     * @return the width of the image.
+     */
+    @Override
+    public int getWidth() {
+        return this.image.getWidth();
+    }
+
+    /**
+     * @return the height of the image.
+     */
+    @Override
+    public int getHeight() {
+        return this.image.getHeight();
+    }
+
+    /**
+     * Sets the color used by the following drawing calls.
+     *
+     * @param color the color; must be fully opaque, as on the GUI's surface.
+     */
+    @Override
+    public void setColor(Color color) {
+        if (color.getAlpha() != 255) {
+            throw new AlphaChannelNotSupportedException(
+                    "Alpha may not be used, the color provided had an alpha value of " + color.getAlpha());
+        }
+        this.g.setColor(color);
+    }
+
+    /**
+     * Draws a line.
+     *
+     * @param x1 the x of the first end.
+     * @param y1 the y of the first end.
+     * @param x2 the x of the second end.
+     * @param y2 the y of the second end.
+     */
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        this.g.drawLine(x1, y1, x2, y2);
+    }
+
+    /**
+     * Draws the outline of an oval.
+     *
+     * @param x      the left of the bounding box.
+     * @param y      the top of the bounding box.
+     * @param width  the width of the bounding box.
+     * @param height the height of the bounding box.
+     */
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        this.g.drawOval(x, y, width, height);
+    }
+
+    /**
+     * Fills an oval.
+     *
+     * @param x      the left of the bounding box.
+     * @param y      the top of the bounding box.
+     * @param width  the width of the bounding box.
+     * @param height the height of the bounding box.
+     */
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        this.g.fillOval(x, y, width, height);
+    }
+
+    /**
+     * Draws the outline of a rectangle.
+     *
+     * @param x      the left edge.
+     * @param y      the top edge.
+     * @param width  the width.
+     * @param height the height.
+     */
+    @Override
+    public void drawRectangle(int x, int y, int width, int height) {
+        this.g.drawRect(x, y, width, height);
+    }
+
+    /**
+     * Fills a rectangle.
+     *
+     * @param x      the left edge.
+     * @param y      the top edge.
+     * @param width  the width.
+     * @param height the height.
+     */
+    @Override
+    public void fillRectangle(int x, int y, int width, int height) {
+        this.g.fillRect(x, y, width, height);
+    }
+
+    /**
+     * Draws an image with its top-left corner at the given point.
+     *
+     * @param x   the left edge.
+     * @param y   the top edge.
+     * @param img the image.
+     */
+    @Override
+    public void drawImage(int x, int y, Image img) {
+        this.g.drawImage(img, x, y, null);
+    }
+
+    /**
+     * Draws the outline of a circle.
+     *
+     * @param x      the x of the center.
+     * @param y      the y of the center.
+     * @param radius the radius.
+     */
+    @Override
+    public void drawCircle(int x, int y, int radius) {
+        this.g.drawOval(x - radius, y - radius, radius * 2, radius * 2);
+    }
+
+    /**
+     * Fills a circle.
+     *
+     * @param x      the x of the center.
+     * @param y      the y of the center.
+     * @param radius the radius.
+     */
+    @Override
+    public void fillCircle(int x, int y, int radius) {
+        this.g.fillOval(x - radius, y - radius, radius * 2, radius * 2);
+    }
+
+    /**
+     * Draws text with its baseline starting at the given point.
+     *
+     * @param x        the left of the baseline.
+     * @param y        the y of the baseline.
+     * @param text     the text.
+     * @param fontSize the font size.
+     */
+    @Override
+    public void drawText(int x, int y, String text, int fontSize) {
+        Font font = this.g.getFont();
+        this.g.setFont(new Font(font.getFontName(), font.getStyle(), fontSize));
+        this.g.drawString(text, x, y);
+    }
+
+    /**
+     * Draws the outline of a polygon.
+     *
+     * @param p the polygon.
+     */
+    @Override
+    public void drawPolygon(Polygon p) {
+        this.g.drawPolygon(p);
+    }
+
+    /**
+     * Fills a polygon.
+     *
+     * @param p the polygon.
+     */
+    @Override
+    public void fillPolygon(Polygon p) {
+        this.g.fillPolygon(p);
+    }
+}
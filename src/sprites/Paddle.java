@@ -1,144 +1,280 @@
-package sprites;
-
-import biuoop.DrawSurface;
-import biuoop.KeyboardSensor;
-import java.awt.Color;
-
-import game.GameLevel;
-import geometry.Point;
-import geometry.Rectangle;
-import geometry.Velocity;
-
-import collisions.Collidable;
-
-/**
- * The Paddle class represents the player-controlled paddle.
- * It moves left and right according to key presses and reflects balls upon collision.
- */
-public class Paddle implements Sprite, Collidable {
-    private Rectangle rect;
-    private Color color;
-    private KeyboardSensor keyboard;
-    private int speed;
-    private int screenWidth;
-
-    /**
-     * Constructs a Paddle object.
-     *
-     * @param rect         the rectangle representing the paddle's shape.
-     * @param color        the paddle's color.
-     * @param keyboard     the KeyboardSensor for detecting user input.
-     * @param speed        the speed (in pixels per frame) the paddle moves.
-     * @param screenWidth  the width of the screen for circular movement logic.
-     */
-    public Paddle(Rectangle rect, Color color, KeyboardSensor keyboard, int speed, int screenWidth) {
-        this.rect = rect;
-        this.color = color;
-        this.keyboard = keyboard;
-        this.speed = speed;
-        this.screenWidth = screenWidth;
-    }
-
-    /**
-     * Moves the paddle to the left. Wraps to the right if it goes off-screen.
-     */
-    public void moveLeft() {
-        double newX = rect.getUpperLeft().getX() - speed;
-        if (newX + rect.getWidth() < 0) {
-            newX = screenWidth;
-        }
-        this.rect = new Rectangle(new Point(newX, rect.getUpperLeft().getY()), rect.getWidth(), rect.getHeight());
-    }
-
-    /**
-     * Moves the paddle to the right. Wraps to the left if it goes off-screen.
-     */
-    public void moveRight() {
-        double newX = rect.getUpperLeft().getX() + speed;
-        if (newX > screenWidth) {
-            newX = -rect.getWidth();
-        }
-        this.rect = new Rectangle(new Point(newX, rect.getUpperLeft().getY()), rect.getWidth(), rect.getHeight());
-    }
-
-    /**
-     * Called once per frame to update paddle movement based on key presses.
-     */
-    @Override
-    public void timePassed() {
-        if (keyboard.isPressed(KeyboardSensor.LEFT_KEY)) {
-            moveLeft();
-        }
-        if (keyboard.isPressed(KeyboardSensor.RIGHT_KEY)) {
-            moveRight();
-        }
-    }
-
-    /**
-     * Draws the paddle on the screen.
-     *
-     * @param d the DrawSurface to draw on.
-     */
-    @Override
-    public void drawOn(DrawSurface d) {
-        int x = (int) rect.getUpperLeft().getX();
-        int y = (int) rect.getUpperLeft().getY();
-        int width = (int) rect.getWidth();
-        int height = (int) rect.getHeight();
-
-        d.setColor(this.color);
-        d.fillRectangle(x, y, width, height);
-        d.setColor(Color.BLACK);
-        d.drawRectangle(x, y, width, height);
-    }
-
-    /**
-     * Returns the rectangle that defines the paddle's collision area.
-     *
-     * @return the collision rectangle.
-     */
-    @Override
-    public Rectangle getCollisionRectangle() {
-        return this.rect;
-    }
-
-    /**
-     * Calculates the new velocity of the ball based on where it hits the paddle.
-     *
-     * @param hitter          the ball that hit the paddle (not used here).
-     * @param collisionPoint  the point where the ball hit.
-     * @param currentVelocity the ball's velocity before impact.
-     * @return the new velocity after the hit.
-     */
-    @Override
-    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
-        double x = collisionPoint.getX();
-        double paddleX = rect.getUpperLeft().getX();
-        double regionWidth = rect.getWidth() / 5;
-
-        // Determine region 1–5 based on where the hit occurred
-        int region = (int) ((x - paddleX) / regionWidth) + 1;
-        region = Math.min(5, Math.max(1, region)); // Clamp to 1–5
-
-        double angle;
-        switch (region) {
-            case 1: angle = 300; break;
-            case 2: angle = 330; break;
-            case 3: return new Velocity(currentVelocity.getDx(), -currentVelocity.getDy());
-            case 4: angle = 30; break;
-            case 5: angle = 60; break;
-            default: angle = 0; break;
-        }
-        return Velocity.fromAngleAndSpeed(angle, currentVelocity.getSpeed());
-    }
-
-    /**
-     * Adds the paddle to the game (as both a sprite and a collidable).
-     *
-     * @param g the game instance to add the paddle to.
-     */
-    public void addToGame(GameLevel g) {
-        g.addSprite(this);
-        g.addCollidable(this);
-    }
-}
+package sprites;
+
+import biuoop.DrawSurface;
+import biuoop.KeyboardSensor;
+import java.awt.Color;
+
+import game.GameLevel;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Vector2;
+import geometry.Velocity;
+
+import collisions.Collidable;
+import collisions.CollisionInfo;
+import collisions.GameEnvironment;
+
+/**
+ * The Paddle class represents the player-controlled paddle.
+ * It moves left and right according to key presses and reflects balls upon collision.
+ */
+public class Paddle implements Sprite, Collidable {
+    private Rectangle rect;
+    private Color color;
+    private KeyboardSensor keyboard;
+    private double speed;
+    private int screenWidth;
+    private GameEnvironment environment;
+    private double previousX;
+    private double drawnX = Double.NaN;
+    private double drawnY;
+
+    /**
+     * Constructs a Paddle object.
+     *
+     * @param rect         the rectangle representing the paddle's shape.
+     * @param color        the paddle's color.
+     * @param keyboard     the KeyboardSensor for detecting user input.
+     * @param speed        the speed (in pixels per step) the paddle moves.
+     * @param screenWidth  the width of the screen for circular movement logic.
+     */
+    public Paddle(Rectangle rect, Color color, KeyboardSensor keyboard, double speed, int screenWidth) {
+        this.rect = rect;
+        this.previousX = rect.getMinX();
+        this.color = color;
+        this.keyboard = keyboard;
+        this.speed = speed;
+        this.screenWidth = screenWidth;
+    }
+
+    /**
+     * Sets the game environment the paddle is registered in,
+     * so it can be re-indexed every time it moves.
+     *
+     * @param env the GameEnvironment holding the paddle.
+     */
+    public void setGameEnvironment(GameEnvironment env) {
+        this.environment = env;
+    }
+
+    /**
+     * Moves the paddle to the left. Wraps to the right if it goes off-screen.
+     */
+    public void moveLeft() {
+        double newX = rect.getMinX() - speed;
+        if (newX + rect.getWidth() < 0) {
+            newX = screenWidth;
+            this.previousX = newX;
+        }
+        this.rect.moveTo(newX, rect.getMinY());
+        notifyMoved();
+    }
+
+    /**
+     * Moves the paddle to the right. Wraps to the left if it goes off-screen.
+     */
+    public void moveRight() {
+        double newX = rect.getMinX() + speed;
+        if (newX > screenWidth) {
+            newX = -rect.getWidth();
+            this.previousX = newX;
+        }
+        this.rect.moveTo(newX, rect.getMinY());
+        notifyMoved();
+    }
+
+    /**
+     * Puts the paddle at a given left edge at once, for example when a saved game state is restored.
+     *
+     * @param x the new left edge.
+     */
+    public void moveTo(double x) {
+        this.rect.moveTo(x, rect.getMinY());
+        this.previousX = x;
+        notifyMoved();
+    }
+
+    /**
+     * Lets the environment re-index the paddle after its rectangle moved.
+     */
+    private void notifyMoved() {
+        if (this.environment != null) {
+            this.environment.updateCollidable(this);
+        }
+    }
+
+    /**
+     * Called once per step to update paddle movement based on key presses.
+     */
+    @Override
+    public void timePassed() {
+        this.previousX = rect.getMinX();
+        if (keyboard.isPressed(KeyboardSensor.LEFT_KEY)) {
+            moveLeft();
+        }
+        if (keyboard.isPressed(KeyboardSensor.RIGHT_KEY)) {
+            moveRight();
+        }
+    }
+
+    /**
+     * Draws the paddle on the screen.
+     *
+     * @param d the DrawSurface to draw on.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        drawOn(d, 1);
+    }
+
+    /**
+     * Draws the paddle between where it was before the last step and where it is now.
+     * A paddle that wrapped around the screen is drawn where it is now.
+     *
+     * @param d     the DrawSurface to draw on.
+     * @param alpha how far along, from 0 (the previous position) to 1 (the current position).
+     */
+    @Override
+    public void drawOn(DrawSurface d, double alpha) {
+        int x = Ball.interpolate(this.previousX, rect.getMinX(), alpha);
+        int y = (int) rect.getMinY();
+        int width = (int) rect.getWidth();
+        int height = (int) rect.getHeight();
+
+        d.setColor(this.color);
+        d.fillRectangle(x, y, width, height);
+        d.setColor(Color.BLACK);
+        d.drawRectangle(x, y, width, height);
+    }
+
+    /**
+     * Marks the paddle's rectangle, both where it was last reported and where it is now.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addBounds(DirtyRegions regions) {
+        if (!Double.isNaN(this.drawnX)) {
+            addRect(regions, this.drawnX, this.drawnY);
+        }
+        addRect(regions, this.rect.getMinX(), this.rect.getMinY());
+    }
+
+    /**
+     * Marks the area the paddle swept since the previous frame, if it moved.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addDamage(DirtyRegions regions) {
+        addDamage(regions, 1);
+    }
+
+    /**
+     * Marks the area the paddle swept since the previous frame, if it is drawn elsewhere.
+     *
+     * @param regions the regions to add to.
+     * @param alpha   how far between the previous and the current position the paddle is drawn.
+     */
+    @Override
+    public void addDamage(DirtyRegions regions, double alpha) {
+        double x = Ball.interpolate(this.previousX, this.rect.getMinX(), alpha);
+        double y = (int) this.rect.getMinY();
+        if (x != this.drawnX || y != this.drawnY) {
+            if (!Double.isNaN(this.drawnX)) {
+                addRect(regions, this.drawnX, this.drawnY);
+            }
+            addRect(regions, x, y);
+            this.drawnX = x;
+            this.drawnY = y;
+        }
+    }
+
+    /**
+     * Marks the paddle's rectangle at a given position, together with its outline,
+     * which is drawn one pixel past the right and bottom edges.
+     *
+     * @param regions the regions to add to.
+     * @param x       the left edge.
+     * @param y       the top edge.
+     */
+    private void addRect(DirtyRegions regions, double x, double y) {
+        regions.add((int) x, (int) y, (int) this.rect.getWidth() + 1, (int) this.rect.getHeight() + 1);
+    }
+
+    /**
+     * Returns the rectangle that defines the paddle's collision area.
+     *
+     * @return the collision rectangle.
+     */
+    @Override
+    public Rectangle getCollisionRectangle() {
+        return this.rect;
+    }
+
+    /**
+     * Calculates the new velocity of the ball based on where it hits the paddle.
+     *
+     * @param hitter          the ball that hit the paddle (not used here).
+     * @param collisionPoint  the point where the ball hit.
+     * @param currentVelocity the ball's velocity before impact.
+     * @return the new velocity after the hit.
+     */
+    @Override
+    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
+        Vector2 velocity = new Vector2().set(currentVelocity);
+        bounce(collisionPoint.getX(), velocity);
+        return velocity.toVelocity();
+    }
+
+    /**
+     * Same as hit(Ball, Point, Velocity), setting the new velocity in place.
+     *
+     * @param hitter    the ball that hit the paddle (not used here).
+     * @param collision the details of the collision.
+     * @param velocity  the ball's velocity before impact, set to the velocity after it.
+     */
+    @Override
+    public void hit(Ball hitter, CollisionInfo collision, Vector2 velocity) {
+        bounce(collision.collisionX(), velocity);
+    }
+
+    /**
+     * Turns a velocity by the region of the paddle that was hit.
+     *
+     * @param x        the x of the collision point.
+     * @param velocity the velocity before impact, set to the velocity after it.
+     */
+    private void bounce(double x, Vector2 velocity) {
+        double paddleX = rect.getMinX();
+        double regionWidth = rect.getWidth() / 5;
+
+        // Determine region 1–5 based on where the hit occurred
+        int region = (int) ((x - paddleX) / regionWidth) + 1;
+        region = Math.min(5, Math.max(1, region)); // Clamp to 1–5
+
+        double angle;
+        switch (region) {
+            case 1: angle = 300; break;
+            case 2: angle = 330; break;
+            case 3: velocity.negateY(); return;
+            case 4: angle = 30; break;
+            case 5: angle = 60; break;
+            default: angle = 0; break;
+        }
+        // Same as Velocity.fromAngleAndSpeed(angle, speed), without creating the velocity.
+        double speed = Math.sqrt(velocity.getX() * velocity.getX() + velocity.getY() * velocity.getY());
+        double radians = Math.toRadians(angle);
+        velocity.set(speed * Math.sin(radians), -speed * Math.cos(radians));
+    }
+
+    /**
+     * Adds the paddle to the game (as both a sprite and a collidable).
+     *
+     * @param g the game instance to add the paddle to.
+     */
+    public void addToGame(GameLevel g) {
+        g.addSprite(this);
+        g.addDynamicCollidable(this);
+    }
+}
@@ -1,21 +1,73 @@
-package sprites;
-
-import biuoop.DrawSurface;
-
-/**
- * A Sprite is a game object that can be drawn and can change over time.
- */
-public interface Sprite {
-
-    /**
-     * Draws the sprite on the given surface.
-     *
-     * @param d the surface to draw the sprite on.
-     */
-    void drawOn(DrawSurface d);
-
-    /**
-     * Notifies the sprite that a unit of time has passed.
-     */
-    void timePassed();
-}
+package sprites;
+
+import biuoop.DrawSurface;
+
+/**
+ * A Sprite is a game object that can be drawn and can change over time.
+ */
+public interface Sprite {
+
+    /**
+     * Draws the sprite on the given surface.
+     *
+     * @param d the surface to draw the sprite on.
+     */
+    void drawOn(DrawSurface d);
+
+    /**
+     * Draws the sprite part of the way between its state before the last timePassed() and its state now,
+     * so motion stays smooth when the screen is refreshed at a different rate than time passes.
+     * By default the sprite is drawn as it is now.
+     *
+     * @param d     the surface to draw the sprite on.
+     * @param alpha how far to go, from 0 (the previous state) to 1 (the current state).
+     */
+    default void drawOn(DrawSurface d, double alpha) {
+        drawOn(d);
+    }
+
+    /**
+     * Notifies the sprite that a unit of time has passed.
+     */
+    void timePassed();
+
+    /**
+     * Tells whether the sprite never changes over time, so timePassed() need not be called.
+     *
+     * @return true if timePassed() does nothing; false by default.
+     */
+    default boolean isPassive() {
+        return false;
+    }
+
+    /**
+     * Marks the area the sprite covers on screen, used when it is added or removed.
+     * By default the whole screen, since the sprite may draw anywhere.
+     *
+     * @param regions the regions to add to.
+     */
+    default void addBounds(DirtyRegions regions) {
+        regions.addAll();
+    }
+
+    /**
+     * Marks the area whose drawing changed since the previous frame, called once per frame before drawing.
+     * By default the whole screen, since the sprite may draw anything.
+     *
+     * @param regions the regions to add to.
+     */
+    default void addDamage(DirtyRegions regions) {
+        regions.addAll();
+    }
+
+    /**
+     * Marks the area whose drawing changed since the previous frame, when the frame is drawn
+     * with drawOn(d, alpha). By default the same as addDamage(regions).
+     *
+     * @param regions the regions to add to.
+     * @param alpha   how far between the previous and the current state the frame is drawn.
+     */
+    default void addDamage(DirtyRegions regions, double alpha) {
+        addDamage(regions);
+    }
+}
@@ -1,59 +1,335 @@
-package sprites;
-
-import biuoop.DrawSurface;
-import java.util.List;
-import java.util.ArrayList;
-
-/**
- * A SpriteCollection holds and manages a list of Sprite objects.
- */
-public class SpriteCollection {
-    private List<Sprite> sprites;
-
-    /**
-     * Constructs an empty sprite collection.
-     */
-    public SpriteCollection() {
-        this.sprites = new ArrayList<>();
-    }
-
-    /**
-     * Adds a sprite to the collection.
-     *
-     * @param s the sprite to add.
-     */
-    public void addSprite(Sprite s) {
-        this.sprites.add(s);
-    }
-
-    /**
-     * Removes a sprite from the collection.
-     *
-     * @param s the sprite to remove.
-     */
-    public void removeSprite(Sprite s) {
-        this.sprites.remove(s);
-    }
-
-    /**
-     * Calls timePassed() on all sprites.
-     */
-    public void notifyAllTimePassed() {
-        // Make a copy to avoid modification issues
-        List<Sprite> copy = new ArrayList<>(sprites);
-        for (Sprite s : copy) {
-            s.timePassed();
-        }
-    }
-
-    /**
-     * Draws all sprites on the given DrawSurface.
-     *
-     * @param d the surface to draw on.
-     */
-    public void drawAllOn(DrawSurface d) {
-        for (Sprite s : sprites) {
-            s.drawOn(d);
-        }
-    }
-}
+package sprites;
+
+import biuoop.DrawSurface;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A SpriteCollection holds and manages a list of Sprite objects.
+ * Sprites are drawn in the order they were added. Only sprites that are not passive are told that
+ * time passed, in the order they were added, so a game plays out the same way whatever order its
+ * sprites were removed in. Sprites added or removed while the collection is being notified are buffered
+ * and applied once, when the notification pass ends, so no copy of the list is needed per frame.
+ * Every sprite remembers its positions, so removing one costs amortized O(1).
+ * With setKeepRemovedOrder(true), a sprite added again after it was removed goes back to its old place
+ * in both orders, so a game brought back to an earlier state plays out exactly like the original.
+ * Once addDamage() has been called, the collection also remembers which sprites came and went
+ * since the previous call, so their areas can be redrawn.
+ */
+public class SpriteCollection {
+    private Sprite[] drawOrder;
+    private int drawSize;
+    private int drawRemoved;
+    private Sprite[] active;
+    private int activeSize;
+    private int activeRemoved;
+    private Map<Sprite, Slot> slots;
+    private long nextOrder;
+    private Map<Sprite, Long> retired;
+    private List<Sprite> pendingAdds;
+    private List<Sprite> pendingRemoves;
+    private boolean notifying;
+    private boolean trackingDamage;
+    private List<Sprite> addedSinceDamage;
+    private List<Sprite> removedSinceDamage;
+
+    /**
+     * The positions of a sprite in the draw order and in the list of sprites to notify.
+     */
+    private static class Slot {
+        private long order;
+        private int drawIndex;
+        private int activeIndex = -1;
+    }
+
+    /**
+     * Constructs an empty sprite collection.
+     */
+    public SpriteCollection() {
+        this.drawOrder = new Sprite[16];
+        this.active = new Sprite[16];
+        this.slots = new IdentityHashMap<>();
+        this.pendingAdds = new ArrayList<>();
+        this.pendingRemoves = new ArrayList<>();
+        this.addedSinceDamage = new ArrayList<>();
+        this.removedSinceDamage = new ArrayList<>();
+    }
+
+    /**
+     * Sets whether removed sprites remember their place, so that adding one again puts it back there.
+     * Off by default: only a game that goes back to earlier states needs it, and every removal then
+     * keeps an entry until the sprite is added again.
+     *
+     * @param keep true to remember the places of sprites removed from now on.
+     */
+    public void setKeepRemovedOrder(boolean keep) {
+        if (!keep) {
+            this.retired = null;
+        } else if (this.retired == null) {
+            this.retired = new IdentityHashMap<>();
+        }
+    }
+
+    /**
+     * Adds a sprite to the collection.
+     * While sprites are being notified, the addition takes effect at the end of the pass.
+     *
+     * @param s the sprite to add.
+     */
+    public void addSprite(Sprite s) {
+        if (this.notifying) {
+            if (!this.pendingRemoves.remove(s)) {
+                this.pendingAdds.add(s);
+            }
+            return;
+        }
+        if (this.slots.containsKey(s)) {
+            return;
+        }
+        Slot slot = new Slot();
+        Long oldOrder = this.retired != null ? this.retired.remove(s) : null;
+        if (oldOrder != null) {
+            slot.order = oldOrder;
+            reinsert(s, slot);
+            return;
+        }
+        slot.order = this.nextOrder++;
+        if (this.drawSize == this.drawOrder.length) {
+            compactDrawOrder();
+            if (this.drawSize == this.drawOrder.length) {
+                this.drawOrder = Arrays.copyOf(this.drawOrder, this.drawSize * 2);
+            }
+        }
+        slot.drawIndex = this.drawSize;
+        this.drawOrder[this.drawSize++] = s;
+        if (!s.isPassive()) {
+            if (this.activeSize == this.active.length) {
+                compactActive();
+                if (this.activeSize == this.active.length) {
+                    this.active = Arrays.copyOf(this.active, this.activeSize * 2);
+                }
+            }
+            slot.activeIndex = this.activeSize;
+            this.active[this.activeSize++] = s;
+        }
+        this.slots.put(s, slot);
+        if (this.trackingDamage) {
+            this.addedSinceDamage.add(s);
+        }
+    }
+
+    /**
+     * Removes a sprite from the collection.
+     * While sprites are being notified, the removal takes effect at the end of the pass.
+     *
+     * @param s the sprite to remove.
+     */
+    public void removeSprite(Sprite s) {
+        if (this.notifying) {
+            if (!this.pendingAdds.remove(s)) {
+                this.pendingRemoves.add(s);
+            }
+            return;
+        }
+        Slot slot = this.slots.remove(s);
+        if (slot == null) {
+            return;
+        }
+        if (this.retired != null) {
+            this.retired.put(s, slot.order);
+        }
+        if (this.trackingDamage) {
+            this.removedSinceDamage.add(s);
+        }
+        // The draw order decides what is painted on top and the notification order decides who moves first,
+        // so the slots are only cleared and the gaps are squeezed out once they make up half of an array.
+        this.drawOrder[slot.drawIndex] = null;
+        this.drawRemoved++;
+        if (this.drawRemoved * 2 > this.drawSize) {
+            compactDrawOrder();
+        }
+        if (slot.activeIndex >= 0) {
+            this.active[slot.activeIndex] = null;
+            this.activeRemoved++;
+            if (this.activeRemoved * 2 > this.activeSize) {
+                compactActive();
+            }
+        }
+    }
+
+    /**
+     * Puts a sprite that was removed back at its old place in the draw order and in the sprites to notify.
+     * This shifts the sprites after it, so it costs O(n).
+     *
+     * @param s    the sprite.
+     * @param slot its new slot, holding its old order.
+     */
+    private void reinsert(Sprite s, Slot slot) {
+        compactDrawOrder();
+        if (this.drawSize == this.drawOrder.length) {
+            this.drawOrder = Arrays.copyOf(this.drawOrder, this.drawSize * 2);
+        }
+        int i = this.drawSize++;
+        while (i > 0 && this.slots.get(this.drawOrder[i - 1]).order > slot.order) {
+            this.drawOrder[i] = this.drawOrder[i - 1];
+            this.slots.get(this.drawOrder[i]).drawIndex = i;
+            i--;
+        }
+        this.drawOrder[i] = s;
+        slot.drawIndex = i;
+        if (!s.isPassive()) {
+            compactActive();
+            if (this.activeSize == this.active.length) {
+                this.active = Arrays.copyOf(this.active, this.activeSize * 2);
+            }
+            i = this.activeSize++;
+            while (i > 0 && this.slots.get(this.active[i - 1]).order > slot.order) {
+                this.active[i] = this.active[i - 1];
+                this.slots.get(this.active[i]).activeIndex = i;
+                i--;
+            }
+            this.active[i] = s;
+            slot.activeIndex = i;
+        }
+        this.slots.put(s, slot);
+        if (this.trackingDamage) {
+            this.addedSinceDamage.add(s);
+        }
+    }
+
+    /**
+     * Tells whether a sprite is in the collection (not counting additions still buffered).
+     *
+     * @param s the sprite.
+     * @return true if it is in the collection.
+     */
+    public boolean contains(Sprite s) {
+        return this.slots.containsKey(s);
+    }
+
+    /**
+     * Removes the cleared slots from the draw order, keeping the remaining sprites in order.
+     */
+    private void compactDrawOrder() {
+        int kept = 0;
+        for (int i = 0; i < this.drawSize; i++) {
+            Sprite s = this.drawOrder[i];
+            if (s != null) {
+                this.slots.get(s).drawIndex = kept;
+                this.drawOrder[kept++] = s;
+            }
+        }
+        Arrays.fill(this.drawOrder, kept, this.drawSize, null);
+        this.drawSize = kept;
+        this.drawRemoved = 0;
+    }
+
+    /**
+     * Removes the cleared slots from the sprites to notify, keeping the remaining ones in order.
+     */
+    private void compactActive() {
+        int kept = 0;
+        for (int i = 0; i < this.activeSize; i++) {
+            Sprite s = this.active[i];
+            if (s != null) {
+                this.slots.get(s).activeIndex = kept;
+                this.active[kept++] = s;
+            }
+        }
+        Arrays.fill(this.active, kept, this.activeSize, null);
+        this.activeSize = kept;
+        this.activeRemoved = 0;
+    }
+
+    /**
+     * Calls timePassed() on all sprites that are not passive,
+     * then applies the additions and removals made meanwhile.
+     */
+    public void notifyAllTimePassed() {
+        this.notifying = true;
+        try {
+            for (int i = 0; i < this.activeSize; i++) {
+                Sprite s = this.active[i];
+                if (s != null) {
+                    s.timePassed();
+                }
+            }
+        } finally {
+            this.notifying = false;
+        }
+        for (int i = 0; i < this.pendingRemoves.size(); i++) {
+            removeSprite(this.pendingRemoves.get(i));
+        }
+        this.pendingRemoves.clear();
+        for (int i = 0; i < this.pendingAdds.size(); i++) {
+            addSprite(this.pendingAdds.get(i));
+        }
+        this.pendingAdds.clear();
+    }
+
+    /**
+     * Draws all sprites on the given DrawSurface.
+     *
+     * @param d the surface to draw on.
+     */
+    public void drawAllOn(DrawSurface d) {
+        for (int i = 0; i < this.drawSize; i++) {
+            Sprite s = this.drawOrder[i];
+            if (s != null) {
+                s.drawOn(d);
+            }
+        }
+    }
+
+    /**
+     * Draws all sprites on the given DrawSurface, part of the way between their previous and current states.
+     *
+     * @param d     the surface to draw on.
+     * @param alpha how far along, from 0 (the previous states) to 1 (the current states).
+     */
+    public void drawAllOn(DrawSurface d, double alpha) {
+        for (int i = 0; i < this.drawSize; i++) {
+            Sprite s = this.drawOrder[i];
+            if (s != null) {
+                s.drawOn(d, alpha);
+            }
+        }
+    }
+
+    /**
+     * Marks the areas that changed since the previous call: those of sprites added or removed meanwhile,
+     * and whatever each sprite reports as changed.
+     *
+     * @param regions the regions to add to.
+     */
+    public void addDamage(DirtyRegions regions) {
+        addDamage(regions, 1);
+    }
+
+    /**
+     * Marks the areas that changed since the previous call, when the sprites are drawn with drawAllOn(d, alpha).
+     *
+     * @param regions the regions to add to.
+     * @param alpha   how far between their previous and current states the sprites are drawn.
+     */
+    public void addDamage(DirtyRegions regions, double alpha) {
+        this.trackingDamage = true;
+        for (int i = 0; i < this.removedSinceDamage.size(); i++) {
+            this.removedSinceDamage.get(i).addBounds(regions);
+        }
+        for (int i = 0; i < this.addedSinceDamage.size(); i++) {
+            this.addedSinceDamage.get(i).addBounds(regions);
+        }
+        this.removedSinceDamage.clear();
+        this.addedSinceDamage.clear();
+        for (int i = 0; i < this.drawSize; i++) {
+            Sprite s = this.drawOrder[i];
+            if (s != null) {
+                s.addDamage(regions, alpha);
+            }
+        }
+    }
+}
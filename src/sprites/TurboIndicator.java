@@ -0,0 +1,85 @@
+package sprites;
+
+import biuoop.DrawSurface;
+import java.awt.Color;
+
+/**
+ * The TurboIndicator shows, at the left of the score bar, how much faster than real time the game runs
+ * and how many simulation ticks it runs per second.
+ */
+public class TurboIndicator implements Sprite {
+    private double multiplier = 1;
+    private double ticksPerSecond;
+    private String text = "";
+    private String drawnText;
+
+    /**
+     * Updates the shown rate.
+     *
+     * @param effectiveMultiplier how many times faster than real time the game runs now.
+     * @param simTicksPerSecond   how many simulation ticks ran per second lately.
+     */
+    public void setRate(double effectiveMultiplier, double simTicksPerSecond) {
+        this.multiplier = effectiveMultiplier;
+        this.ticksPerSecond = simTicksPerSecond;
+        this.text = String.format("x%.1f  %.0f ticks/s", this.multiplier, this.ticksPerSecond);
+    }
+
+    /**
+     * @return how many times faster than real time the game was last shown to run.
+     */
+    public double getMultiplier() {
+        return this.multiplier;
+    }
+
+    /**
+     * Draws the rate in the score bar.
+     *
+     * @param d the drawing surface
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        d.setColor(Color.RED);
+        d.drawText(30, 18, this.text, 16);
+    }
+
+    /**
+     * Does nothing; the rate is set by the game loop.
+     */
+    @Override
+    public void timePassed() {
+    }
+
+    /**
+     * The indicator changes only when its rate is set.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean isPassive() {
+        return true;
+    }
+
+    /**
+     * Marks the left part of the score bar, where the rate is written.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addBounds(DirtyRegions regions) {
+        regions.add(0, 0, 300, 25);
+    }
+
+    /**
+     * Marks the text if it changed since the previous frame.
+     *
+     * @param regions the regions to add to.
+     */
+    @Override
+    public void addDamage(DirtyRegions regions) {
+        if (!this.text.equals(this.drawnText)) {
+            this.drawnText = this.text;
+            addBounds(regions);
+        }
+    }
+}
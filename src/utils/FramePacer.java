@@ -0,0 +1,149 @@
+package utils;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A FramePacer keeps a loop running at a fixed frame rate, measured with System.nanoTime.
+ * Every frame has a deadline one period after the previous deadline, so timing errors do not add up;
+ * a frame that misses its deadline skips the deadlines already past instead of rushing to catch up.
+ * To wait, the pacer parks the thread until shortly before the deadline and spins for the rest,
+ * since parking alone wakes up late by up to a millisecond or more.
+ * It also keeps histograms of frame time, update time, draw time and how late each wait ended.
+ */
+public class FramePacer {
+    /** How close to the deadline the pacer stops parking and starts spinning. */
+    public static final long DEFAULT_SPIN_NANOS = 1_000_000L;
+
+    private final long period;
+    private long spinNanos = DEFAULT_SPIN_NANOS;
+    private long deadline;
+    private long frameStart;
+    private boolean started;
+    private final Histogram frameTimes = new Histogram("frame");
+    private final Histogram updateTimes = new Histogram("update");
+    private final Histogram drawTimes = new Histogram("draw");
+    private final Histogram overshoots = new Histogram("overshoot");
+
+    /**
+     * Constructs a pacer.
+     *
+     * @param framesPerSecond the frame rate to keep (at least 1).
+     */
+    public FramePacer(int framesPerSecond) {
+        this.period = 1_000_000_000L / Math.max(1, framesPerSecond);
+    }
+
+    /**
+     * Sets how close to the deadline the pacer stops parking and spins instead.
+     * 0 parks all the way; a full period spins all the way.
+     *
+     * @param nanos the spin window in nanoseconds.
+     */
+    public void setSpinNanos(long nanos) {
+        this.spinNanos = Math.max(0, nanos);
+    }
+
+    /**
+     * @return the length of a frame in nanoseconds.
+     */
+    public long getPeriod() {
+        return this.period;
+    }
+
+    /**
+     * Starts the first frame now.
+     */
+    public void start() {
+        this.frameStart = System.nanoTime();
+        this.deadline = this.frameStart + this.period;
+        this.started = true;
+    }
+
+    /**
+     * Records how long the current frame spent updating the game.
+     *
+     * @param nanos the update time in nanoseconds.
+     */
+    public void recordUpdate(long nanos) {
+        this.updateTimes.record(nanos);
+    }
+
+    /**
+     * Records how long the current frame spent drawing.
+     *
+     * @param nanos the draw time in nanoseconds.
+     */
+    public void recordDraw(long nanos) {
+        this.drawTimes.record(nanos);
+    }
+
+    /**
+     * Waits for the current frame's deadline, then starts the next frame.
+     */
+    public void waitForNextFrame() {
+        if (!this.started) {
+            start();
+            return;
+        }
+        long now = System.nanoTime();
+        if (now < this.deadline) {
+            long remaining = this.deadline - now;
+            while (remaining > this.spinNanos) {
+                LockSupport.parkNanos(remaining - this.spinNanos);
+                remaining = this.deadline - System.nanoTime();
+            }
+            while (System.nanoTime() < this.deadline) {
+                Thread.onSpinWait();
+            }
+            now = System.nanoTime();
+            this.overshoots.record(now - this.deadline);
+        }
+        this.frameTimes.record(now - this.frameStart);
+        this.frameStart = now;
+        this.deadline += this.period;
+        if (this.deadline <= now) {
+            // Missed at least one whole frame: keep the phase, drop the deadlines already past.
+            this.deadline += ((now - this.deadline) / this.period + 1) * this.period;
+        }
+    }
+
+    /**
+     * @return the histogram of time from the start of one frame to the start of the next.
+     */
+    public Histogram getFrameTimes() {
+        return this.frameTimes;
+    }
+
+    /**
+     * @return the histogram of update times.
+     */
+    public Histogram getUpdateTimes() {
+        return this.updateTimes;
+    }
+
+    /**
+     * @return the histogram of draw times.
+     */
+    public Histogram getDrawTimes() {
+        return this.drawTimes;
+    }
+
+    /**
+     * @return the histogram of how late the waits ended past their deadlines.
+     */
+    public Histogram getOvershoots() {
+        return this.overshoots;
+    }
+
+    /**
+     * Returns the summaries of all histograms, one per line.
+     *
+     * @return the report.
+     */
+    public String report() {
+        return this.frameTimes.summary() + System.lineSeparator()
+                + this.updateTimes.summary() + System.lineSeparator()
+                + this.drawTimes.summary() + System.lineSeparator()
+                + this.overshoots.summary();
+    }
+}
@@ -0,0 +1,318 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A RewindBuffer keeps the most recent of a stream of equally sized snapshots in a fixed amount of memory.
+ * Consecutive snapshots of a game differ in a few bytes, so each one is stored as its XOR with the one
+ * before it, with the runs of zeros squeezed out: a list of (zeros to skip, bytes that follow, the bytes).
+ * Every so many snapshots a key snapshot is stored whole (run-length encoded the same way), so reading one
+ * back applies at most that many deltas. The encoded snapshots are written around a ring of bytes;
+ * when it is full, the oldest ones are dropped, a key snapshot and its deltas at a time.
+ * Nothing is allocated per snapshot once the index has grown to its working size.
+ */
+public class RewindBuffer {
+    /** How many snapshots follow a key snapshot as deltas before the next key snapshot. */
+    public static final int DEFAULT_KEY_INTERVAL = 64;
+
+    private final int snapshotSize;
+    private final int keyInterval;
+    private final byte[] data;
+    private final byte[] previous;
+    private final byte[] scratch;
+    private int writePos;
+    private int[] starts;
+    private int[] lengths;
+    private boolean[] keys;
+    private int oldest;
+    private int count;
+    private int sinceKey;
+
+    /**
+     * Constructs an empty buffer with the default key interval.
+     *
+     * @param snapshotSize the size of every snapshot in bytes.
+     * @param memory       the bytes to keep the encoded snapshots in.
+     */
+    public RewindBuffer(int snapshotSize, int memory) {
+        this(snapshotSize, memory, DEFAULT_KEY_INTERVAL);
+    }
+
+    /**
+     * Constructs an empty buffer.
+     *
+     * @param snapshotSize the size of every snapshot in bytes.
+     * @param memory       the bytes to keep the encoded snapshots in; at least two worst-case snapshots.
+     * @param keyInterval  how many deltas follow each key snapshot (at least 1).
+     */
+    public RewindBuffer(int snapshotSize, int memory, int keyInterval) {
+        this.snapshotSize = snapshotSize;
+        this.keyInterval = Math.max(1, keyInterval);
+        // Runs after the first start with at least two zeros, so there are at most a third as many as bytes.
+        this.scratch = new byte[snapshotSize + 10 * (snapshotSize / 3 + 2)];
+        if (memory < 2 * this.scratch.length) {
+            throw new IllegalArgumentException("A rewind buffer needs at least " + 2 * this.scratch.length
+                    + " bytes for snapshots of " + snapshotSize + " bytes");
+        }
+        this.data = new byte[memory];
+        this.previous = new byte[snapshotSize];
+        this.starts = new int[64];
+        this.lengths = new int[64];
+        this.keys = new boolean[64];
+    }
+
+    /**
+     * @return how many snapshots the buffer holds.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * @return the bytes taken by the encoded snapshots held.
+     */
+    public long getBytesUsed() {
+        long used = 0;
+        for (int i = 0; i < this.count; i++) {
+            used += this.lengths[index(i)];
+        }
+        return used;
+    }
+
+    /**
+     * Forgets every snapshot.
+     */
+    public void clear() {
+        this.count = 0;
+        this.oldest = 0;
+        this.writePos = 0;
+        this.sinceKey = 0;
+    }
+
+    /**
+     * Adds the newest snapshot, dropping the oldest ones if there is no room for it.
+     *
+     * @param snapshot the snapshot; its first snapshotSize bytes are used.
+     */
+    public void push(byte[] snapshot) {
+        boolean key = this.count == 0 || this.sinceKey >= this.keyInterval;
+        int length = encode(snapshot, key);
+        reserve(length);
+        if (this.count == 0 && !key) {
+            // Making room took the key snapshot this delta was against.
+            key = true;
+            length = encode(snapshot, true);
+            reserve(length);
+        }
+        System.arraycopy(this.scratch, 0, this.data, this.writePos, length);
+        if (this.count == this.starts.length) {
+            growIndex();
+        }
+        int i = index(this.count++);
+        this.starts[i] = this.writePos;
+        this.lengths[i] = length;
+        this.keys[i] = key;
+        this.writePos += length;
+        this.sinceKey = key ? 1 : this.sinceKey + 1;
+        System.arraycopy(snapshot, 0, this.previous, 0, this.snapshotSize);
+    }
+
+    /**
+     * Reads a snapshot back.
+     *
+     * @param age how many snapshots before the newest: 0 is the newest, size() - 1 the oldest.
+     * @param out the array to write the snapshot into.
+     */
+    public void read(int age, byte[] out) {
+        if (age < 0 || age >= this.count) {
+            throw new IndexOutOfBoundsException("No snapshot " + age + " back; " + this.count + " held");
+        }
+        int target = this.count - 1 - age;
+        int first = target;
+        while (!this.keys[index(first)]) {
+            first--;
+        }
+        Arrays.fill(out, 0, this.snapshotSize, (byte) 0);
+        for (int n = first; n <= target; n++) {
+            decode(index(n), out);
+        }
+    }
+
+    /**
+     * Reads a snapshot back and forgets the newer ones, so the history goes on from it.
+     *
+     * @param age how many snapshots before the newest.
+     * @param out the array to write the snapshot into.
+     */
+    public void rewind(int age, byte[] out) {
+        read(age, out);
+        if (age == 0) {
+            return;
+        }
+        this.count -= age;
+        int newest = index(this.count - 1);
+        this.writePos = this.starts[newest] + this.lengths[newest];
+        this.sinceKey = 0;
+        for (int n = this.count - 1; n >= 0; n--) {
+            this.sinceKey++;
+            if (this.keys[index(n)]) {
+                break;
+            }
+        }
+        System.arraycopy(out, 0, this.previous, 0, this.snapshotSize);
+    }
+
+    /**
+     * @param n a position in the history, 0 for the oldest snapshot.
+     * @return its index in the index arrays.
+     */
+    private int index(int n) {
+        return (this.oldest + n) % this.starts.length;
+    }
+
+    /**
+     * Makes room for an encoded snapshot at the write position, wrapping around to the start of the ring
+     * if it does not fit before the end.
+     *
+     * @param length the length of the encoded snapshot.
+     */
+    private void reserve(int length) {
+        if (this.writePos + length > this.data.length) {
+            claim(this.writePos, this.data.length);
+            this.writePos = 0;
+        }
+        claim(this.writePos, this.writePos + length);
+    }
+
+    /**
+     * Drops the oldest snapshots that lie in the given range of the ring, then any deltas left without
+     * their key snapshot.
+     *
+     * @param from the first byte of the range.
+     * @param to   the end of the range (exclusive).
+     */
+    private void claim(int from, int to) {
+        while (this.count > 0 && this.starts[this.oldest] >= from && this.starts[this.oldest] < to) {
+            dropOldest();
+        }
+        while (this.count > 0 && !this.keys[this.oldest]) {
+            dropOldest();
+        }
+    }
+
+    /**
+     * Forgets the oldest snapshot.
+     */
+    private void dropOldest() {
+        this.oldest = (this.oldest + 1) % this.starts.length;
+        this.count--;
+    }
+
+    /**
+     * Doubles the index arrays, putting the oldest snapshot first.
+     */
+    private void growIndex() {
+        int capacity = this.starts.length * 2;
+        int[] newStarts = new int[capacity];
+        int[] newLengths = new int[capacity];
+        boolean[] newKeys = new boolean[capacity];
+        for (int n = 0; n < this.count; n++) {
+            int i = index(n);
+            newStarts[n] = this.starts[i];
+            newLengths[n] = this.lengths[i];
+            newKeys[n] = this.keys[i];
+        }
+        this.starts = newStarts;
+        this.lengths = newLengths;
+        this.keys = newKeys;
+        this.oldest = 0;
+    }
+
+    /**
+     * Encodes a snapshot into the scratch array, as it is or as its XOR with the previous one.
+     *
+     * @param snapshot the snapshot.
+     * @param key      true to encode it as it is.
+     * @return the length of the encoding.
+     */
+    private int encode(byte[] snapshot, boolean key) {
+        int out = 0;
+        int pos = 0;
+        while (pos < this.snapshotSize) {
+            int skipStart = pos;
+            while (pos < this.snapshotSize && xor(snapshot, pos, key) == 0) {
+                pos++;
+            }
+            int literalStart = pos;
+            // A single zero inside a literal run costs less than ending the run.
+            while (pos < this.snapshotSize && (xor(snapshot, pos, key) != 0
+                    || pos + 1 < this.snapshotSize && xor(snapshot, pos + 1, key) != 0)) {
+                pos++;
+            }
+            out = writeVarInt(literalStart - skipStart, out);
+            out = writeVarInt(pos - literalStart, out);
+            for (int i = literalStart; i < pos; i++) {
+                this.scratch[out++] = xor(snapshot, i, key);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @param snapshot a snapshot.
+     * @param i        the index of a byte.
+     * @param key      true for the byte itself, false for its XOR with the previous snapshot.
+     * @return the byte to encode.
+     */
+    private byte xor(byte[] snapshot, int i, boolean key) {
+        return key ? snapshot[i] : (byte) (snapshot[i] ^ this.previous[i]);
+    }
+
+    /**
+     * Applies an encoded snapshot to the one before it.
+     *
+     * @param i   the index of the encoded snapshot.
+     * @param out the snapshot before it (all zeros for a key snapshot), updated in place.
+     */
+    private void decode(int i, byte[] out) {
+        int in = this.starts[i];
+        int pos = 0;
+        while (pos < this.snapshotSize) {
+            int skip = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = this.data[in++];
+                skip |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int literals = 0;
+            shift = 0;
+            do {
+                b = this.data[in++];
+                literals |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            pos += skip;
+            for (int end = pos + literals; pos < end; pos++) {
+                out[pos] ^= this.data[in++];
+            }
+        }
+    }
+
+    /**
+     * Writes a non-negative int into the scratch array, seven bits per byte.
+     *
+     * @param value the value.
+     * @param out   where to write it.
+     * @return the position after it.
+     */
+    private int writeVarInt(int value, int out) {
+        while ((value & ~0x7F) != 0) {
+            this.scratch[out++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.scratch[out++] = (byte) value;
+        return out;
+    }
+}
@@ -0,0 +1,89 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A TripleBuffer hands the latest of a stream of values from one producer thread to one consumer thread
+ * without locks. The producer fills a back buffer and publishes it by swapping it with the middle one;
+ * the consumer swaps the middle one with its front buffer whenever a new value was published.
+ * Neither side ever waits for the other, and the consumer always sees a complete value: the newest one,
+ * with any older ones it missed simply skipped. The buffers are reused, so nothing is allocated per value.
+ *
+ * @param <T> the type of the buffers.
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final Object[] buffers;
+    private final AtomicInteger middle;
+    private int back;
+    private int front;
+
+    /**
+     * Constructs a triple buffer over three distinct buffers.
+     * The consumer starts with the first, the producer fills the second.
+     *
+     * @param first  the consumer's first buffer.
+     * @param second the producer's first buffer.
+     * @param third  the buffer in between.
+     */
+    public TripleBuffer(T first, T second, T third) {
+        this.buffers = new Object[]{first, second, third};
+        this.front = 0;
+        this.back = 1;
+        this.middle = new AtomicInteger(2);
+    }
+
+    /**
+     * Returns the buffer the producer fills next. Only the producer thread may call this.
+     *
+     * @return the back buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteBuffer() {
+        return (T) this.buffers[this.back];
+    }
+
+    /**
+     * Publishes the filled back buffer and takes another one to fill. Only the producer thread may call this.
+     */
+    public void publish() {
+        this.back = this.middle.getAndSet(this.back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Tells whether the last published buffer is still waiting for the consumer.
+     * A producer that makes values faster than they are consumed can skip making one while this is true,
+     * since it would only replace the waiting one unseen. Only the producer thread may call this.
+     *
+     * @return true if the consumer has not taken the last published buffer yet.
+     */
+    public boolean isPending() {
+        return (this.middle.get() & FRESH) != 0;
+    }
+
+    /**
+     * Takes the most recently published buffer, if one was published since the last call.
+     * Only the consumer thread may call this.
+     *
+     * @return true if the read buffer changed.
+     */
+    public boolean update() {
+        if ((this.middle.get() & FRESH) == 0) {
+            return false;
+        }
+        this.front = this.middle.getAndSet(this.front) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Returns the buffer the consumer reads. Only the consumer thread may call this.
+     *
+     * @return the front buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public T getReadBuffer() {
+        return (T) this.buffers[this.front];
+    }
+}